@@ -1,6 +1,9 @@
 package es.weso.ontoloci.api;
 
+import es.weso.ontoloci.persistence.BuildResultPage;
+import es.weso.ontoloci.persistence.BuildResultQuery;
 import es.weso.ontoloci.persistence.PersistedBuildResult;
+import es.weso.ontoloci.persistence.PersistedBuildSummary;
 
 import java.util.List;
 
@@ -22,6 +25,25 @@ public interface OntolociAPI {
      */
     List<PersistedBuildResult> getAllBuildResults();
 
+    /**
+     * Gets a page of the build results that match the filters of a query. The cursor of the page allows
+     * to fetch the following one without transferring the whole history of builds.
+     *
+     * @param query with the filters, the order and the position of the page.
+     * @return the page of build results and the cursor of the following one.
+     */
+    BuildResultPage<PersistedBuildResult> getBuildResults(BuildResultQuery query);
+
+    /**
+     * Gets a page of the summaries of the build results that match the filters of a query. A summary has
+     * the status, metadata and test counts of a build but not its test cases, so it is what the list of
+     * builds needs.
+     *
+     * @param query with the filters, the order and the position of the page.
+     * @return the page of build summaries and the cursor of the following one.
+     */
+    BuildResultPage<PersistedBuildSummary> getBuildSummaries(BuildResultQuery query);
+
     /**
      * Gets a build result for a given id. If the id does not exist then an empty build result is return.
      *
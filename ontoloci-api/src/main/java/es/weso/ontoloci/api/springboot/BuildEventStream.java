@@ -0,0 +1,119 @@
+package es.weso.ontoloci.api.springboot;
+
+import es.weso.ontoloci.persistence.BuildEvent;
+import es.weso.ontoloci.persistence.BuildEventBus;
+import es.weso.ontoloci.persistence.BuildEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stream of the build events sent to a client as server sent events.
+ *
+ * The events received from the bus are filtered and added to a bounded queue, that is drained by an executor,
+ * so a slow client never blocks the thread of the bus. If the client can not keep up and its queue fills, the
+ * stream is closed, the client reconnects with the id of the last event it received and the events it missed
+ * are sent again.
+ */
+class BuildEventStream implements BuildEventListener {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildEventStream.class);
+
+    private final SseEmitter emitter;
+    private final Map<String, String> filters;
+    private final String buildId;
+    private final Executor executor;
+    private final Queue<BuildEvent> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // Sequence of the last event queued, guarded by this.
+    private long lastSequence = -1;
+    private volatile boolean closed;
+
+    /**
+     * Creates a stream of build events.
+     *
+     * @param emitter  where the events are sent.
+     * @param filters  metadata values that the builds of the events must have, the null values are ignored.
+     * @param buildId  of the only build whose events are sent, null for all the builds.
+     * @param capacity maximum number of events waiting to be sent.
+     * @param executor that sends the events.
+     */
+    BuildEventStream(SseEmitter emitter, Map<String, String> filters, String buildId, int capacity, Executor executor) {
+        this.emitter = emitter;
+        this.filters = filters;
+        this.buildId = buildId;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(e -> close());
+    }
+
+    @Override
+    public synchronized void onEvent(BuildEvent event) {
+        // The events replayed when the stream is opened may be delivered again by the bus.
+        if(closed || event.getSequence() <= lastSequence || !matches(event))
+            return;
+        lastSequence = event.getSequence();
+
+        if(!queue.offer(event)) {
+            LOGGER.warn(String.format("Closing a build event stream that can not keep up, at %s", event));
+            close();
+            emitter.complete();
+            return;
+        }
+        if(draining.compareAndSet(false, true))
+            executor.execute(this::drain);
+    }
+
+    private boolean matches(BuildEvent event) {
+        if(buildId != null && !buildId.equals(event.getBuildId()))
+            return false;
+        for(Map.Entry<String, String> filter : filters.entrySet()) {
+            if(filter.getValue() != null && !Objects.equals(filter.getValue(), event.getMetadata().get(filter.getKey())))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends the queued events to the client, in order.
+     */
+    private void drain() {
+        do {
+            BuildEvent event;
+            while(!closed && (event = queue.poll()) != null) {
+                try {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getSequence()))
+                            .name(event.getType().getValue())
+                            .data(event, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // The client is gone.
+                    LOGGER.debug(String.format("Closing a build event stream, the client is gone: %s", e.getMessage()));
+                    close();
+                    emitter.completeWithError(e);
+                }
+            }
+            draining.set(false);
+            // An event may have been queued after the last poll and before the flag was cleared.
+        } while(!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void close() {
+        closed = true;
+        BuildEventBus.getInstance().unsubscribe(this);
+    }
+}
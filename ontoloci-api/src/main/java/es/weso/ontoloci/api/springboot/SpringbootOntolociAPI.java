@@ -1,15 +1,29 @@
 package es.weso.ontoloci.api.springboot;
 
 import es.weso.ontoloci.api.OntolociAPI;
+import es.weso.ontoloci.persistence.BuildEventBus;
+import es.weso.ontoloci.persistence.BuildResultPage;
+import es.weso.ontoloci.persistence.BuildResultQuery;
 import es.weso.ontoloci.persistence.OntolociDAO;
 import es.weso.ontoloci.persistence.PersistedBuildResult;
-import es.weso.ontoloci.persistence.mongo.OntolociInMemoryDAO;
+import es.weso.ontoloci.persistence.PersistedBuildResultStatus;
+import es.weso.ontoloci.persistence.PersistedBuildSummary;
+import es.weso.ontoloci.persistence.mongo.OntolociDAOFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class provides an endpoint for the ontoloci-web module.
@@ -19,23 +33,109 @@ import java.util.Objects;
  * @author Guillermo Facundo Colunga, Pablo Menéndez
  */
 @RestController
-@CrossOrigin( value = "*")
+@CrossOrigin( value = "*", exposedHeaders = SpringbootOntolociAPI.NEXT_CURSOR_HEADER)
 @RequestMapping("/api/v1")
 public class SpringbootOntolociAPI implements OntolociAPI {
 
     // LOGGER CREATION
     private static final Logger LOGGER = LoggerFactory.getLogger(SpringbootOntolociAPI.class);
-    private final OntolociDAO persistence = OntolociInMemoryDAO.instance();
+    private final OntolociDAO persistence = OntolociDAOFactory.getDAO();
+
+    // Header with the cursor of the following page of build results.
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_PAGE_SIZE = Integer.getInteger("ontoloci.api.pageSize", 50);
+    private static final int MAX_PAGE_SIZE = Integer.getInteger("ontoloci.api.maxPageSize", 200);
+
+    // Maximum number of events waiting to be sent to a client, and milliseconds an event stream is kept open.
+    private static final int EVENTS_CAPACITY = Integer.getInteger("ontoloci.api.eventsCapacity", 256);
+    private static final long EVENTS_TIMEOUT = Long.getLong("ontoloci.api.eventsTimeout", 30 * 60 * 1000L);
+
+    // Threads that send the build events to the clients.
+    private static final ExecutorService EVENTS_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "ontoloci-event-streams");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
-     * API endpoint for fetching all the build results.
+     * Gets all the build results, the most recent first.
      * @return build results
      */
-    @GetMapping("/buildResults")
     @Override
     public List<PersistedBuildResult> getAllBuildResults() {
-        LOGGER.debug(String.format("GET '/buildResults' endpoint triggered, returning [%s] elements", persistence.findAllBuildResults().size()));
-        return persistence.findAllBuildResults();
+        final List<PersistedBuildResult> results = persistence.findAllBuildResults();
+        LOGGER.debug(String.format("GET all the build results, returning [%s] elements", results.size()));
+        return results;
+    }
+
+    /**
+     * API endpoint for fetching a page of build results.
+     * The body keeps being a JSON array of build results, the cursor of the following page is
+     * returned in the X-Next-Cursor header and it is missing in the last page.
+     *
+     * @param owner  of the repository, optional.
+     * @param repo   name of the repository, optional.
+     * @param branch name of the branch, optional.
+     * @param status of the builds (success, failure or cancelled), optional.
+     * @param from   first execution date in milliseconds, optional.
+     * @param to     last execution date in milliseconds, optional.
+     * @param sort   asc or desc execution date order, the most recent first by default.
+     * @param cursor returned by the previous page, optional.
+     * @param limit  maximum number of build results of the page.
+     * @return build results
+     */
+    @GetMapping("/buildResults")
+    public ResponseEntity<List<PersistedBuildResult>> getBuildResults(
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) String repo,
+            @RequestParam(required = false) String branch,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        return toResponse(getBuildResults(createQuery(owner, repo, branch, status, from, to, sort, cursor, limit)));
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildResult> getBuildResults(BuildResultQuery query) {
+        final BuildResultPage<PersistedBuildResult> page = persistence.findBuildResults(query);
+        LOGGER.debug(String.format("GET '/buildResults' endpoint triggered with query=[%s], returning [%s] elements",
+                query, page.getBuildResults().size()));
+        return page;
+    }
+
+    /**
+     * API endpoint for fetching a page of build summaries, for the list of builds of the dashboard.
+     * It accepts the same parameters as the '/buildResults' endpoint, and returns the cursor of the
+     * following page in the X-Next-Cursor header too.
+     *
+     * @return build summaries
+     */
+    @GetMapping("/buildSummaries")
+    public ResponseEntity<List<PersistedBuildSummary>> getBuildSummaries(
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) String repo,
+            @RequestParam(required = false) String branch,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        return toResponse(getBuildSummaries(createQuery(owner, repo, branch, status, from, to, sort, cursor, limit)));
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildSummary> getBuildSummaries(BuildResultQuery query) {
+        final BuildResultPage<PersistedBuildSummary> page = persistence.findBuildSummaries(query);
+        LOGGER.debug(String.format("GET '/buildSummaries' endpoint triggered with query=[%s], returning [%s] elements",
+                query, page.getBuildResults().size()));
+        return page;
     }
 
     /**
@@ -58,4 +158,97 @@ public class SpringbootOntolociAPI implements OntolociAPI {
         return result;
     }
 
+    /**
+     * API endpoint for following the progress of the builds without polling. It is a stream of server sent
+     * events, named after the build event type (queued, fetching, test_case_finished, completed, failed and
+     * cancelled), with the build event as JSON data and its sequence number as id. A client that reconnects sends the id of the last
+     * event received in the Last-Event-ID header, and receives first the recent events it missed.
+     *
+     * @param owner       of the repository, optional.
+     * @param repo        name of the repository, optional.
+     * @param branch      name of the branch, optional.
+     * @param buildId     of the build, optional.
+     * @param lastEventId id of the last event received, optional.
+     * @return the event stream
+     */
+    @GetMapping(path = "/buildEvents", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getBuildEvents(
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) String repo,
+            @RequestParam(required = false) String branch,
+            @RequestParam(required = false) String buildId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        LOGGER.debug(String.format("GET '/buildEvents' endpoint triggered with owner=[%s], repo=[%s], branch=[%s], buildId=[%s], lastEventId=[%s]",
+                owner, repo, branch, buildId, lastEventId));
+
+        final Map<String, String> filters = new HashMap<>();
+        filters.put("owner", owner);
+        filters.put("repo", repo);
+        filters.put("branch", branch);
+
+        final SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT);
+        final BuildEventStream stream = new BuildEventStream(emitter, filters, buildId, EVENTS_CAPACITY, EVENTS_EXECUTOR);
+        if(lastEventId == null)
+            BuildEventBus.getInstance().subscribe(stream);
+        else
+            BuildEventBus.getInstance().subscribe(stream, lastEventId);
+        return emitter;
+    }
+
+    /**
+     * Creates the response of a page, the build results in the body and the next cursor in a header.
+     *
+     * @param page of build results.
+     * @return the response.
+     */
+    private <T> ResponseEntity<List<T>> toResponse(BuildResultPage<T> page) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(page.hasNext())
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(page.getBuildResults());
+    }
+
+    /**
+     * Creates the query of a page of build results from the request parameters.
+     *
+     * @return the query.
+     * @throws ResponseStatusException with a bad request status if a parameter is not valid.
+     */
+    private BuildResultQuery createQuery(String owner, String repo, String branch, String status, Long from, Long to,
+                                         String sort, String cursor, Integer limit) {
+        if(!"asc".equalsIgnoreCase(sort) && !"desc".equalsIgnoreCase(sort))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("invalid sort [%s], expected asc or desc", sort));
+
+        final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if(pageSize <= 0 || pageSize > MAX_PAGE_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("invalid limit [%s], expected a value between 1 and %s", pageSize, MAX_PAGE_SIZE));
+
+        try {
+            return BuildResultQuery.from(pageSize)
+                    .withRepository(owner, repo)
+                    .withBranch(branch)
+                    .withStatus(getStatus(status))
+                    .withExecutionDateBetween(from, to)
+                    .withAscendingOrder("asc".equalsIgnoreCase(sort))
+                    .withCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the build status of a request parameter, accepting both the name and the value of the status.
+     *
+     * @param status request parameter.
+     * @return the status, null if there is no parameter.
+     */
+    private PersistedBuildResultStatus getStatus(String status) {
+        if(status == null)
+            return null;
+        for(PersistedBuildResultStatus value : PersistedBuildResultStatus.values()) {
+            if(value.name().equalsIgnoreCase(status) || value.getValue().equalsIgnoreCase(status))
+                return value;
+        }
+        throw new IllegalArgumentException(String.format("invalid status [%s]", status));
+    }
 }
@@ -0,0 +1,126 @@
+package es.weso.ontoloci.api.springboot;
+
+import es.weso.ontoloci.persistence.BuildEvent;
+import es.weso.ontoloci.persistence.BuildEventBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildEventStreamTest {
+
+    @Test
+    public void lastSequenceTest() {
+        final RecordingEmitter emitter = new RecordingEmitter();
+        final BuildEventStream stream = new BuildEventStream(emitter, Collections.emptyMap(), null, 10, Runnable::run);
+
+        final BuildEvent first = publish("b1");
+        final BuildEvent second = publish("b1");
+        stream.onEvent(first);
+        stream.onEvent(second);
+        // The events replayed on subscription may be delivered again by the bus, they are only sent once.
+        stream.onEvent(first);
+        stream.onEvent(second);
+
+        assertEquals(Arrays.asList(first.getSequence(), second.getSequence()), emitter.sent);
+    }
+
+    @Test
+    public void filterTest() {
+        final RecordingEmitter emitter = new RecordingEmitter();
+        final BuildEventStream stream = new BuildEventStream(emitter, Collections.emptyMap(), "b1", 10, Runnable::run);
+
+        final BuildEvent event = publish("b1");
+        stream.onEvent(publish("b2"));
+        stream.onEvent(event);
+
+        assertEquals(Collections.singletonList(event.getSequence()), emitter.sent);
+    }
+
+    @Test
+    public void drainHandoffTest() {
+        final RecordingEmitter emitter = new RecordingEmitter();
+        final List<Runnable> tasks = new ArrayList<>();
+        final BuildEventStream stream = new BuildEventStream(emitter, Collections.emptyMap(), null, 10, tasks::add);
+
+        // A single drain task is submitted for the events queued while it has not run.
+        final BuildEvent first = publish("b1");
+        final BuildEvent second = publish("b1");
+        stream.onEvent(first);
+        stream.onEvent(second);
+        assertEquals(1, tasks.size());
+        assertTrue(emitter.sent.isEmpty());
+
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList(first.getSequence(), second.getSequence()), emitter.sent);
+
+        // Once the drain task has finished, the next event submits a new one.
+        final BuildEvent third = publish("b1");
+        stream.onEvent(third);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList(first.getSequence(), second.getSequence(), third.getSequence()), emitter.sent);
+    }
+
+    @Test
+    public void slowClientTest() {
+        final RecordingEmitter emitter = new RecordingEmitter();
+        final List<Runnable> tasks = new ArrayList<>();
+        final BuildEventStream stream = new BuildEventStream(emitter, Collections.emptyMap(), null, 2, tasks::add);
+
+        // The third event does not fit in the queue of a client that does not keep up, so the stream is closed.
+        stream.onEvent(publish("b1"));
+        stream.onEvent(publish("b1"));
+        assertFalse(emitter.completed);
+        stream.onEvent(publish("b1"));
+        assertTrue(emitter.completed);
+
+        // The client reconnects to receive the events it missed, nothing else is sent to this stream.
+        stream.onEvent(publish("b1"));
+        tasks.forEach(Runnable::run);
+        assertTrue(emitter.sent.isEmpty());
+    }
+
+    /**
+     * Publishes an event in the bus, so it gets its sequence number.
+     */
+    private static BuildEvent publish(String buildId) {
+        final BuildEvent event = BuildEvent.queued(buildId, null);
+        BuildEventBus.getInstance().publish(event);
+        return event;
+    }
+
+    /**
+     * Emitter that records the ids of the events sent instead of writing them to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private static final Pattern ID = Pattern.compile("id:(\\d+)");
+
+        private final List<Long> sent = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            final StringBuilder text = new StringBuilder();
+            for(ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if(data.getData() instanceof String)
+                    text.append(data.getData());
+            }
+            final Matcher matcher = ID.matcher(text);
+            assertTrue(matcher.find());
+            sent.add(Long.parseLong(matcher.group(1)));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
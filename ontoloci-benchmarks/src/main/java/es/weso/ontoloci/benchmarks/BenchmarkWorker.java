@@ -0,0 +1,28 @@
+package es.weso.ontoloci.benchmarks;
+
+import es.weso.ontoloci.worker.WorkerSequential;
+import es.weso.ontoloci.worker.test.TestCaseResult;
+import es.weso.ontoloci.worker.validation.PrefixResolver;
+import es.weso.ontoloci.worker.validation.ResultValidation;
+import es.weso.ontoloci.worker.validation.ShapeMapResultValidation;
+import es.weso.rdf.PrefixMap;
+import es.weso.shapeMaps.ShapeMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sequential worker that exposes the steps of the validation of a test case, so they can be measured alone.
+ *
+ * @author Pablo Menéndez
+ */
+class BenchmarkWorker extends WorkerSequential {
+
+    List<ShapeMapResultValidation> toResultValidations(ShapeMap shapeMap) {
+        return getResultFromValidation(shapeMap);
+    }
+
+    void compare(ResultValidation resultValidation, TestCaseResult testCaseResult, Map<PrefixMap, PrefixResolver> resolvers) {
+        compareResults(resultValidation, testCaseResult, resolvers);
+    }
+}
@@ -0,0 +1,78 @@
+package es.weso.ontoloci.benchmarks;
+
+import es.weso.ontoloci.persistence.PersistedBuildResult;
+import es.weso.ontoloci.worker.WorkerSequential;
+import es.weso.ontoloci.worker.build.Build;
+import es.weso.ontoloci.worker.build.BuildResult;
+import es.weso.ontoloci.worker.test.TestCase;
+import es.weso.ontoloci.worker.utils.MarkdownUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a whole build: the execution of all its test cases by the sequential worker, and the
+ * conversions of its result into the check run markdown and into the persisted build result.
+ *
+ * @author Pablo Menéndez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildBenchmark {
+
+    @Param({"10"})
+    public int classes;
+
+    @Param({"100", "1000"})
+    public int instances;
+
+    @Param({"1", "10"})
+    public int testCases;
+
+    @Param({"10"})
+    public int invalidEvery;
+
+    private final WorkerSequential worker = new WorkerSequential();
+    private Build build;
+    private BuildResult buildResult;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final SyntheticTestCases generator = SyntheticTestCases.from(classes, instances).withInvalidEvery(invalidEvery);
+        final List<TestCase> cases = new ArrayList<>();
+        for(int i = 0; i < testCases; i++)
+            cases.add(generator.testCase(i));
+
+        build = Build.from(cases);
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("owner", "benchmark");
+        metadata.put("repo", "synthetic");
+        metadata.put("branch", "main");
+        metadata.put("commit", "0000000000000000000000000000000000000000");
+        build.setMetadata(metadata);
+        buildResult = worker.executeBuild(build);
+    }
+
+    @Benchmark
+    public BuildResult executeBuild() {
+        return worker.executeBuild(build);
+    }
+
+    @Benchmark
+    public String getMarkDownFromTests() {
+        return MarkdownUtils.getMarkDownFromTests(buildResult.getTestCaseResults());
+    }
+
+    @Benchmark
+    public PersistedBuildResult toPersistedBuildResult() {
+        return BuildResult.toPersistedBuildResult(buildResult);
+    }
+}
@@ -0,0 +1,97 @@
+package es.weso.ontoloci.benchmarks;
+
+import es.weso.ontoloci.hub.OntolociHubImplementation;
+import es.weso.ontoloci.hub.build.HubBuild;
+import es.weso.ontoloci.hub.repository.impl.LocalRepositoryProvider;
+import es.weso.ontoloci.worker.WorkerSequential;
+import es.weso.ontoloci.worker.build.Build;
+import es.weso.ontoloci.worker.build.BuildResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End to end benchmarks of a build of a synthetic repository written to a temporary folder: reading its
+ * test cases through the local repository provider, and reading and executing them.
+ *
+ * @author Pablo Menéndez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final String OWNER = "benchmark";
+    private static final String REPO = "synthetic";
+
+    @Param({"10"})
+    public int classes;
+
+    @Param({"1000"})
+    public int instances;
+
+    @Param({"0"})
+    public int properties;
+
+    @Param({"10", "100"})
+    public int tests;
+
+    @Param({"10"})
+    public int failurePercent;
+
+    private final WorkerSequential worker = new WorkerSequential();
+    private Path root;
+    private LocalRepositoryProvider provider;
+    private Map<String, String> metadata;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("ontoloci-benchmark");
+        final SyntheticTestCases testCases = SyntheticTestCases.from(classes, instances)
+                .withProperties(properties)
+                .withInvalidEvery(10);
+        SyntheticRepository.from(testCases, tests)
+                .withFailureRatio(failurePercent / 100.0)
+                .write(root, OWNER, REPO);
+        provider = LocalRepositoryProvider.from(root);
+
+        metadata = new HashMap<>();
+        metadata.put("owner", OWNER);
+        metadata.put("repo", REPO);
+        metadata.put("branch", "main");
+        metadata.put("commit", "0000000000000000000000000000000000000000");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public HubBuild fetchTestCases() {
+        return fetch();
+    }
+
+    @Benchmark
+    public BuildResult fetchAndExecuteBuild() {
+        return worker.executeBuild(Build.from(fetch()));
+    }
+
+    private HubBuild fetch() {
+        final HubBuild hubBuild = HubBuild.from();
+        hubBuild.setMetadata(new HashMap<>(metadata));
+        return new OntolociHubImplementation(provider).addTestsToBuild(hubBuild);
+    }
+}
@@ -0,0 +1,155 @@
+package es.weso.ontoloci.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import es.weso.ontoloci.worker.test.TestCase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a complete ontolo-ci repository of synthetic test cases to the local file system: the .oci.yml
+ * configuration, the manifest, the ontology, the schema and the instances and shape maps of each test.
+ * The repository can be read by the LocalRepositoryProvider of the hub, so whole builds can be executed
+ * without GitHub.
+ *
+ * It can be run from the command line with the root folder, the owner and the name of the repository as
+ * arguments, and the sizes in the system properties ontoloci.synthetic.tests, classes, instances, properties,
+ * invalidEvery and failurePercent.
+ *
+ * @author Pablo Menéndez
+ */
+public class SyntheticRepository {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticRepository.class);
+
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final String ONTOLOGY_FOLDER = "ontology";
+    private static final String TEST_FOLDER = "test";
+    private static final String ONTOLOGY_FILE = "ontology.ttl";
+    private static final String SCHEMA_FILE = "schema.shex";
+
+    private final SyntheticTestCases testCases;
+    private final int tests;
+    private double failureRatio;
+
+    /**
+     * Factory method that creates a repository generator where all the tests pass.
+     *
+     * @param testCases generator of the contents of the test cases.
+     * @param tests     number of test cases of the repository.
+     * @return a new instance of the repository generator.
+     */
+    public static SyntheticRepository from(final SyntheticTestCases testCases, final int tests) {
+        if(tests <= 0)
+            throw new IllegalArgumentException(String.format("invalid tests [%s]", tests));
+        return new SyntheticRepository(testCases, tests);
+    }
+
+    private SyntheticRepository(final SyntheticTestCases testCases, final int tests) {
+        this.testCases = testCases;
+        this.tests = tests;
+    }
+
+    /**
+     * Sets the ratio of test cases that fail. The failing test cases are spread over the manifest, and they
+     * need nonconformant instances in the test cases generator.
+     *
+     * @param failureRatio between 0, all the tests pass, and 1, all the tests fail.
+     * @return this generator.
+     */
+    public SyntheticRepository withFailureRatio(final double failureRatio) {
+        if(failureRatio < 0 || failureRatio > 1)
+            throw new IllegalArgumentException(String.format("invalid failure ratio [%s]", failureRatio));
+        this.failureRatio = failureRatio;
+        return this;
+    }
+
+    /**
+     * Checks if a test case of the repository fails.
+     *
+     * @param index of the test case.
+     * @return true if the expected shape map of the test case does not match its validation.
+     */
+    public boolean isFailing(final int index) {
+        return Math.floor((index + 1) * failureRatio) > Math.floor(index * failureRatio);
+    }
+
+    /**
+     * Writes the repository in the folder owner/repo of a root folder, replacing the files of a previous one.
+     *
+     * @param root  folder of the repositories.
+     * @param owner of the repository.
+     * @param repo  name of the repository.
+     * @return the folder of the repository.
+     * @throws IOException if the files can not be written.
+     * @throws IllegalStateException if some tests must fail but there are no nonconformant instances.
+     */
+    public Path write(final Path root, final String owner, final String repo) throws IOException {
+        if(failureRatio > 0 && testCases.getInvalidEvery() == 0)
+            throw new IllegalStateException("the failing tests need nonconformant instances");
+        final Path folder = root.resolve(owner).resolve(repo);
+        final Path testFolder = folder.resolve(TEST_FOLDER);
+        Files.createDirectories(folder.resolve(ONTOLOGY_FOLDER));
+        Files.createDirectories(testFolder);
+
+        write(folder.resolve(".oci.yml"),
+                "manifestPath: " + MANIFEST_FILE + "\n" +
+                "ontologyFolder: " + ONTOLOGY_FOLDER + "\n" +
+                "testFolder: " + TEST_FOLDER + "\n");
+        write(folder.resolve(ONTOLOGY_FOLDER).resolve(ONTOLOGY_FILE), testCases.ontology());
+        write(testFolder.resolve(SCHEMA_FILE), testCases.schema());
+
+        final List<Map<String, String>> manifest = new ArrayList<>();
+        for(int i = 0; i < tests; i++) {
+            final TestCase testCase = testCases.testCase(i, !isFailing(i));
+            final String test = "test" + i;
+            Files.createDirectories(testFolder.resolve(test));
+            write(testFolder.resolve(test).resolve("data.ttl"), testCase.getInstances());
+            write(testFolder.resolve(test).resolve("shape_map.sm"), testCase.getProducedShapeMap());
+            write(testFolder.resolve(test).resolve("expected_shape_map.sm"), testCase.getExpectedShapeMap());
+
+            final Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("test_name", testCase.getName());
+            entry.put("ontology", ONTOLOGY_FILE);
+            entry.put("data", test + "/data.ttl");
+            entry.put("schema", SCHEMA_FILE);
+            entry.put("in_shape_map", test + "/shape_map.sm");
+            entry.put("out_shape_map", test + "/expected_shape_map.sm");
+            manifest.add(entry);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(folder.resolve(MANIFEST_FILE).toFile(), manifest);
+
+        LOGGER.info(String.format("Synthetic repository written at [%s] with [%s] tests of [%s] triples",
+                folder, tests, testCases.getTriplesPerTestCase()));
+        return folder;
+    }
+
+    private void write(final Path file, final String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String... args) throws IOException {
+        if(args.length != 3) {
+            System.err.println("Usage: SyntheticRepository <root folder> <owner> <repo>");
+            System.exit(1);
+        }
+        final SyntheticTestCases testCases = SyntheticTestCases
+                .from(Integer.getInteger("ontoloci.synthetic.classes", 10), Integer.getInteger("ontoloci.synthetic.instances", 1000))
+                .withProperties(Integer.getInteger("ontoloci.synthetic.properties", 0))
+                .withInvalidEvery(Integer.getInteger("ontoloci.synthetic.invalidEvery", 10));
+        SyntheticRepository.from(testCases, Integer.getInteger("ontoloci.synthetic.tests", 10))
+                .withFailureRatio(Integer.getInteger("ontoloci.synthetic.failurePercent", 0) / 100.0)
+                .write(Paths.get(args[0]), args[1], args[2]);
+    }
+}
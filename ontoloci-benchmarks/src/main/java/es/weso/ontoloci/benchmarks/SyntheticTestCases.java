@@ -0,0 +1,231 @@
+package es.weso.ontoloci.benchmarks;
+
+import es.weso.ontoloci.worker.test.TestCase;
+
+/**
+ * Generates synthetic test cases of a configurable size, so the benchmarks do not depend on the contents
+ * of a real repository.
+ *
+ * The ontology declares a chain of classes and the properties used by the instances. The schema has a shape
+ * for each class, with a configurable number of properties, and the instances are spread over the classes.
+ * Every invalidEvery instances one of them has a value of the wrong datatype, so the expected shape map has
+ * both conformant and nonconformant nodes. The test cases that must fail expect those nodes to be conformant.
+ * The contents are generated deterministically, the same sizes always give the same test cases.
+ *
+ * @author Pablo Menéndez
+ */
+public class SyntheticTestCases {
+
+    private static final String EX = "http://example.org/ontoloci/";
+
+    private static final String TURTLE_PREFIXES =
+            "@prefix ex: <" + EX + "> .\n" +
+            "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n" +
+            "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n" +
+            "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n\n";
+
+    private static final String SHEX_PREFIXES =
+            "PREFIX ex: <" + EX + ">\n" +
+            "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>\n" +
+            "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n\n";
+
+    private final int classes;
+    private final int instances;
+    private int properties;
+    private int invalidEvery;
+
+    /**
+     * Factory method that creates a generator of test cases, without extra properties nor nonconformant instances.
+     *
+     * @param classes   number of classes of the ontology and shapes of the schema.
+     * @param instances number of instances of each test case.
+     * @return a new instance of the generator.
+     */
+    public static SyntheticTestCases from(final int classes, final int instances) {
+        if(classes <= 0 || instances <= 0)
+            throw new IllegalArgumentException(String.format("invalid sizes classes=[%s], instances=[%s]", classes, instances));
+        return new SyntheticTestCases(classes, instances);
+    }
+
+    private SyntheticTestCases(final int classes, final int instances) {
+        this.classes = classes;
+        this.instances = instances;
+    }
+
+    /**
+     * Sets the number of extra properties of each shape, and of each instance, besides the type, the name,
+     * the value and the related nodes. Each property adds a triple to each instance.
+     *
+     * @param properties number of extra properties.
+     * @return this generator.
+     */
+    public SyntheticTestCases withProperties(final int properties) {
+        if(properties < 0)
+            throw new IllegalArgumentException(String.format("invalid properties [%s]", properties));
+        this.properties = properties;
+        return this;
+    }
+
+    /**
+     * Sets the period of the nonconformant instances.
+     *
+     * @param invalidEvery one of each invalidEvery instances is nonconformant, 0 for none.
+     * @return this generator.
+     */
+    public SyntheticTestCases withInvalidEvery(final int invalidEvery) {
+        if(invalidEvery < 0)
+            throw new IllegalArgumentException(String.format("invalid invalidEvery [%s]", invalidEvery));
+        this.invalidEvery = invalidEvery;
+        return this;
+    }
+
+    /**
+     * Gets the period of the nonconformant instances.
+     *
+     * @return one of each invalidEvery instances is nonconformant, 0 for none.
+     */
+    public int getInvalidEvery() {
+        return invalidEvery;
+    }
+
+    /**
+     * Gets the number of triples of the instances of each test case.
+     *
+     * @return the number of triples.
+     */
+    public long getTriplesPerTestCase() {
+        // Type, name, value and extra properties of each instance, and the links between consecutive instances.
+        return (long) instances * (3 + properties) + instances - 1;
+    }
+
+    /**
+     * Creates a test case that passes. All the test cases share the ontology and the schema, and the instances
+     * of each one are different nodes.
+     *
+     * @param index of the test case.
+     * @return the test case.
+     */
+    public TestCase testCase(final int index) {
+        return testCase(index, true);
+    }
+
+    /**
+     * Creates a test case. All the test cases share the ontology and the schema, and the instances of each one
+     * are different nodes.
+     *
+     * @param index   of the test case.
+     * @param passing false for a test case whose expected shape map does not match the validation, it needs
+     *                nonconformant instances.
+     * @return the test case.
+     */
+    public TestCase testCase(final int index, final boolean passing) {
+        return new TestCase("synthetic test " + index, ontology(), instances(index), schema(),
+                shapeMap(index), expectedShapeMap(index, passing));
+    }
+
+    /**
+     * Gets the ontology, in Turtle.
+     *
+     * @return the ontology.
+     */
+    public String ontology() {
+        final StringBuilder ontology = new StringBuilder(TURTLE_PREFIXES);
+        for(int i = 0; i < classes; i++) {
+            ontology.append("ex:Class").append(i).append(" a owl:Class ;\n");
+            if(i > 0)
+                ontology.append("    rdfs:subClassOf ex:Class").append(i - 1).append(" ;\n");
+            ontology.append("    rdfs:label \"Class ").append(i).append("\" .\n");
+        }
+        ontology.append("ex:name a owl:DatatypeProperty ; rdfs:range xsd:string .\n");
+        ontology.append("ex:value a owl:DatatypeProperty ; rdfs:range xsd:integer .\n");
+        ontology.append("ex:related a owl:ObjectProperty .\n");
+        for(int p = 0; p < properties; p++)
+            ontology.append("ex:property").append(p).append(" a owl:DatatypeProperty ; rdfs:range xsd:string .\n");
+        return ontology.toString();
+    }
+
+    /**
+     * Gets the schema, in ShEx compact syntax.
+     *
+     * @return the schema.
+     */
+    public String schema() {
+        final StringBuilder schema = new StringBuilder(SHEX_PREFIXES);
+        for(int i = 0; i < classes; i++) {
+            schema.append("ex:Class").append(i).append("Shape {\n")
+                    .append("  rdf:type [ex:Class").append(i).append("] ;\n")
+                    .append("  ex:name xsd:string ;\n")
+                    .append("  ex:value xsd:integer ;\n");
+            for(int p = 0; p < properties; p++)
+                schema.append("  ex:property").append(p).append(" xsd:string ;\n");
+            schema.append("  ex:related IRI *\n")
+                    .append("}\n\n");
+        }
+        return schema.toString();
+    }
+
+    /**
+     * Gets the instances of a test case, in Turtle.
+     *
+     * @param index of the test case.
+     * @return the instances.
+     */
+    public String instances(final int index) {
+        final StringBuilder data = new StringBuilder(TURTLE_PREFIXES);
+        for(int i = 0; i < instances; i++) {
+            data.append(node(index, i)).append(" a ex:Class").append(i % classes).append(" ;\n")
+                    .append("    ex:name \"Item ").append(i).append("\" ;\n");
+            for(int p = 0; p < properties; p++)
+                data.append("    ex:property").append(p).append(" \"Value ").append(p).append("\" ;\n");
+            if(i + 1 < instances)
+                data.append("    ex:related ").append(node(index, i + 1)).append(" ;\n");
+            if(isInvalid(i))
+                data.append("    ex:value \"not a number\" .\n");
+            else
+                data.append("    ex:value ").append(i).append(" .\n");
+        }
+        return data.toString();
+    }
+
+    /**
+     * Gets the shape map of a test case, that associates each instance with the shape of its class.
+     *
+     * @param index of the test case.
+     * @return the shape map.
+     */
+    public String shapeMap(final int index) {
+        return shapeMap(index, false);
+    }
+
+    /**
+     * Gets the expected result shape map of a test case.
+     *
+     * @param index   of the test case.
+     * @param passing false to expect the nonconformant instances to be conformant, so the test case fails.
+     * @return the expected shape map.
+     */
+    public String expectedShapeMap(final int index, final boolean passing) {
+        return shapeMap(index, passing);
+    }
+
+    private String shapeMap(final int index, final boolean nonconformant) {
+        final StringBuilder shapeMap = new StringBuilder();
+        for(int i = 0; i < instances; i++) {
+            if(i > 0)
+                shapeMap.append(",\n");
+            shapeMap.append(node(index, i)).append('@');
+            if(nonconformant && isInvalid(i))
+                shapeMap.append('!');
+            shapeMap.append("ex:Class").append(i % classes).append("Shape");
+        }
+        return shapeMap.toString();
+    }
+
+    private String node(final int index, final int instance) {
+        return "ex:test" + index + "_item" + instance;
+    }
+
+    private boolean isInvalid(final int instance) {
+        return invalidEvery > 0 && instance % invalidEvery == invalidEvery - 1;
+    }
+}
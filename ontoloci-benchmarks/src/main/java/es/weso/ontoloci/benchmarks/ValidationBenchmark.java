@@ -0,0 +1,75 @@
+package es.weso.ontoloci.benchmarks;
+
+import es.weso.ontoloci.worker.test.TestCase;
+import es.weso.ontoloci.worker.test.TestCaseResult;
+import es.weso.ontoloci.worker.validation.ResultValidation;
+import es.weso.ontoloci.worker.validation.ShapeMapResultValidation;
+import es.weso.ontoloci.worker.validation.Validate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the validation of a single test case: the ShEx validation itself, the conversion of the
+ * shape maps and the comparison of the produced and the expected results.
+ *
+ * The parsed ontologies and schemas are cached by the validator, so after the warmup the validation measures
+ * the parsing of the instances and the validation, as it happens for all but the first test of a build.
+ *
+ * @author Pablo Menéndez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"10", "100"})
+    public int classes;
+
+    @Param({"10", "100", "1000"})
+    public int instances;
+
+    @Param({"10"})
+    public int invalidEvery;
+
+    private final BenchmarkWorker worker = new BenchmarkWorker();
+    private TestCase testCase;
+    private ResultValidation resultValidation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        testCase = SyntheticTestCases.from(classes, instances).withInvalidEvery(invalidEvery).testCase(0);
+        resultValidation = validate();
+    }
+
+    @Benchmark
+    public ResultValidation validateStrResultValidation() {
+        return validate();
+    }
+
+    @Benchmark
+    public List<ShapeMapResultValidation> getResultFromValidation() {
+        return worker.toResultValidations(resultValidation.getResultShapeMap());
+    }
+
+    @Benchmark
+    public TestCaseResult compareResults() {
+        final TestCaseResult testCaseResult = TestCaseResult.from(testCase);
+        worker.compare(resultValidation, testCaseResult, new ConcurrentHashMap<>());
+        return testCaseResult;
+    }
+
+    private ResultValidation validate() {
+        return new Validate().validateStrResultValidation(
+                testCase.getOntology(),
+                testCase.getInstances(),
+                testCase.getSchema(),
+                testCase.getProducedShapeMap(),
+                testCase.getExpectedShapeMap()).unsafeRunSync();
+    }
+}
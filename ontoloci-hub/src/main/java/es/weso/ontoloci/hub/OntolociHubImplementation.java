@@ -2,17 +2,26 @@ package es.weso.ontoloci.hub;
 
 import es.weso.ontoloci.hub.build.HubBuild;
 import es.weso.ontoloci.hub.exceptions.EmptyContentFileException;
+import es.weso.ontoloci.hub.repository.RepositoryProvider;
 import es.weso.ontoloci.hub.repository.impl.GitHubRepositoryProvider;
+import es.weso.ontoloci.hub.repository.impl.LocalRepositoryProvider;
 import es.weso.ontoloci.hub.test.HubTestCase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
  * OntolociHub implementation
+ *
+ * The repositories whose clone is found in the folder owner/repo of the local root, set with the system property
+ * ontoloci.hub.localRoot, are read from the local file system instead of GitHub. Their check runs are still
+ * created in GitHub, unless the system property ontoloci.hub.localCheckRuns is true. The commits that the clone
+ * does not have yet, like the ones pushed after the last fetch of a mirror, are read from GitHub.
+ *
  * @author Pablo Menéndez Suárez
  */
 public class OntolociHubImplementation implements OntolociHub {
@@ -20,9 +29,16 @@ public class OntolociHubImplementation implements OntolociHub {
     // LOGGER CREATION
     private static final Logger LOGGER = LoggerFactory.getLogger(OntolociHubImplementation.class);
 
-    // Instantiate the github service.
-    final GitHubRepositoryProvider gitHubProvider;
+    private static final String LOCAL_ROOT = System.getProperty("ontoloci.hub.localRoot");
+    private static final boolean LOCAL_CHECK_RUNS = Boolean.getBoolean("ontoloci.hub.localCheckRuns");
 
+    // Provider of the repositories, GitHub by default.
+    final RepositoryProvider gitHubProvider;
+    // Provider of the repositories cloned in the local root, null if there is no local root.
+    final LocalRepositoryProvider localProvider;
+
+    private RepositoryProvider currentProvider;
+    private RepositoryProvider currentCheckRunProvider;
     private String currentOwner;
     private String currentRepo;
     private String currentCommit;
@@ -33,6 +49,23 @@ public class OntolociHubImplementation implements OntolociHub {
         LOGGER.debug("Creating a new OntolociHubImplementation from the public constructor");
 
         gitHubProvider = GitHubRepositoryProvider.empty();
+        localProvider = LOCAL_ROOT == null ? null : LocalRepositoryProvider.from(Paths.get(LOCAL_ROOT));
+        currentProvider = currentCheckRunProvider = gitHubProvider;
+    }
+
+    /**
+     * Creates a hub that gets the test cases and handles the check runs with the given repository provider,
+     * like a local one for the benchmarks and the end to end tests.
+     *
+     * @param repositoryProvider to use instead of GitHub.
+     */
+    public OntolociHubImplementation(RepositoryProvider repositoryProvider) {
+
+        LOGGER.debug("Creating a new OntolociHubImplementation from the public constructor with a custom repository provider");
+
+        gitHubProvider = repositoryProvider;
+        localProvider = null;
+        currentProvider = currentCheckRunProvider = gitHubProvider;
     }
 
     /**
@@ -51,6 +84,11 @@ public class OntolociHubImplementation implements OntolociHub {
 
         LOGGER.debug("Adding test to Build for [%s,%s,%s]", currentOwner, currentRepo,currentCommit);
 
+        // Choose the provider of the repository, GitHub when the local clone does not have the commit yet.
+        final boolean local = localProvider != null && localProvider.contains(currentOwner, currentRepo, currentCommit);
+        currentProvider = local ? localProvider : gitHubProvider;
+        currentCheckRunProvider = local && LOCAL_CHECK_RUNS ? localProvider : gitHubProvider;
+
         // Create the check run
         currentCheckRunId = createGitHubCheckRun();
 
@@ -67,7 +105,7 @@ public class OntolociHubImplementation implements OntolociHub {
     public void updateCheckRun(String conclusion,String output){
         LOGGER.debug("Updating GitHub ChekRun=[%s] for [%s,%s,%s] with status=[%s] and msg=[%s]",currentCheckRunId,currentOwner,currentRepo,currentCommit,conclusion,output);
         try {
-            gitHubProvider.updateCheckRun(currentCheckRunId,currentOwner,currentRepo,conclusion,output);
+            currentCheckRunProvider.updateCheckRun(currentCheckRunId,currentOwner,currentRepo,conclusion,output);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -80,7 +118,7 @@ public class OntolociHubImplementation implements OntolociHub {
     private String createGitHubCheckRun(){
         LOGGER.debug("Creating GitHub ChekRun for [%s,%s,%s]",currentOwner,currentRepo,currentCommit);
         try {
-            return gitHubProvider.createCheckRun(currentOwner,currentRepo,currentCommit);
+            return currentCheckRunProvider.createCheckRun(currentOwner,currentRepo,currentCommit);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -88,7 +126,7 @@ public class OntolociHubImplementation implements OntolociHub {
     }
 
     /**
-     * Calls the gitHubProvider in order to obtain the test cases and add them to the hubbuild.
+     * Calls the provider of the repository in order to obtain the test cases and add them to the hubbuild.
      * If something goes wrong, adds the appropriate exception messages to the hubbuild metadata.
      *
      * @param hubBuild
@@ -100,7 +138,7 @@ public class OntolociHubImplementation implements OntolociHub {
         Map<String,String> metadata = new HashMap<>(hubBuild.getMetadata());
 
         try {
-            final Collection<HubTestCase> testsCases = gitHubProvider.getTestCases(currentOwner, currentRepo, currentCommit);
+            final Collection<HubTestCase> testsCases = currentProvider.getTestCases(currentOwner, currentRepo, currentCommit);
             // Populate the hub build with the computed test cases.
             hubBuild.setTestCases(testsCases);
             metadata.put("exceptions","false");
@@ -0,0 +1,213 @@
+package es.weso.ontoloci.hub.cache;
+
+import es.weso.ontoloci.persistence.utils.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of the contents of the repository files, stored in a folder of the local disk so it survives
+ * the restarts. The keys are immutable references to a content, like the SHA of a git blob or the path of a file
+ * at a commit, so the entries never become stale and are only removed to respect the size of the cache.
+ *
+ * When the total size of the entries is above the maximum the least recently used ones are deleted. The order
+ * of use is kept in memory and in the modification time of the files, to restore it when the cache is opened.
+ *
+ * The shared cache is configured with the system properties ontoloci.hub.cache.dir, by default a folder in the
+ * temporary directory, and ontoloci.hub.cache.maxBytes, 256 MiB by default and 0 to disable it.
+ *
+ * @author Pablo Menéndez
+ */
+public class FileContentCache {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileContentCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Shared instance, created the first time it is used.
+    private static FileContentCache instance;
+
+    private final Path folder;
+    private final long maxBytes;
+
+    // Size of each entry by file name, in order of use. Guarded by this.
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Gets the cache shared by all the repository providers.
+     *
+     * @return the shared cache.
+     */
+    public static synchronized FileContentCache getInstance() {
+        if(instance == null) {
+            final Path folder = Paths.get(System.getProperty("ontoloci.hub.cache.dir",
+                    Paths.get(System.getProperty("java.io.tmpdir"), "ontoloci-hub-cache").toString()));
+            instance = from(folder, Long.getLong("ontoloci.hub.cache.maxBytes", 256L * 1024 * 1024));
+        }
+        return instance;
+    }
+
+    /**
+     * Opens a cache in a folder, with the entries stored in it by a previous cache.
+     *
+     * @param folder   of the cache, created if it does not exist.
+     * @param maxBytes maximum size of the contents, 0 for a disabled cache.
+     * @return the cache.
+     */
+    public static FileContentCache from(final Path folder, final long maxBytes) {
+        LOGGER.debug(String.format("NEW Creating new FileContentCache from the static factory with folder=[%s] and maxBytes=[%s]", folder, maxBytes));
+        final FileContentCache cache = new FileContentCache(folder, Math.max(0, maxBytes));
+        if(cache.isEnabled())
+            cache.load();
+        return cache;
+    }
+
+    private FileContentCache(final Path folder, final long maxBytes) {
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Checks if the cache stores the contents.
+     *
+     * @return false if the maximum size is 0.
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Gets the content of an entry and marks it as the most recently used.
+     *
+     * @param key of the entry.
+     * @return the content, or null if it is not in the cache.
+     */
+    public String get(final String key) {
+        if(!isEnabled())
+            return null;
+        final String fileName = getFileName(key);
+        synchronized (this) {
+            if(entries.get(fileName) == null)
+                return null;
+        }
+        final Path file = folder.resolve(fileName);
+        try {
+            final String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return content;
+        } catch (IOException e) {
+            // Evicted or deleted while it was read, it is a miss.
+            LOGGER.debug(String.format("INTERNAL cache entry [%s] could not be read: %s", key, e.getMessage()));
+            synchronized (this) {
+                final Long size = entries.remove(fileName);
+                if(size != null)
+                    totalBytes -= size;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the content of an entry, evicting the least recently used entries if the cache is full. The
+     * contents bigger than the cache are not stored.
+     *
+     * @param key     of the entry.
+     * @param content to store.
+     */
+    public void put(final String key, final String content) {
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if(!isEnabled() || bytes.length > maxBytes)
+            return;
+
+        final String fileName = getFileName(key);
+        try {
+            // Written to a temporary file first so a reader never sees a partial entry.
+            final Path temp = Files.createTempFile(folder, fileName, TEMP_SUFFIX);
+            Files.write(temp, bytes);
+            Files.move(temp, folder.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Cache entry [%s] could not be written: %s", key, e.getMessage()));
+            return;
+        }
+
+        synchronized (this) {
+            final Long previous = entries.put(fileName, (long) bytes.length);
+            totalBytes += bytes.length - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    /**
+     * Gets the total size of the contents stored.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized long getSize() {
+        return totalBytes;
+    }
+
+    /**
+     * Deletes the least recently used entries until the size of the cache is under its maximum.
+     */
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while(totalBytes > maxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            try {
+                Files.deleteIfExists(folder.resolve(entry.getKey()));
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Cache file [%s] could not be deleted: %s", entry.getKey(), e.getMessage()));
+            }
+            totalBytes -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Loads the entries stored in the folder, from the least to the most recently used.
+     */
+    private synchronized void load() {
+        try {
+            Files.createDirectories(folder);
+            final List<Path> files;
+            try(Stream<Path> stream = Files.list(folder)) {
+                files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            final Map<Path, Long> modified = new HashMap<>();
+            for(Path file : files)
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            files.sort(Comparator.comparing(modified::get));
+
+            for(Path file : files) {
+                if(file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    // Left by an interrupted write.
+                    Files.deleteIfExists(file);
+                } else {
+                    final long size = Files.size(file);
+                    entries.put(file.getFileName().toString(), size);
+                    totalBytes += size;
+                }
+            }
+            evict();
+            LOGGER.info(String.format("Content cache at [%s] loaded with [%s] entries and [%s] bytes", folder, entries.size(), totalBytes));
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Content cache at [%s] could not be loaded: %s", folder, e.getMessage()));
+        }
+    }
+
+    /**
+     * Gets the name of the file of an entry, the SHA-256 of its key so any key is a valid file name.
+     */
+    private static String getFileName(final String key) {
+        return HashUtils.sha256(key);
+    }
+}
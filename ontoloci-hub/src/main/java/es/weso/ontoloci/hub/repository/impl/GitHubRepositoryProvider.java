@@ -5,12 +5,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import es.weso.ontoloci.hub.cache.FileContentCache;
 import es.weso.ontoloci.hub.exceptions.EmptyContentFileException;
 import es.weso.ontoloci.hub.manifest.Manifest;
 import es.weso.ontoloci.hub.manifest.ManifestEntry;
 import es.weso.ontoloci.hub.repository.RepositoryConfiguration;
 import es.weso.ontoloci.hub.repository.RepositoryProvider;
 import es.weso.ontoloci.hub.test.HubTestCase;
+import es.weso.ontoloci.hub.utils.HttpClientUtils;
 import es.weso.ontoloci.hub.utils.KeyUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
@@ -21,19 +23,37 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * This class implements the methods of the RepositoryProvider interface for the repository provider GitHub.
  * It contains all the needed methods to collect data and handle checkruns on GitHub.
  *
+ * The files of the test cases are fetched with a raw request for each one by default. With the system property
+ * ontoloci.hub.fetchMode set to archive, the zip archive of the commit is downloaded once instead, from the
+ * base url of the system property ontoloci.hub.archiveUrl (GitHub codeload by default).
+ *
+ * The raw files are kept in the shared FileContentCache. Their keys are the SHA of their blobs, taken from the tree
+ * of the commit, so the files that do not change between commits are only downloaded once. The files that are
+ * not found in the tree are kept by their path at the commit. The archives are not cached: each one is downloaded
+ * whole, so a cached file would never save the download of the archive that contains it.
+ *
  * @author Pablo Menéndez
  */
 public class GitHubRepositoryProvider implements RepositoryProvider {
@@ -45,11 +65,38 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
     private final static String GITHUB_API_REQUEST      =   "https://api.github.com/";
     private final static String INSTALLATION_REQUEST    =   "https://api.github.com/users/USERNAME/installation";
 
+    private final static String GITHUB_ARCHIVE_REQUEST  =   "https://codeload.github.com/";
+
+    // Base url of the commit archives, null to fetch each file with a raw request.
+    private final static String ARCHIVE_URL = "archive".equals(System.getProperty("ontoloci.hub.fetchMode", "raw")) ?
+            withTrailingSlash(System.getProperty("ontoloci.hub.archiveUrl", GITHUB_ARCHIVE_REQUEST)) : null;
+
     private final static String YAML_FILE_NAME          =   ".oci.yml";
     private final static String SLASH                   =   "/";
 
+    // Installation ids and installation access tokens of each owner, shared by all the providers
+    private final static Map<String,String> INSTALLATION_IDS = new ConcurrentHashMap<>();
+    private final static Map<String,InstallationToken> INSTALLATION_TOKENS = new ConcurrentHashMap<>();
+
+    // Installation tokens are refreshed this time before they expire
+    private final static Duration TOKEN_REFRESH_MARGIN  =   Duration.ofMinutes(5);
+    // GitHub installation tokens are valid for one hour, used when the response has no expiration
+    private final static Duration TOKEN_DEFAULT_VALIDITY=   Duration.ofHours(1);
+
+    // Pool shared by all the providers that bounds the number of file requests in flight.
+    private final static ExecutorService FETCH_EXECUTOR = Executors.newFixedThreadPool(
+            Integer.getInteger("ontoloci.hub.fetchConcurrency", 8),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ontoloci-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private final ObjectMapper yamlMapper;
     private final ObjectMapper jsonMapper;
+    private final HttpClient httpClient;
+    private final String archiveUrl;
+    private final FileContentCache contentCache;
 
     /**
      * Creates an empty default github repository provider object.
@@ -75,7 +122,64 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
 
         LOGGER.debug(String.format("NEW Creating new GitHubRepositoryProvider from the static factory with a custom YAML and JSON mappers"));
 
-        return new GitHubRepositoryProvider(yamlMapper, jsonMapper);
+        return new GitHubRepositoryProvider(yamlMapper, jsonMapper, HttpClientUtils.getDefaultClient(), ARCHIVE_URL, FileContentCache.getInstance());
+    }
+
+    /**
+     * Creates a new GitHubRepositoryProvider with the given object mappers both for YAML and JSON
+     * and the given HTTP client, that should keep its connections alive between requests.
+     *
+     * @param yamlMapper to assign tho the object.
+     * @param jsonMapper to assign to the object
+     * @param httpClient to perform the requests.
+     * @return a new GitHubRepositoryProvider object with the given configuration.
+     */
+    public static GitHubRepositoryProvider with(final ObjectMapper yamlMapper, final ObjectMapper jsonMapper, final HttpClient httpClient) {
+
+        LOGGER.debug(String.format("NEW Creating new GitHubRepositoryProvider from the static factory with a custom YAML and JSON mappers and a custom HTTP client"));
+
+        return new GitHubRepositoryProvider(yamlMapper, jsonMapper, httpClient, ARCHIVE_URL, FileContentCache.getInstance());
+    }
+
+    /**
+     * Creates a new GitHubRepositoryProvider with the given object mappers both for YAML and JSON, the given
+     * HTTP client and the given base url of the archives. With an archive url the files of the test cases are
+     * fetched from the zip archive of the commit, downloaded once, instead of performing a raw request for each
+     * file. The archive of each commit is requested at archiveUrl/owner/repo/zip/commit, as served by GitHub
+     * codeload or a local stand-in.
+     *
+     * @param yamlMapper to assign tho the object.
+     * @param jsonMapper to assign to the object
+     * @param httpClient to perform the requests.
+     * @param archiveUrl base url of the archives, null to fetch each file with a raw request.
+     * @return a new GitHubRepositoryProvider object with the given configuration.
+     */
+    public static GitHubRepositoryProvider with(final ObjectMapper yamlMapper, final ObjectMapper jsonMapper, final HttpClient httpClient,
+                                                final String archiveUrl) {
+
+        LOGGER.debug(String.format("NEW Creating new GitHubRepositoryProvider from the static factory with a custom YAML and JSON mappers, a custom HTTP client and archiveUrl=[%s]", archiveUrl));
+
+        return new GitHubRepositoryProvider(yamlMapper, jsonMapper, httpClient, withTrailingSlash(archiveUrl), FileContentCache.getInstance());
+    }
+
+    /**
+     * Creates a new GitHubRepositoryProvider with the given object mappers both for YAML and JSON, the given
+     * HTTP client, the given base url of the archives and the given cache of the contents of the raw files,
+     * instead of the shared one.
+     *
+     * @param yamlMapper to assign tho the object.
+     * @param jsonMapper to assign to the object
+     * @param httpClient to perform the requests.
+     * @param archiveUrl base url of the archives, null to fetch each file with a raw request.
+     * @param contentCache to consult before fetching each raw file.
+     * @return a new GitHubRepositoryProvider object with the given configuration.
+     */
+    public static GitHubRepositoryProvider with(final ObjectMapper yamlMapper, final ObjectMapper jsonMapper, final HttpClient httpClient,
+                                                final String archiveUrl, final FileContentCache contentCache) {
+
+        LOGGER.debug(String.format("NEW Creating new GitHubRepositoryProvider from the static factory with a custom YAML and JSON mappers, a custom HTTP client, archiveUrl=[%s] and a custom content cache", archiveUrl));
+
+        return new GitHubRepositoryProvider(yamlMapper, jsonMapper, httpClient, withTrailingSlash(archiveUrl), contentCache);
     }
 
     /**
@@ -87,17 +191,24 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
 
         this.yamlMapper = new ObjectMapper(new YAMLFactory());
         this.jsonMapper = new ObjectMapper(new JsonFactory());
+        this.httpClient = HttpClientUtils.getDefaultClient();
+        this.archiveUrl = ARCHIVE_URL;
+        this.contentCache = FileContentCache.getInstance();
     }
 
     /**
-     * GitHubRepositoryProvider Private Constructor with mappers as a param
+     * GitHubRepositoryProvider Private Constructor with mappers, HTTP client, archive url and content cache as a param
      */
-    private GitHubRepositoryProvider(final ObjectMapper yamlMapper, final ObjectMapper jsonMapper) {
+    private GitHubRepositoryProvider(final ObjectMapper yamlMapper, final ObjectMapper jsonMapper, final HttpClient httpClient,
+                                     final String archiveUrl, final FileContentCache contentCache) {
 
         LOGGER.debug(String.format("NEW Creating new GitHubRepositoryProvider from the public constructor with a custom YAML and JSON mappers"));
 
         this.yamlMapper = yamlMapper;
         this.jsonMapper = jsonMapper;
+        this.httpClient = httpClient;
+        this.archiveUrl = archiveUrl;
+        this.contentCache = contentCache;
     }
 
 
@@ -115,18 +226,22 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
     public Collection<HubTestCase> getTestCases(final String owner, final String repo,final String commit) throws IOException {
 
         LOGGER.debug(String.format("GET Computing the collection of HubTestCase for user=[%s], repo =[%s] and commit=[%s]", owner, repo, commit));
+        if(archiveUrl != null)
+            return getTestCasesFromArchive(owner, repo, commit);
         // Result collection, initialized to empty one so not null is returned.
         final Collection<HubTestCase> hubTestCases = new ArrayList<>();
+        // 0. Get the keys of the files in the content cache.
+        final Function<String,String> cacheKeys = getCacheKeys(owner,repo,commit);
         // 1. Get the repository configuration file.
-        final RepositoryConfiguration repositoryConfig = getRepositoryConfiguration(getYAMLPath(owner,repo,commit));
+        final RepositoryConfiguration repositoryConfig = getRepositoryConfiguration(getYAMLPath(owner,repo,commit),cacheKeys);
         // 2. Parse the repository configuration file and create a manifest object
-        final Manifest manifest = getManifest(getManifestPath(owner,repo,commit,repositoryConfig));
+        final Manifest manifest = getManifest(getManifestPath(owner,repo,commit,repositoryConfig),cacheKeys);
         // 3. Get the ontology folder
         final String ontologyFolder = repositoryConfig.getOntologyFolder();
         // 4. Get the tests folder
         final String testsFolder = repositoryConfig.getTestFolder();
         // 5. Get collection of generated test cases from the manifest file.
-        final Collection<HubTestCase> parsedTestCases = getTestCasesFromManifest(owner,repo,commit,ontologyFolder,testsFolder,manifest);
+        final Collection<HubTestCase> parsedTestCases = getTestCasesFromManifest(owner,repo,commit,ontologyFolder,testsFolder,manifest,cacheKeys);
         LOGGER.debug(String.format("INTERNAL parsed test cases [%s]",parsedTestCases.size()));
         // 6. Add all the test cases to the result collection.
         hubTestCases.addAll(parsedTestCases);
@@ -148,8 +263,8 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
 
         LOGGER.debug( String.format("Creating CheckRun  for user=[%s], repo =[%s] and commit =[%s] ",owner,repo,commit));
 
-        // 1. Create the HttpClient
-        HttpClient httpclient = HttpClients.createDefault();
+        // 1. Get the pooled HttpClient
+        HttpClient httpclient = this.httpClient;
         // 2. Set the request path
         String path = getCheckRunsPath(owner,repo);
         // 3. Authenticate the user
@@ -183,8 +298,8 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
 
         LOGGER.debug( String.format("Updating CheckRun = [%s] for user=[%s] and repo =[%s] ",checkRunId,owner,repo));
 
-        // 1. Create the HttpClient
-        HttpClient httpclient = HttpClients.createDefault();
+        // 1. Get the pooled HttpClient
+        HttpClient httpclient = this.httpClient;
         // 2. Set the request path
         String path = getUpdateCheckRunPath(owner,repo,checkRunId);
         // 3. Authenticate the user
@@ -202,14 +317,33 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
     }
 
     /**
-     * Authenticates a GitHub user via Installation Id
+     * Authenticates a GitHub user via Installation Id.
+     * The installation id and the installation token of each user are cached, and the token is only
+     * requested again when it is about to expire.
      *
      * @param user to be authenticated
      * @return authentication token
      */
     private String authenticate(String user) throws IOException {
-        String installationId = getInstallationId(user);
-        return authenticateByInstallation(installationId);
+        InstallationToken cachedToken = INSTALLATION_TOKENS.get(user);
+        if(cachedToken != null && !cachedToken.isExpiring())
+            return cachedToken.getToken();
+
+        String installationId = INSTALLATION_IDS.get(user);
+        if(installationId == null) {
+            installationId = getInstallationId(user);
+            INSTALLATION_IDS.put(user, installationId);
+        }
+
+        InstallationToken token = authenticateByInstallation(installationId);
+        if(token.getToken() == null) {
+            // The app may have been installed again, so the id is looked up on the next attempt.
+            INSTALLATION_IDS.remove(user);
+            INSTALLATION_TOKENS.remove(user);
+        } else {
+            INSTALLATION_TOKENS.put(user, token);
+        }
+        return token.getToken();
     }
 
     /**
@@ -222,8 +356,8 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
 
         LOGGER.debug( String.format("Getting InstallationId for user=[%s] ",user));
 
-        // Create the HttpClient
-        HttpClient httpclient = HttpClients.createDefault();
+        // Get the pooled HttpClient
+        HttpClient httpclient = this.httpClient;
         // Set the specific path
         String path = INSTALLATION_REQUEST.replace("USERNAME",user);
         // Create the appropriate HTTP method for the request
@@ -242,14 +376,14 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
      * Authenticates a user by their installationId
      *
      * @param installationId
-     * @return authorization token
+     * @return authorization token with its expiration
      */
-    private String authenticateByInstallation(String installationId) throws IOException {
+    private InstallationToken authenticateByInstallation(String installationId) throws IOException {
 
         LOGGER.debug( String.format("Authenticating installationId = [%s]",installationId));
 
-        // 1. Create the HttpClient
-        HttpClient httpclient = HttpClients.createDefault();
+        // 1. Get the pooled HttpClient
+        HttpClient httpclient = this.httpClient;
         // 2. Set the request path
         String path = getAuthenticationByInstallationPath(installationId);
         // 3. Create the appropriate HTTP method for the request
@@ -257,7 +391,7 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
         // 4. Perform the request
         String response = executeRequest(httpclient,httppost);
         // 5. Obtain the authToken from the response
-        String authToken = getAuthTokenFromResponse(response);
+        InstallationToken authToken = getAuthTokenFromResponse(response);
 
         LOGGER.debug( String.format("Authenticated installationId = [%s]",installationId));
 
@@ -270,34 +404,38 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
     /**
      * Gets the Manifest from the .oci.yml file of a specific commit of a GitHub repository
      * @param path .oci.yml file path
+     * @param cacheKeys keys of the files in the content cache
      * @throws JsonMappingException
      * @throws JsonProcessingException
      * @throws IOException
      *
      * @return oci
      */
-    private RepositoryConfiguration getRepositoryConfiguration(String path) throws JsonMappingException, JsonProcessingException, IOException {
-       return yamlMapper.readValue(getGitHubData(path), RepositoryConfiguration.class);
+    private RepositoryConfiguration getRepositoryConfiguration(String path, Function<String,String> cacheKeys) throws JsonMappingException, JsonProcessingException, IOException {
+       return yamlMapper.readValue(getGitHubData(path,cacheKeys.apply(path)), RepositoryConfiguration.class);
     }
 
     /**
      * Gets the Manifest from the manifest.json file of a specific commit of a GitHub repository
      * @param path manifest.json file path
+     * @param cacheKeys keys of the files in the content cache
      * @throws JsonMappingException
      * @throws JsonProcessingException
      * @throws IOException
      *
      * @return manifest
      */
-    private Manifest getManifest(String path)
+    private Manifest getManifest(String path, Function<String,String> cacheKeys)
             throws JsonMappingException, JsonProcessingException, IOException {
-        return new Manifest(Arrays.asList(jsonMapper.readValue(getGitHubData(path), ManifestEntry[].class)));
+        return new Manifest(Arrays.asList(jsonMapper.readValue(getGitHubData(path,cacheKeys.apply(path)), ManifestEntry[].class)));
     }
 
 
     /**
      * Gets a collection of test cases from manifest of a specific commit of a GitHub repository.
-     * For each manifest entry, gets the proper data needed for the creation of a new TestCase
+     * For each manifest entry, gets the proper data needed for the creation of a new TestCase.
+     * The files are fetched concurrently and each distinct path is only fetched once, as the
+     * manifest entries usually share the same ontology.
      *
      * @param owner                 of the repository
      * @param repo                  name of the repository
@@ -305,6 +443,7 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
      * @param ontologyFolder        repository folder that contains the ontology
      * @param testFolder            repository folder that contains the tests
      * @param mainifest             manifest of the repository
+     * @param cacheKeys             keys of the files in the content cache
      *
      * @throws JsonMappingException
      * @throws JsonProcessingException
@@ -312,18 +451,32 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
      *
      * @return test cases
      */
-    private Collection<HubTestCase> getTestCasesFromManifest(String owner, String repo, String commit, String ontologyFolder, String testFolder, Manifest mainifest) throws IOException {
+    private Collection<HubTestCase> getTestCasesFromManifest(String owner, String repo, String commit, String ontologyFolder, String testFolder, Manifest mainifest, Function<String,String> cacheKeys) throws IOException {
         Collection<HubTestCase> testCases = new ArrayList<HubTestCase>();
         String genericOntologyPath = getRawPath(owner, repo, commit)+ontologyFolder+SLASH;
         String genericTestPath = getRawPath(owner, repo, commit)+testFolder+SLASH;
 
+        // 1. Collect the distinct paths of the files referenced by the manifest.
+        Set<String> paths = new LinkedHashSet<>();
+        for(ManifestEntry entry:mainifest.getManifestEntries()){
+            paths.add(genericOntologyPath+entry.getOntology());
+            paths.add(genericTestPath+entry.getInstances());
+            paths.add(genericTestPath+entry.getSchema());
+            paths.add(genericTestPath+entry.getProducedShapeMap());
+            paths.add(genericTestPath+entry.getExpectedShapeMap());
+        }
+
+        // 2. Fetch all of them concurrently.
+        Map<String,String> contents = getGitHubData(paths,cacheKeys);
+
+        // 3. Build the test cases from the fetched contents.
         for(ManifestEntry entry:mainifest.getManifestEntries()){
             String name = entry.getName();
-            String ontology = getGitHubData(genericOntologyPath+entry.getOntology());
-            String instances = getGitHubData(genericTestPath+entry.getInstances());
-            String schema = getGitHubData(genericTestPath+entry.getSchema());
-            String producedSM = getGitHubData(genericTestPath+entry.getProducedShapeMap());
-            String expectedSM = getGitHubData(genericTestPath+entry.getExpectedShapeMap());
+            String ontology = contents.get(genericOntologyPath+entry.getOntology());
+            String instances = contents.get(genericTestPath+entry.getInstances());
+            String schema = contents.get(genericTestPath+entry.getSchema());
+            String producedSM = contents.get(genericTestPath+entry.getProducedShapeMap());
+            String expectedSM = contents.get(genericTestPath+entry.getExpectedShapeMap());
 
             testCases.add(new HubTestCase(name,ontology,instances,schema,producedSM,expectedSM));
         }
@@ -332,14 +485,179 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
     }
 
     /**
-     * Performs a request to a specific url and returns the content data of the file returned by the request
+     * Gets a collection of test cases from the zip archive of a specific commit of a GitHub repository.
+     * The archive is streamed and only the files referenced by the configuration and the manifest are kept.
+     *
+     * @param owner                 of the repository
+     * @param repo                  name of the repository
+     * @param commit                of the repository
+     *
+     * @return test cases
+     * @throws FileNotFoundException if the archive, the configuration, the manifest or any test file does not exist.
+     */
+    private Collection<HubTestCase> getTestCasesFromArchive(String owner, String repo, String commit) throws IOException {
+        HttpGet httpget = new HttpGet(getArchivePath(owner, repo, commit));
+        HttpResponse response = this.httpClient.execute(httpget);
+        HttpEntity entity = response.getEntity();
+        boolean read = false;
+        try {
+            if(response.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND)
+                throw new FileNotFoundException(httpget.getURI().toString());
+            if(response.getStatusLine().getStatusCode() != HttpURLConnection.HTTP_OK || entity == null)
+                throw new IOException(String.format("unexpected response [%s] for the archive [%s]", response.getStatusLine(), httpget.getURI()));
+
+            try(InputStream instream = entity.getContent();
+                RepositoryArchive archive = RepositoryArchive.read(instream, yamlMapper, jsonMapper)) {
+                RepositoryConfiguration repositoryConfig = archive.getConfiguration();
+                String ontologyFolder = repositoryConfig.getOntologyFolder()+SLASH;
+                String testFolder = repositoryConfig.getTestFolder()+SLASH;
+
+                Collection<HubTestCase> testCases = new ArrayList<>();
+                for(ManifestEntry entry:archive.getManifest().getManifestEntries()){
+                    testCases.add(new HubTestCase(entry.getName(),
+                            archive.getFile(ontologyFolder+entry.getOntology()),
+                            archive.getFile(testFolder+entry.getInstances()),
+                            archive.getFile(testFolder+entry.getSchema()),
+                            archive.getFile(testFolder+entry.getProducedShapeMap()),
+                            archive.getFile(testFolder+entry.getExpectedShapeMap())));
+                }
+                LOGGER.debug(String.format("INTERNAL parsed test cases [%s] from the archive",testCases.size()));
+                read = true;
+                return testCases;
+            }
+        } finally {
+            // Keeps the connection alive after a complete read, a failed one is not worth downloading until the end.
+            if(read)
+                EntityUtils.consumeQuietly(entity);
+            else
+                httpget.abort();
+        }
+    }
+
+    /**
+     * Performs a request for each url on the shared fetch pool and returns the content data of each file.
+     * If any request fails the rest are cancelled and the exception of the failed request is thrown.
+     *
+     * @param paths urls
+     * @param cacheKeys keys of the files in the content cache
+     * @return content data of each url
+     */
+    private Map<String,String> getGitHubData(Collection<String> paths, Function<String,String> cacheKeys) throws IOException {
+        Map<String,String> contents = new HashMap<>();
+        Map<String,Future<String>> requests = new LinkedHashMap<>();
+        for(String path:paths){
+            String cacheKey = cacheKeys.apply(path);
+            String cached = contentCache.get(cacheKey);
+            if(cached != null)
+                contents.put(path, cached);
+            else
+                requests.put(path, FETCH_EXECUTOR.submit(() -> getGitHubData(path, cacheKey)));
+        }
+        LOGGER.debug(String.format("INTERNAL [%s] files found in the content cache and [%s] fetched", contents.size(), requests.size()));
+
+
+        try {
+            for(Map.Entry<String,Future<String>> request:requests.entrySet()){
+                contents.put(request.getKey(), request.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching the test case files");
+        } catch (ExecutionException e) {
+            LOGGER.error(String.format("ERROR while fetching a test case file: %s", e.getCause().getMessage()));
+            if(e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            for(Future<String> request:requests.values()){
+                request.cancel(true);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Returns the content data of the file of a specific url. The content cache is consulted first, and if it
+     * is not there a request is performed and its content is stored in the cache. Only the successful responses
+     * are cached, so an error page is never taken as the content of a blob.
      * @param path  url
+     * @param cacheKey  key of the file in the content cache
      * @return contend data
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException if the response is not successful.
      */
-    private String getGitHubData(String path) throws IOException {
-        HttpClient httpclient = HttpClients.createDefault();
-        HttpGet httpget = getGitHubGet(path);
-        return executeRequest(httpclient,httpget);
+    private String getGitHubData(String path, String cacheKey) throws IOException {
+        String cached = contentCache.get(cacheKey);
+        if(cached != null)
+            return cached;
+        String content = executeGetRequest(getGitHubGet(path));
+        contentCache.put(cacheKey, content);
+        return content;
+    }
+
+    /**
+     * Gets the keys of the raw files of a commit in the content cache. The key of each file is the SHA of its
+     * blob if it is in the tree of the commit, and its raw url, that contains the commit, otherwise. If the
+     * tree can not be requested, all the files are keyed by their raw url.
+     *
+     * @param owner                 of the repository
+     * @param repo                  name of the repository
+     * @param commit                of the repository
+     *
+     * @return function from the raw url of each file to its key
+     */
+    private Function<String,String> getCacheKeys(String owner, String repo, String commit) {
+        String rawPath = getRawPath(owner, repo, commit);
+        Map<String,String> blobs = contentCache.isEnabled() ? getBlobs(owner, repo, commit) : Collections.emptyMap();
+        return path -> {
+            if(path.startsWith(rawPath)) {
+                String sha = blobs.get(RepositoryArchive.normalize(path.substring(rawPath.length())));
+                if(sha != null)
+                    return "blob:"+sha;
+            }
+            return path;
+        };
+    }
+
+    /**
+     * Gets the SHA of the blob of each file in the tree of a commit, through the GitHub trees API.
+     * The request is authenticated when the GitHub App is installed for the owner, to get its rate limit.
+     *
+     * @param owner                 of the repository
+     * @param repo                  name of the repository
+     * @param commit                of the repository
+     *
+     * @return SHA of the blob of each path, empty if the tree can not be requested.
+     */
+    private Map<String,String> getBlobs(String owner, String repo, String commit) {
+        HttpGet httpget = getGitHubGet(getTreePath(owner, repo, commit));
+        try {
+            String authToken = authenticate(owner);
+            if(authToken != null)
+                httpget.addHeader("Authorization", "token "+authToken);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug(String.format("INTERNAL requesting the tree of [%s/%s] without authentication: %s", owner, repo, e.getMessage()));
+        }
+
+        Map<String,String> blobs = new HashMap<>();
+        try {
+            Map<String,Object> response = this.jsonMapper.readValue(executeGetRequest(httpget), Map.class);
+            Object tree = response.get("tree");
+            if(tree instanceof List) {
+                for(Object node:(List<?>) tree) {
+                    Map<?,?> item = (Map<?,?>) node;
+                    if("blob".equals(item.get("type")))
+                        blobs.put(String.valueOf(item.get("path")), String.valueOf(item.get("sha")));
+                }
+            } else {
+                LOGGER.warn(String.format("Tree of [%s/%s] at [%s] not available: %s", owner, repo, commit, response.get("message")));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn(String.format("Tree of [%s/%s] at [%s] could not be requested: %s", owner, repo, commit, e.getMessage()));
+        }
+        return blobs;
     }
 
 
@@ -421,6 +739,31 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
         return null;
     }
 
+    /**
+     * Performs a GET request and returns the result as a String, only if the response is successful.
+     *
+     * @param httpget   request
+     * @return result
+     * @throws FileNotFoundException if the response is a 404.
+     * @throws IOException if the response is not a 200 or its content is empty.
+     */
+    private String executeGetRequest(HttpGet httpget) throws IOException {
+        HttpResponse response = this.httpClient.execute(httpget);
+        HttpEntity entity = response.getEntity();
+        try {
+            if(response.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND)
+                throw new FileNotFoundException(httpget.getURI().toString());
+            if(response.getStatusLine().getStatusCode() != HttpURLConnection.HTTP_OK || entity == null)
+                throw new IOException(String.format("unexpected response [%s] for [%s]", response.getStatusLine(), httpget.getURI()));
+            String result = EntityUtils.toString(entity, "UTF-8");
+            if(result.replace("\n","").replace("\r","").length()<=0)
+                throw new EmptyContentFileException();
+            return result;
+        } finally {
+            EntityUtils.consumeQuietly(entity);
+        }
+    }
+
     /**
      * Gets the installationId value from the request result
      *
@@ -441,20 +784,25 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
     }
 
     /**
-     * Gets the authorization token value from the request result
+     * Gets the authorization token value and its expiration from the request result
      *
      * @param  result   of the request
      * @return authorization token
      */
-    private String getAuthTokenFromResponse(String result) {
+    private InstallationToken getAuthTokenFromResponse(String result) {
         Map<String,Object> content = null;
         try {
             content = this.jsonMapper.readValue(result, Map.class);
-            return (String) content.get("token");
-        } catch (JsonProcessingException e) {
+            String token = (String) content.get("token");
+            Object expiresAt = content.get("expires_at");
+            Instant expiration = expiresAt != null ?
+                    Instant.parse(String.valueOf(expiresAt)) :
+                    Instant.now().plus(TOKEN_DEFAULT_VALIDITY);
+            return new InstallationToken(token, expiration);
+        } catch (JsonProcessingException | DateTimeParseException e) {
             e.printStackTrace();
         }
-        return null;
+        return new InstallationToken(null, Instant.EPOCH);
     }
 
     /***
@@ -566,6 +914,43 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
         return GITHUB_RAW_REQUEST +owner+SLASH+repo+SLASH+commit+SLASH;
     }
 
+    /**
+     * Returns the full path to obtain the whole tree of a commit via GitHub API
+     *
+     * @param owner   of the repository
+     * @param repo    the repository name
+     * @param commit  of the repository
+     *
+     * @return path as a string
+     */
+    private String getTreePath(final String owner, final String repo, final String commit) {
+        return GITHUB_API_REQUEST+"repos"+SLASH+owner+SLASH+repo+SLASH+"git/trees"+SLASH+commit+"?recursive=1";
+    }
+
+    /**
+     * Adds the trailing slash to a base url that does not have it, so the paths can be appended to it.
+     *
+     * @param url base url, may be null
+     *
+     * @return the url ending with a slash, null if it is null
+     */
+    private static String withTrailingSlash(final String url) {
+        return url == null || url.endsWith(SLASH) ? url : url + SLASH;
+    }
+
+    /**
+     * Returns the full path of the zip archive of a commit
+     *
+     * @param owner   of the repository
+     * @param repo    the repository name
+     * @param commit  of the repository
+     *
+     * @return path as a string
+     */
+    private String getArchivePath(final String owner, final String repo, final String commit) {
+        return archiveUrl +owner+SLASH+repo+SLASH+"zip"+SLASH+commit;
+    }
+
     /**
      * Returns the full path for the GitHub API Check Runs requests
      *
@@ -628,9 +1013,29 @@ public class GitHubRepositoryProvider implements RepositoryProvider {
         return GITHUB_API_REQUEST+"app/installations/"+installationId+"/access_tokens";
     }
 
+    /**
+     * Installation access token together with the instant when it expires.
+     */
+    private static final class InstallationToken {
 
+        private final String token;
+        private final Instant expiration;
 
+        private InstallationToken(String token, Instant expiration) {
+            this.token = token;
+            this.expiration = expiration;
+        }
 
+        private String getToken() {
+            return token;
+        }
 
-
+        /**
+         * Checks if the token is expired or will expire soon.
+         * @return true if the token should be refreshed
+         */
+        private boolean isExpiring() {
+            return Instant.now().isAfter(expiration.minus(TOKEN_REFRESH_MARGIN));
+        }
+    }
 }
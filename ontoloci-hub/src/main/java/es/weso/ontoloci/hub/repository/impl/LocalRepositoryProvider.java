@@ -0,0 +1,341 @@
+package es.weso.ontoloci.hub.repository.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import es.weso.ontoloci.hub.exceptions.EmptyContentFileException;
+import es.weso.ontoloci.hub.manifest.Manifest;
+import es.weso.ontoloci.hub.manifest.ManifestEntry;
+import es.weso.ontoloci.hub.repository.RepositoryConfiguration;
+import es.weso.ontoloci.hub.repository.RepositoryProvider;
+import es.weso.ontoloci.hub.test.HubTestCase;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * This class implements the methods of the RepositoryProvider interface for repositories stored in the local
+ * file system, like the repositories written by the synthetic repository generator or the clones of a mirror.
+ * The repository of each owner and name is the folder owner/repo inside the root folder, that can be:
+ *
+ *  - A git repository, either a bare repository or a working tree with a .git folder. The files are read
+ *    from the git objects of the commit requested, so the builds do not depend on what is checked out.
+ *  - A plain folder. The files are read as they are in the folder whatever the commit requested, the big
+ *    ones are memory mapped.
+ *
+ * There are no check runs in the local file system, so they are only logged.
+ *
+ * @author Pablo Menéndez
+ */
+public class LocalRepositoryProvider implements RepositoryProvider {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalRepositoryProvider.class);
+
+    private final static String YAML_FILE_NAME = ".oci.yml";
+
+    // Files bigger than this are memory mapped instead of copied into a heap buffer.
+    private final static long MAP_THRESHOLD = 1024 * 1024;
+
+    private final Path root;
+    private final ObjectMapper yamlMapper;
+    private final ObjectMapper jsonMapper;
+
+    /**
+     * Creates a local repository provider.
+     *
+     * @param root folder that contains a folder for each owner, with a folder for each of their repositories.
+     * @return a new LocalRepositoryProvider object.
+     */
+    public static LocalRepositoryProvider from(final Path root) {
+        LOGGER.debug(String.format("NEW Creating new LocalRepositoryProvider from the static factory with root=[%s]", root));
+        return new LocalRepositoryProvider(root);
+    }
+
+    private LocalRepositoryProvider(final Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.yamlMapper = new ObjectMapper(new YAMLFactory());
+        this.jsonMapper = new ObjectMapper(new JsonFactory());
+    }
+
+    /**
+     * Checks if a commit of a repository is stored in the root folder of the provider.
+     *
+     * @param owner  of the repository
+     * @param repo   name of the repository
+     * @param commit of the repository, may be null
+     * @return true if the folder of the repository exists and, when it is a git repository, the commit is in it.
+     */
+    public boolean contains(final String owner, final String repo, final String commit) {
+        final Path folder = getRepositoryFolder(owner, repo);
+        if(!Files.isDirectory(folder))
+            return false;
+
+        final Path gitFolder = getGitFolder(folder);
+        if(gitFolder == null || commit == null)
+            return true;
+        try(Repository repository = openRepository(gitFolder)) {
+            return resolveCommit(repository, commit) != null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug(String.format("INTERNAL commit [%s] not readable in [%s]: %s", commit, folder, e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Gets a collection of test cases from the folder of a repository.
+     *
+     * @param owner  of the repository
+     * @param repo   name of the repository
+     * @param commit of the repository, read from the git objects if the folder is a git repository.
+     * @return test cases
+     * @throws FileNotFoundException if the commit, the configuration, the manifest or any test file does not exist.
+     * @throws EmptyContentFileException if any of those files is empty.
+     */
+    @Override
+    public Collection<HubTestCase> getTestCases(final String owner, final String repo, final String commit) throws IOException {
+        LOGGER.debug(String.format("GET Computing the collection of HubTestCase for user=[%s], repo =[%s] and commit=[%s]", owner, repo, commit));
+
+        try(FileSource source = openSource(getRepositoryFolder(owner, repo), commit)) {
+            // 1. Get the repository configuration file.
+            final RepositoryConfiguration repositoryConfig = yamlMapper.readValue(source.read(YAML_FILE_NAME), RepositoryConfiguration.class);
+            // 2. Parse the manifest.
+            final Manifest manifest = new Manifest(Arrays.asList(
+                    jsonMapper.readValue(source.read(repositoryConfig.getManifestPath()), ManifestEntry[].class)));
+            // 3. Read the files of each test case, each distinct file is only read once.
+            final Map<String, String> contents = new HashMap<>();
+            final Collection<HubTestCase> testCases = new ArrayList<>();
+            for(ManifestEntry entry : manifest.getManifestEntries()) {
+                final String ontologyPath = repositoryConfig.getOntologyFolder() + "/" + entry.getOntology();
+                final String testPath = repositoryConfig.getTestFolder() + "/";
+                testCases.add(new HubTestCase(
+                        entry.getName(),
+                        read(source, ontologyPath, contents),
+                        read(source, testPath + entry.getInstances(), contents),
+                        read(source, testPath + entry.getSchema(), contents),
+                        read(source, testPath + entry.getProducedShapeMap(), contents),
+                        read(source, testPath + entry.getExpectedShapeMap(), contents)));
+            }
+            LOGGER.debug(String.format("INTERNAL parsed test cases [%s]", testCases.size()));
+            return testCases;
+        }
+    }
+
+    @Override
+    public String createCheckRun(final String owner, final String repo, final String commit) {
+        final String checkRunId = UUID.randomUUID().toString();
+        LOGGER.info(String.format("Local CheckRun [%s] created for user=[%s], repo =[%s] and commit =[%s]", checkRunId, owner, repo, commit));
+        return checkRunId;
+    }
+
+    @Override
+    public String updateCheckRun(final String checkRunId, final String owner, final String repo, final String conclusion, final String output) {
+        LOGGER.info(String.format("Local CheckRun [%s] for user=[%s] and repo =[%s] concluded with [%s]", checkRunId, owner, repo, conclusion));
+        return conclusion;
+    }
+
+    private Path getRepositoryFolder(final String owner, final String repo) {
+        return resolve(root, owner + "/" + repo);
+    }
+
+    private String read(final FileSource source, final String path, final Map<String, String> contents) throws IOException {
+        String content = contents.get(path);
+        if(content == null) {
+            content = source.read(path);
+            contents.put(path, content);
+        }
+        return content;
+    }
+
+    /**
+     * Opens the source of the files of a repository: its git objects if it is a git repository and a commit
+     * is requested, or its folder otherwise.
+     *
+     * @param folder of the repository
+     * @param commit requested, may be null
+     * @return the source of the files
+     */
+    private FileSource openSource(final Path folder, final String commit) throws IOException {
+        if(!Files.isDirectory(folder))
+            throw new FileNotFoundException(String.format("repository folder [%s] not found", folder));
+
+        final Path gitFolder = getGitFolder(folder);
+        if(gitFolder == null || commit == null)
+            return new FolderSource(folder);
+        return new GitSource(folder, openRepository(gitFolder), commit);
+    }
+
+    /**
+     * Gets the git folder of a repository: its .git folder if it is a working tree, or the folder itself if it is
+     * a bare repository.
+     *
+     * @param folder of the repository
+     * @return the git folder, null if the folder is not a git repository
+     */
+    private static Path getGitFolder(final Path folder) {
+        if(Files.isDirectory(folder.resolve(".git")))
+            return folder.resolve(".git");
+        if(Files.isRegularFile(folder.resolve("HEAD")) && Files.isDirectory(folder.resolve("objects")))
+            return folder;
+        return null;
+    }
+
+    private static Repository openRepository(final Path gitFolder) throws IOException {
+        return new FileRepositoryBuilder().setGitDir(gitFolder.toFile()).setMustExist(true).build();
+    }
+
+    /**
+     * Resolves a commit of a git repository.
+     *
+     * @param repository where the commit is resolved
+     * @param commit     id, abbreviated id or name of the commit
+     * @return the id of the commit, null if it is not in the repository
+     */
+    private static ObjectId resolveCommit(final Repository repository, final String commit) throws IOException {
+        try {
+            return repository.resolve(commit + "^{commit}");
+        } catch (MissingObjectException e) {
+            // A complete id is not looked up until it is peeled.
+            return null;
+        }
+    }
+
+    /**
+     * Checks that a file read is not empty.
+     *
+     * @param content of the file
+     * @return the content
+     * @throws EmptyContentFileException if the file is empty.
+     */
+    private static String checkContent(final String content) {
+        if(content.replace("\n","").replace("\r","").length() <= 0)
+            throw new EmptyContentFileException();
+        return content;
+    }
+
+    /**
+     * Resolves a path inside a folder, rejecting the paths that point outside of it.
+     *
+     * @param folder base folder
+     * @param path   relative path
+     * @return the resolved path
+     * @throws IllegalArgumentException if the path is outside of the folder.
+     */
+    private static Path resolve(final Path folder, final String path) {
+        final Path resolved = folder.resolve(path).normalize();
+        if(!resolved.startsWith(folder))
+            throw new IllegalArgumentException(String.format("the path [%s] is outside of [%s]", path, folder));
+        return resolved;
+    }
+
+    /**
+     * Source of the files of a repository.
+     */
+    private interface FileSource extends Closeable {
+
+        /**
+         * Reads a file of the repository.
+         *
+         * @param path of the file inside the repository
+         * @return the content of the file
+         * @throws FileNotFoundException if the file does not exist.
+         * @throws EmptyContentFileException if the file is empty.
+         */
+        String read(String path) throws IOException;
+    }
+
+    /**
+     * Reads the files from the folder of the repository.
+     */
+    private static final class FolderSource implements FileSource {
+
+        private final Path folder;
+
+        private FolderSource(final Path folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        public String read(final String path) throws IOException {
+            final Path file = resolve(folder, path);
+            if(!Files.isRegularFile(file))
+                throw new FileNotFoundException(path);
+
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                if(size <= MAP_THRESHOLD || size > Integer.MAX_VALUE)
+                    return checkContent(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return checkContent(StandardCharsets.UTF_8.decode(buffer).toString());
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Reads the files from the git objects of a commit of the repository.
+     */
+    private static final class GitSource implements FileSource {
+
+        private final Path folder;
+        private final Repository repository;
+        private final ObjectReader reader;
+        private final RevTree tree;
+
+        private GitSource(final Path folder, final Repository repository, final String commit) throws IOException {
+            this.folder = folder;
+            this.repository = repository;
+            this.reader = repository.newObjectReader();
+            try {
+                final ObjectId commitId = resolveCommit(repository, commit);
+                if(commitId == null)
+                    throw new FileNotFoundException(String.format("commit [%s] not found in [%s]", commit, folder));
+                try(RevWalk walk = new RevWalk(reader)) {
+                    this.tree = walk.parseCommit(commitId).getTree();
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String read(final String path) throws IOException {
+            // Git paths are relative to the root of the repository and always use slashes.
+            final String gitPath = folder.relativize(resolve(folder, path)).toString().replace('\\', '/');
+            try(TreeWalk treeWalk = TreeWalk.forPath(reader, gitPath, tree)) {
+                if(treeWalk == null || treeWalk.isSubtree())
+                    throw new FileNotFoundException(path);
+                final byte[] content = reader.open(treeWalk.getObjectId(0)).getBytes(Integer.MAX_VALUE);
+                return checkContent(new String(content, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package es.weso.ontoloci.hub.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.weso.ontoloci.hub.exceptions.EmptyContentFileException;
+import es.weso.ontoloci.hub.manifest.Manifest;
+import es.weso.ontoloci.hub.manifest.ManifestEntry;
+import es.weso.ontoloci.hub.repository.RepositoryConfiguration;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Snapshot of the files of a repository read from the zip archive of a commit, like the ones GitHub serves for
+ * each commit. The archive is streamed once and only the configuration, the manifest and the files referenced
+ * by the manifest are kept.
+ *
+ * The files are kept in memory once the manifest has been read. The files found before it, that may be
+ * referenced by the manifest, are written to a temporary folder that is deleted when the archive is closed.
+ *
+ * @author Pablo Menéndez
+ */
+final class RepositoryArchive implements Closeable {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryArchive.class);
+
+    private final static String YAML_FILE_NAME = ".oci.yml";
+    private final static String SLASH = "/";
+
+    private final ObjectMapper yamlMapper;
+    private final ObjectMapper jsonMapper;
+
+    private RepositoryConfiguration configuration;
+    private Manifest manifest;
+    // Paths of the files referenced by the manifest, null until the manifest is read.
+    private Set<String> referenced;
+
+    private final Map<String, String> contents = new HashMap<>();
+    private final Map<String, Path> spilled = new HashMap<>();
+    private Path spillFolder;
+
+    /**
+     * Reads the zip archive of a commit of a repository. The stream is consumed but not closed.
+     *
+     * @param archive    zip stream, the files inside a root folder as in the GitHub archives.
+     * @param yamlMapper to parse the repository configuration.
+     * @param jsonMapper to parse the manifest.
+     * @return the files of the repository needed for its test cases.
+     * @throws FileNotFoundException if the archive has no configuration or no manifest.
+     */
+    static RepositoryArchive read(final InputStream archive, final ObjectMapper yamlMapper, final ObjectMapper jsonMapper) throws IOException {
+        final RepositoryArchive repositoryArchive = new RepositoryArchive(yamlMapper, jsonMapper);
+        try {
+            repositoryArchive.readEntries(new ZipInputStream(archive));
+            return repositoryArchive;
+        } catch (IOException | RuntimeException e) {
+            repositoryArchive.close();
+            throw e;
+        }
+    }
+
+    private RepositoryArchive(final ObjectMapper yamlMapper, final ObjectMapper jsonMapper) {
+        this.yamlMapper = yamlMapper;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Gets the configuration of the repository.
+     *
+     * @return the configuration read from the .oci.yml file.
+     */
+    RepositoryConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Gets the manifest of the repository.
+     *
+     * @return the manifest.
+     */
+    Manifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Gets the content of a file referenced by the manifest.
+     *
+     * @param path of the file inside the repository.
+     * @return the content of the file.
+     * @throws FileNotFoundException if the file is not in the archive.
+     * @throws EmptyContentFileException if the file is empty.
+     */
+    String getFile(final String path) throws IOException {
+        final String normalized = normalize(path);
+        String content = contents.get(normalized);
+        if(content == null) {
+            final Path file = spilled.get(normalized);
+            if(file == null)
+                throw new FileNotFoundException(path);
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            contents.put(normalized, content);
+        }
+        if(content.replace("\n","").replace("\r","").length() <= 0)
+            throw new EmptyContentFileException();
+        return content;
+    }
+
+    /**
+     * Deletes the temporary folder of the files found before the manifest.
+     */
+    @Override
+    public void close() throws IOException {
+        if(spillFolder == null)
+            return;
+        try(Stream<Path> files = Files.walk(spillFolder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+        spillFolder = null;
+    }
+
+    private void readEntries(final ZipInputStream zip) throws IOException {
+        int entries = 0;
+        ZipEntry entry;
+        while((entry = zip.getNextEntry()) != null) {
+            entries++;
+            if(entry.isDirectory())
+                continue;
+            // The files of the GitHub archives are inside a folder named after the repository and the commit.
+            final String name = entry.getName();
+            final int rootEnd = name.indexOf('/');
+            if(rootEnd < 0)
+                continue;
+            final String path = normalize(name.substring(rootEnd + 1));
+
+            if(configuration == null && path.equals(YAML_FILE_NAME)) {
+                configuration = yamlMapper.readValue(toString(zip), RepositoryConfiguration.class);
+                resolveManifest();
+            } else if(configuration != null && manifest == null && path.equals(normalize(configuration.getManifestPath()))) {
+                setManifest(toString(zip));
+            } else if(referenced != null) {
+                if(referenced.contains(path))
+                    contents.put(path, toString(zip));
+            } else if(mayBeReferenced(path)) {
+                spill(path, zip);
+            }
+        }
+
+        if(configuration == null)
+            throw new FileNotFoundException(YAML_FILE_NAME);
+        if(manifest == null)
+            throw new FileNotFoundException(configuration.getManifestPath());
+
+        // Discard the spilled files that the manifest does not reference.
+        spilled.keySet().retainAll(referenced);
+        LOGGER.debug(String.format("INTERNAL read [%s] archive entries, kept [%s] files in memory and [%s] on disk",
+                entries, contents.size(), spilled.size()));
+    }
+
+    /**
+     * Parses the manifest if it was found before the configuration, so it was spilled.
+     */
+    private void resolveManifest() throws IOException {
+        final Path file = spilled.remove(normalize(configuration.getManifestPath()));
+        if(file != null)
+            setManifest(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    private void setManifest(final String content) throws IOException {
+        manifest = new Manifest(Arrays.asList(jsonMapper.readValue(content, ManifestEntry[].class)));
+        referenced = new HashSet<>();
+        for(ManifestEntry entry : manifest.getManifestEntries()) {
+            final String testFolder = configuration.getTestFolder() + SLASH;
+            referenced.add(normalize(configuration.getOntologyFolder() + SLASH + entry.getOntology()));
+            referenced.add(normalize(testFolder + entry.getInstances()));
+            referenced.add(normalize(testFolder + entry.getSchema()));
+            referenced.add(normalize(testFolder + entry.getProducedShapeMap()));
+            referenced.add(normalize(testFolder + entry.getExpectedShapeMap()));
+        }
+    }
+
+    /**
+     * Checks if a file found before the manifest could be needed: any file before the configuration, and the
+     * files of the ontology and test folders after it.
+     */
+    private boolean mayBeReferenced(final String path) {
+        if(configuration == null)
+            return true;
+        return path.startsWith(normalize(configuration.getOntologyFolder()) + SLASH) ||
+                path.startsWith(normalize(configuration.getTestFolder()) + SLASH);
+    }
+
+    private void spill(final String path, final InputStream content) throws IOException {
+        if(spillFolder == null)
+            spillFolder = Files.createTempDirectory("ontoloci-archive");
+        final Path file = Files.createTempFile(spillFolder, "file", null);
+        Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        spilled.put(path, file);
+    }
+
+    private static String toString(final InputStream content) throws IOException {
+        return IOUtils.toString(content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Normalizes a path inside the repository, removing the empty and . segments and resolving the .. ones,
+     * so the paths of the manifest match the names of the archive entries.
+     *
+     * @param path inside the repository.
+     * @return the normalized path.
+     */
+    static String normalize(final String path) {
+        final Deque<String> segments = new ArrayDeque<>();
+        for(String segment : path.split(SLASH)) {
+            if(segment.isEmpty() || segment.equals("."))
+                continue;
+            if(segment.equals("..")) {
+                if(!segments.isEmpty())
+                    segments.removeLast();
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        return String.join(SLASH, segments);
+    }
+}
@@ -0,0 +1,91 @@
+package es.weso.ontoloci.hub.utils;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class provides the HTTP clients used by the repository providers.
+ * The clients keep a pool of connections alive, so consecutive requests to the same host reuse the
+ * same TLS connection instead of opening a new one each time.
+ *
+ * The default client can be configured with the following system properties:
+ *
+ *  - ontoloci.http.maxConnections      maximum number of open connections (default 50)
+ *  - ontoloci.http.maxPerRoute         maximum number of open connections to the same host (default 20)
+ *  - ontoloci.http.connectTimeout      connection timeout in milliseconds (default 10000)
+ *  - ontoloci.http.socketTimeout       socket read timeout in milliseconds (default 30000)
+ *  - ontoloci.http.keepAlive           keep alive in milliseconds when the server does not set one (default 30000)
+ *
+ * @author Pablo Menéndez Suárez
+ */
+public class HttpClientUtils {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientUtils.class);
+
+    // Shared by all the providers that do not set their own client.
+    private static final HttpClient DEFAULT_CLIENT = createPooledClient(
+            Integer.getInteger("ontoloci.http.maxConnections", 50),
+            Integer.getInteger("ontoloci.http.maxPerRoute", 20),
+            Integer.getInteger("ontoloci.http.connectTimeout", 10_000),
+            Integer.getInteger("ontoloci.http.socketTimeout", 30_000),
+            Long.getLong("ontoloci.http.keepAlive", 30_000L)
+    );
+
+    private HttpClientUtils() {}
+
+    /**
+     * Gets the default pooled HTTP client.
+     *
+     * @return the shared HTTP client.
+     */
+    public static HttpClient getDefaultClient() {
+        return DEFAULT_CLIENT;
+    }
+
+    /**
+     * Creates a new HTTP client backed by a pool of keep-alive connections.
+     *
+     * @param maxConnections    maximum number of open connections.
+     * @param maxPerRoute       maximum number of open connections to the same host.
+     * @param connectTimeout    connection timeout in milliseconds.
+     * @param socketTimeout     socket read timeout in milliseconds.
+     * @param keepAlive         keep alive in milliseconds when the server does not set one.
+     *
+     * @return the new HTTP client.
+     */
+    public static HttpClient createPooledClient(int maxConnections, int maxPerRoute, int connectTimeout, int socketTimeout, long keepAlive) {
+
+        LOGGER.debug(String.format("NEW Creating a pooled HTTP client with maxConnections=[%s], maxPerRoute=[%s], " +
+                "connectTimeout=[%s], socketTimeout=[%s] and keepAlive=[%s]", maxConnections, maxPerRoute, connectTimeout, socketTimeout, keepAlive));
+
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    // Use the keep alive sent by the server if there is one.
+                    final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+    }
+}
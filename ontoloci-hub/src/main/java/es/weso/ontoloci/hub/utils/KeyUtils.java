@@ -40,15 +40,76 @@ public class KeyUtils {
     private static final String APP_ID_PATH = "/ontolo-ci/secrets/ocitest.appid";
     private static final String DOCKER_APP_ID_PATH = "/secrets/ocitest.appid";
 
+    // Validity of a JWT and margin before its expiration to sign a new one
+    private static final long JWT_VALIDITY_MINUTES = 5L;
+    private static final long JWT_REFRESH_MARGIN_SECONDS = 60L;
+
+    // The app id and the private key are loaded only once
+    private static String appId;
+    private static PrivateKey privateKey;
+
+    // The last JWT is reused until it is close to its expiration
+    private static String jwt;
+    private static Instant jwtExpiration = Instant.EPOCH;
+
     /**
      * Gets a JSON Web Token by the current time and the AppId signed with a private Key
      * Inspired on https://docs.github.com/en/free-pro-team@latest/developers/apps/authenticating-with-github-apps#jwt-payload
+     *
+     * The same token is returned until it is about to expire, then a new one is signed.
      * @return
      */
     public static String getJWT() {
+        return getJWT(Instant.now());
+    }
+
+    /**
+     * Gets a JSON Web Token valid at a given instant, reusing the last one if it does not expire soon after it.
+     *
+     * @param now   instant when the token is used
+     * @return JWT
+     */
+    static synchronized String getJWT(Instant now) {
+        if(jwt != null && now.isBefore(jwtExpiration.minusSeconds(JWT_REFRESH_MARGIN_SECONDS)))
+            return jwt;
+
+        loadCredentials();
 
         // The JWT signature algorithm we will be using to sign the token
         SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.RS256;
+        Instant expiration = now.plus(JWT_VALIDITY_MINUTES, ChronoUnit.MINUTES);
+
+        // Let's set the JWT Claims
+        jwt = Jwts.builder()
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(expiration))
+                .setIssuer(appId)
+                .signWith(signatureAlgorithm, privateKey).compact();
+        jwtExpiration = expiration;
+
+        return jwt;
+    }
+
+    /**
+     * Sets the app id and the private key used to sign the JWTs, instead of loading them from the secrets folder.
+     * The JWT signed with the previous credentials is discarded.
+     *
+     * @param appId         of the GitHub App, null to load the credentials from the secrets folder again
+     * @param privateKey    of the GitHub App, null to load the credentials from the secrets folder again
+     */
+    public static synchronized void useCredentials(String appId, PrivateKey privateKey) {
+        KeyUtils.appId = appId;
+        KeyUtils.privateKey = privateKey;
+        jwt = null;
+        jwtExpiration = Instant.EPOCH;
+    }
+
+    /**
+     * Loads the app id and the private key from the secrets folder the first time they are needed.
+     */
+    private static void loadCredentials() {
+        if(appId != null && privateKey != null)
+            return;
 
         // We need the absolutepath because when the project is deployed the root folder is ontolo-cy,
         // while if we are running the hub tests the root folder is ontoloci-hub
@@ -61,18 +122,8 @@ public class KeyUtils {
             keyPath = absolutepath[0]+PRIVATE_KEY_PAHT;
         }
 
-        String appId = getFileContent(appIdPath);
-        Instant now = Instant.now();
-        PrivateKey privateKey = KeyUtils.loadPrivateKey(keyPath);
-
-        // Let's set the JWT Claims
-        String jwt = Jwts.builder()
-                .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(now.plus(5L, ChronoUnit.MINUTES)))
-                .setIssuer(appId)
-                .signWith(signatureAlgorithm, privateKey).compact();
-
-        return jwt;
+        appId = getFileContent(appIdPath);
+        privateKey = KeyUtils.loadPrivateKey(keyPath);
     }
 
 
@@ -1,14 +1,26 @@
 package es.weso.ontoloci.hub;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import es.weso.ontoloci.hub.build.HubBuild;
 import es.weso.ontoloci.hub.repository.impl.GitHubRepositoryProvider;
 import es.weso.ontoloci.hub.test.HubTestCase;
+import es.weso.ontoloci.hub.utils.HttpClientUtils;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -153,6 +165,54 @@ public class HubTests {
 
     }
 
+    @Test
+    public void getTestCasesFromArchiveTest() throws IOException {
+
+        // Local stand-in of the archive endpoint that serves a repository with two test cases.
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try(ZipOutputStream zip = new ZipOutputStream(archive)) {
+            addZipEntry(zip, ".oci.yml", "manifestPath: manifest.json\nontologyFolder: ontology\ntestFolder: test\n");
+            addZipEntry(zip, "manifest.json", "[" +
+                    "{\"test_name\":\"t1\",\"ontology\":\"o.ttl\",\"data\":\"d1.ttl\",\"schema\":\"s.shex\",\"in_shape_map\":\"i1.sm\",\"out_shape_map\":\"o1.sm\"}," +
+                    "{\"test_name\":\"t2\",\"ontology\":\"o.ttl\",\"data\":\"d2.ttl\",\"schema\":\"s.shex\",\"in_shape_map\":\"i2.sm\",\"out_shape_map\":\"o2.sm\"}]");
+            addZipEntry(zip, "ontology/o.ttl", "ontology");
+            for(String file : new String[]{"s.shex", "d1.ttl", "i1.sm", "o1.sm", "d2.ttl", "i2.sm", "o2.sm"})
+                addZipEntry(zip, "test/" + file, file);
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            boolean found = exchange.getRequestURI().getPath().equals("/" + DEFAULT_OWNER + "/" + DEFAULT_REPO + "/zip/" + DEFAULT_COMMIT);
+            exchange.sendResponseHeaders(found ? 200 : 404, found ? archive.size() : -1);
+            try(OutputStream body = exchange.getResponseBody()) {
+                if(found)
+                    archive.writeTo(body);
+            }
+        });
+        server.start();
+        try {
+            GitHubRepositoryProvider gitHubService = GitHubRepositoryProvider.with(new ObjectMapper(new YAMLFactory()),
+                    new ObjectMapper(new JsonFactory()), HttpClientUtils.getDefaultClient(), "http://localhost:" + server.getAddress().getPort());
+            Collection<HubTestCase> testCases = gitHubService.getTestCases(DEFAULT_OWNER, DEFAULT_REPO, DEFAULT_COMMIT);
+            assertEquals(2, testCases.size());
+            for(HubTestCase testCase : testCases) {
+                assertEquals("ontology", testCase.getOntology());
+                assertEquals("s.shex", testCase.getSchema());
+            }
+
+            assertThrows(FileNotFoundException.class, () -> gitHubService.getTestCases(DEFAULT_OWNER, DEFAULT_REPO, EXCEPTION_COMMIT));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private void addZipEntry(ZipOutputStream zip, String path, String content) throws IOException {
+        // The files of the archives are inside a folder named after the repository and the commit.
+        zip.putNextEntry(new ZipEntry(DEFAULT_REPO + "-" + DEFAULT_COMMIT + "/" + path));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
     @Test
     public void createGHCheckRunTest() throws IOException {
 
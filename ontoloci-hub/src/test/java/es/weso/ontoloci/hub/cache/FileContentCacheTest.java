@@ -0,0 +1,53 @@
+package es.weso.ontoloci.hub.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileContentCacheTest {
+
+    @Test
+    public void getAndPutTest() throws IOException {
+        FileContentCache cache = FileContentCache.from(Files.createTempDirectory("ontoloci-cache"), 1024);
+
+        assertNull(cache.get("blob:1"));
+        cache.put("blob:1", "ontology");
+        assertEquals("ontology", cache.get("blob:1"));
+        assertEquals(8, cache.getSize());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTest() throws IOException {
+        FileContentCache cache = FileContentCache.from(Files.createTempDirectory("ontoloci-cache"), 10);
+
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        // a is used, so b is the least recently used one.
+        assertEquals("12345", cache.get("a"));
+        cache.put("c", "12345");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(10, cache.getSize());
+
+        // The contents bigger than the cache are not stored.
+        cache.put("d", "12345678901");
+        assertNull(cache.get("d"));
+    }
+
+    @Test
+    public void persistentTest() throws IOException {
+        Path folder = Files.createTempDirectory("ontoloci-cache");
+        FileContentCache.from(folder, 1024).put("https://raw.githubusercontent.com/owner/repo/commit/test/data.ttl", "data");
+
+        FileContentCache reopened = FileContentCache.from(folder, 1024);
+        assertEquals("data", reopened.get("https://raw.githubusercontent.com/owner/repo/commit/test/data.ttl"));
+        assertEquals(4, reopened.getSize());
+        assertNull(FileContentCache.from(folder, 0).get("https://raw.githubusercontent.com/owner/repo/commit/test/data.ttl"));
+    }
+}
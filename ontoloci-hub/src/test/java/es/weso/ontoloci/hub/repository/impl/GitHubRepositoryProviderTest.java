@@ -0,0 +1,264 @@
+package es.weso.ontoloci.hub.repository.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import es.weso.ontoloci.hub.cache.FileContentCache;
+import es.weso.ontoloci.hub.test.HubTestCase;
+import es.weso.ontoloci.hub.utils.KeyUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GitHubRepositoryProviderTest {
+
+    private static final String RAW_PATH = "https://raw.githubusercontent.com/weso/ontoloci/c1/";
+    private static final int ENTRIES = 6;
+    private static final String API_PATH = "https://api.github.com/";
+
+    @AfterEach
+    public void clearCredentials() {
+        KeyUtils.useCredentials(null, null);
+    }
+
+    @Test
+    public void fetchOrderTest() throws IOException {
+        final StubHttpClient client = new StubHttpClient(request -> {
+            final String file = request.substring(request.lastIndexOf('/') + 1);
+            // The files of the first entries are the slowest, so the requests finish in the reverse order.
+            final int entry = file.matches("[dio]\\d+\\.\\w+") ? Integer.parseInt(file.replaceAll("\\D", "")) : ENTRIES;
+            sleep((ENTRIES - entry) * 20L);
+            return new StubResponse(200, getContent(file));
+        });
+
+        final List<HubTestCase> testCases = new ArrayList<>(getProvider(client).getTestCases("weso", "ontoloci", "c1"));
+
+        // The test cases keep the order of the manifest, each one with its own files.
+        assertEquals(ENTRIES, testCases.size());
+        for(int i = 0; i < ENTRIES; i++) {
+            final HubTestCase testCase = testCases.get(i);
+            assertEquals("t" + i, testCase.getName());
+            assertEquals("ontology", testCase.getOntology());
+            assertEquals("schema", testCase.getSchema());
+            assertEquals("d" + i + ".ttl", testCase.getInstances());
+            assertEquals("i" + i + ".sm", testCase.getProducedShapeMap());
+            assertEquals("o" + i + ".sm", testCase.getExpectedShapeMap());
+        }
+
+        // The shared files are requested once, and the requests run at the same time up to the size of the pool.
+        assertEquals(1, client.getRequests(RAW_PATH + "ontology/o.ttl"));
+        assertEquals(1, client.getRequests(RAW_PATH + "test/s.shex"));
+        assertEquals(2 + 2 + 3 * ENTRIES, client.getRequests());
+        assertTrue(client.getMaxInFlight() > 1);
+        assertTrue(client.getMaxInFlight() <= Integer.getInteger("ontoloci.hub.fetchConcurrency", 8));
+    }
+
+    @Test
+    public void fetchNotFoundTest() throws IOException {
+        final StubHttpClient client = new StubHttpClient(request -> {
+            final String file = request.substring(request.lastIndexOf('/') + 1);
+            return "d3.ttl".equals(file) ? new StubResponse(404, "404: Not Found") : new StubResponse(200, getContent(file));
+        });
+
+        // A missing file fails the whole fetch.
+        assertThrows(FileNotFoundException.class, () -> getProvider(client).getTestCases("weso", "ontoloci", "c1"));
+    }
+
+    @Test
+    public void installationTokenReuseTest() throws Exception {
+        // The installation ids and tokens are shared by all the providers, so each test uses its own owner.
+        final StubHttpClient client = getCheckRunClient("reuse-owner", Duration.ofHours(1));
+        final GitHubRepositoryProvider provider = getProvider(client);
+
+        assertEquals("1", provider.createCheckRun("reuse-owner", "ontoloci", "c1"));
+        assertEquals("1", provider.createCheckRun("reuse-owner", "ontoloci", "c2"));
+
+        // The installation and its token are requested once, the token is valid for an hour.
+        assertEquals(1, client.getRequests(API_PATH + "users/reuse-owner/installation"));
+        assertEquals(1, client.getRequests(API_PATH + "app/installations/7/access_tokens"));
+        assertEquals("token t1", client.getAuthorization(API_PATH + "repos/reuse-owner/ontoloci/check-runs"));
+    }
+
+    @Test
+    public void installationTokenRefreshTest() throws Exception {
+        // The token expires within the refresh margin, so it is replaced before it expires.
+        final StubHttpClient client = getCheckRunClient("refresh-owner", Duration.ofMinutes(4));
+        final GitHubRepositoryProvider provider = getProvider(client);
+
+        provider.createCheckRun("refresh-owner", "ontoloci", "c1");
+        assertEquals("token t1", client.getAuthorization(API_PATH + "repos/refresh-owner/ontoloci/check-runs"));
+        provider.createCheckRun("refresh-owner", "ontoloci", "c2");
+        assertEquals("token t2", client.getAuthorization(API_PATH + "repos/refresh-owner/ontoloci/check-runs"));
+
+        // The installation id does not expire, only the token is requested again.
+        assertEquals(1, client.getRequests(API_PATH + "users/refresh-owner/installation"));
+        assertEquals(2, client.getRequests(API_PATH + "app/installations/7/access_tokens"));
+    }
+
+    /**
+     * Creates a client that answers the requests to create the check runs of an owner, with installation tokens
+     * valid for the given time, and sets the credentials of the GitHub App to sign its JWTs.
+     */
+    private static StubHttpClient getCheckRunClient(String owner, Duration validity) throws NoSuchAlgorithmException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyUtils.useCredentials("42", generator.generateKeyPair().getPrivate());
+
+        final AtomicInteger tokens = new AtomicInteger();
+        return new StubHttpClient(request -> {
+            if(request.equals(API_PATH + "users/" + owner + "/installation"))
+                return new StubResponse(200, "{\"id\":7}");
+            if(request.equals(API_PATH + "app/installations/7/access_tokens"))
+                return new StubResponse(201, String.format("{\"token\":\"t%s\",\"expires_at\":\"%s\"}",
+                        tokens.incrementAndGet(), Instant.now().plus(validity)));
+            if(request.equals(API_PATH + "repos/" + owner + "/ontoloci/check-runs"))
+                return new StubResponse(201, "{\"id\":1}");
+            return new StubResponse(404, "404: Not Found");
+        });
+    }
+
+    /**
+     * Creates a provider that performs the requests with the given client, without archives and with the content
+     * cache disabled, so every file is requested.
+     */
+    private static GitHubRepositoryProvider getProvider(StubHttpClient client) throws IOException {
+        return GitHubRepositoryProvider.with(new ObjectMapper(new YAMLFactory()), new ObjectMapper(new JsonFactory()), client,
+                null, FileContentCache.from(Files.createTempDirectory("ontoloci-cache"), 0));
+    }
+
+    /**
+     * Gets the content served for each file of the repository.
+     */
+    private static String getContent(String file) {
+        switch(file) {
+            case ".oci.yml":
+                // JSON is valid YAML too.
+                return "{\"manifestPath\":\"manifest.json\",\"ontologyFolder\":\"ontology\",\"testFolder\":\"test\"}";
+            case "manifest.json":
+                final StringJoiner entries = new StringJoiner(",", "[", "]");
+                for(int i = 0; i < ENTRIES; i++)
+                    entries.add(String.format("{\"test_name\":\"t%1$s\",\"ontology\":\"o.ttl\",\"data\":\"d%1$s.ttl\"," +
+                            "\"schema\":\"s.shex\",\"in_shape_map\":\"i%1$s.sm\",\"out_shape_map\":\"o%1$s.sm\"}", i));
+                return entries.toString();
+            case "o.ttl":
+                return "ontology";
+            case "s.shex":
+                return "schema";
+            default:
+                return file;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * HTTP client that answers the requests with a function of their url instead of sending them, counts them
+     * and keeps the last Authorization header sent to each url.
+     */
+    static class StubHttpClient extends CloseableHttpClient {
+
+        private final Function<String, CloseableHttpResponse> handler;
+        private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        private final Map<String, String> authorizations = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        StubHttpClient(Function<String, CloseableHttpResponse> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) {
+            final String url = ((HttpUriRequest) request).getURI().toString();
+            requests.computeIfAbsent(url, key -> new AtomicInteger()).incrementAndGet();
+            final Header authorization = request.getFirstHeader("Authorization");
+            if(authorization != null)
+                authorizations.put(url, authorization.getValue());
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                return handler.apply(url);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        int getRequests(String url) {
+            final AtomicInteger count = requests.get(url);
+            return count == null ? 0 : count.get();
+        }
+
+        String getAuthorization(String url) {
+            return authorizations.get(url);
+        }
+
+        int getRequests() {
+            return requests.values().stream().mapToInt(AtomicInteger::get).sum();
+        }
+
+        int getMaxInFlight() {
+            return maxInFlight.get();
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public HttpParams getParams() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public ClientConnectionManager getConnectionManager() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Response with a status and a text body.
+     */
+    static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        StubResponse(int status, String body) {
+            super(HttpVersion.HTTP_1_1, status, null);
+            if(body != null)
+                setEntity(new StringEntity(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,85 @@
+package es.weso.ontoloci.hub.repository.impl;
+
+import es.weso.ontoloci.hub.test.HubTestCase;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalRepositoryProviderTest {
+
+    private static final String OWNER = "weso";
+    private static final String UNKNOWN_COMMIT = "0123456789012345678901234567890123456789";
+
+    @Test
+    public void folderTest() throws IOException {
+        final Path root = Files.createTempDirectory("ontoloci-local");
+        writeRepository(root.resolve(OWNER + "/plain"), "ontology");
+        final LocalRepositoryProvider provider = LocalRepositoryProvider.from(root);
+
+        // The plain folders are read as they are, whatever the commit.
+        assertTrue(provider.contains(OWNER, "plain", UNKNOWN_COMMIT));
+        assertFalse(provider.contains(OWNER, "missing", UNKNOWN_COMMIT));
+        final HubTestCase testCase = single(provider.getTestCases(OWNER, "plain", UNKNOWN_COMMIT));
+        assertEquals("t1", testCase.getName());
+        assertEquals("ontology", testCase.getOntology());
+        assertEquals("d1.ttl", testCase.getInstances());
+        assertEquals("o1.sm", testCase.getExpectedShapeMap());
+    }
+
+    @Test
+    public void bareRepositoryTest() throws Exception {
+        final Path root = Files.createTempDirectory("ontoloci-local");
+        final Path workTree = Files.createTempDirectory("ontoloci-work");
+
+        final RevCommit first;
+        final RevCommit second;
+        try(Git git = Git.init().setDirectory(workTree.toFile()).call()) {
+            writeRepository(workTree, "first ontology");
+            git.add().addFilepattern(".").call();
+            first = git.commit().setMessage("first").call();
+            write(workTree.resolve("ontology/o.ttl"), "second ontology");
+            git.add().addFilepattern(".").call();
+            second = git.commit().setMessage("second").call();
+        }
+        Git.cloneRepository().setURI(workTree.toUri().toString()).setBare(true)
+                .setDirectory(root.resolve(OWNER + "/bare").toFile()).call().close();
+        final LocalRepositoryProvider provider = LocalRepositoryProvider.from(root);
+
+        // Each commit is read from the git objects, there is no working tree in a bare repository.
+        assertEquals("first ontology", single(provider.getTestCases(OWNER, "bare", first.getName())).getOntology());
+        assertEquals("second ontology", single(provider.getTestCases(OWNER, "bare", second.getName())).getOntology());
+
+        // The commits that are not in the repository yet are not contained, so the hub reads them from GitHub.
+        assertTrue(provider.contains(OWNER, "bare", first.getName()));
+        assertFalse(provider.contains(OWNER, "bare", UNKNOWN_COMMIT));
+        assertThrows(FileNotFoundException.class, () -> provider.getTestCases(OWNER, "bare", UNKNOWN_COMMIT));
+    }
+
+    private static HubTestCase single(Collection<HubTestCase> testCases) {
+        assertEquals(1, testCases.size());
+        return testCases.iterator().next();
+    }
+
+    private static void writeRepository(Path folder, String ontology) throws IOException {
+        write(folder.resolve(".oci.yml"), "manifestPath: manifest.json\nontologyFolder: ontology\ntestFolder: test\n");
+        write(folder.resolve("manifest.json"), "[{\"test_name\":\"t1\",\"ontology\":\"o.ttl\",\"data\":\"d1.ttl\"," +
+                "\"schema\":\"s.shex\",\"in_shape_map\":\"i1.sm\",\"out_shape_map\":\"o1.sm\"}]");
+        write(folder.resolve("ontology/o.ttl"), ontology);
+        for(String file : new String[]{"s.shex", "d1.ttl", "i1.sm", "o1.sm"})
+            write(folder.resolve("test/" + file), file);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package es.weso.ontoloci.hub.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpClientUtilsTest {
+
+    @Test
+    public void keepAliveTest() throws IOException {
+        final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            final byte[] body = "content".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            final HttpClient client = HttpClientUtils.createPooledClient(2, 2, 1000, 1000, 30_000L);
+            for(int i = 0; i < 5; i++) {
+                final HttpResponse response = client.execute(new HttpGet(getUrl(server, "/file" + i)));
+                assertEquals(200, response.getStatusLine().getStatusCode());
+                assertEquals("content", EntityUtils.toString(response.getEntity()));
+            }
+
+            // The consecutive requests reuse the same pooled connection.
+            assertEquals(1, clientPorts.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void socketTimeoutTest() throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            // A server that does not answer does not block the request beyond the socket timeout.
+            final HttpClient client = HttpClientUtils.createPooledClient(2, 2, 1000, 200, 30_000L);
+            assertThrows(SocketTimeoutException.class, () -> client.execute(new HttpGet(getUrl(server, "/slow"))));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static String getUrl(HttpServer server, String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
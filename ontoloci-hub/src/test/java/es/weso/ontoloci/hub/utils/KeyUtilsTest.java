@@ -0,0 +1,62 @@
+package es.weso.ontoloci.hub.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyUtilsTest {
+
+    @BeforeEach
+    public void useTestCredentials() throws NoSuchAlgorithmException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyUtils.useCredentials("42", generator.generateKeyPair().getPrivate());
+    }
+
+    @AfterEach
+    public void clearCredentials() {
+        KeyUtils.useCredentials(null, null);
+    }
+
+    @Test
+    public void jwtRefreshTest() {
+        final Instant now = Instant.ofEpochSecond(1_600_000_000L);
+        final String jwt = KeyUtils.getJWT(now);
+        assertTrue(getPayload(jwt).contains("\"iss\":\"42\""));
+        assertTrue(getPayload(jwt).contains("\"exp\":" + now.plus(Duration.ofMinutes(5)).getEpochSecond()));
+
+        // The JWT is valid for five minutes and reused until one minute before it expires.
+        assertEquals(jwt, KeyUtils.getJWT(now.plus(Duration.ofMinutes(3))));
+        final String refreshed = KeyUtils.getJWT(now.plus(Duration.ofMinutes(4)));
+        assertNotEquals(jwt, refreshed);
+        assertTrue(getPayload(refreshed).contains("\"exp\":" + now.plus(Duration.ofMinutes(9)).getEpochSecond()));
+        assertEquals(refreshed, KeyUtils.getJWT(now.plus(Duration.ofMinutes(5))));
+    }
+
+    @Test
+    public void newCredentialsTest() throws NoSuchAlgorithmException {
+        final Instant now = Instant.ofEpochSecond(1_600_000_000L);
+        final String jwt = KeyUtils.getJWT(now);
+
+        // A JWT signed with other credentials is not reused.
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyUtils.useCredentials("43", generator.generateKeyPair().getPrivate());
+        final String other = KeyUtils.getJWT(now);
+        assertNotEquals(jwt, other);
+        assertTrue(getPayload(other).contains("\"iss\":\"43\""));
+    }
+
+    private static String getPayload(String jwt) {
+        return new String(Base64.getUrlDecoder().decode(jwt.split("\\.")[1]), StandardCharsets.UTF_8);
+    }
+}
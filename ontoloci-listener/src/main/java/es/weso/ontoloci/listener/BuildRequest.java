@@ -0,0 +1,106 @@
+package es.weso.ontoloci.listener;
+
+import es.weso.ontoloci.worker.build.Build;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A build requested by a webhook event. It only keeps the metadata of the build parsed from the payload,
+ * so the webhook payloads are not retained while the requests wait in the request queue. It also keeps the id
+ * of the webhook delivery, to recognize the deliveries that are sent again.
+ *
+ * @author Pablo Menéndez
+ */
+public class BuildRequest {
+
+    private final Map<String, String> metadata;
+    private final String deliveryId;
+    private final long receivedAt;
+
+    /**
+     * Factory method that creates a build request from the metadata of the build.
+     *
+     * @param metadata of the build.
+     * @return a new instance of build request.
+     */
+    public static BuildRequest from(final Map<String, String> metadata) {
+        return new BuildRequest(metadata, null);
+    }
+
+    /**
+     * Factory method that creates a build request from the metadata of the build and the id of the webhook delivery.
+     *
+     * @param metadata   of the build.
+     * @param deliveryId of the webhook delivery, null if unknown.
+     * @return a new instance of build request.
+     */
+    public static BuildRequest from(final Map<String, String> metadata, final String deliveryId) {
+        return new BuildRequest(metadata, deliveryId);
+    }
+
+    private BuildRequest(final Map<String, String> metadata, final String deliveryId) {
+        this.metadata = new HashMap<>(metadata);
+        this.deliveryId = deliveryId;
+        this.receivedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the metadata of the requested build.
+     *
+     * @return the metadata map.
+     */
+    public Map<String, String> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * Gets the id of the webhook delivery, the X-GitHub-Delivery header.
+     *
+     * @return the delivery id, null if unknown.
+     */
+    public String getDeliveryId() {
+        return deliveryId;
+    }
+
+    /**
+     * Gets the key of the commit to build, the same for all the requests of a commit of a branch or of a pull
+     * request, as their builds would be the same.
+     *
+     * @return the key of the commit.
+     */
+    public String getCommitKey() {
+        return metadata.get("owner") + "/" + metadata.get("repo") + "/" + metadata.get("branch") +
+                "#" + metadata.get("prNumber") + "@" + metadata.get("commit");
+    }
+
+    /**
+     * Gets the time when the webhook event was received.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * Creates the build to schedule for this request.
+     *
+     * @return a new build without test cases, they are fetched by the worker.
+     */
+    public Build toBuild() {
+        final Build build = Build.from();
+        build.setMetadata(new HashMap<>(metadata));
+        return build;
+    }
+
+    @Override
+    public String toString() {
+        return "BuildRequest{" +
+                "metadata=" + metadata +
+                ", deliveryId='" + deliveryId + '\'' +
+                ", receivedAt=" + receivedAt +
+                '}';
+    }
+}
@@ -0,0 +1,251 @@
+package es.weso.ontoloci.listener;
+
+import es.weso.ontoloci.scheduler.Scheduler;
+import es.weso.ontoloci.worker.build.Build;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue between the ingestion of the webhook events and the scheduling of the builds.
+ *
+ * The listener only validates the payload and submits a build request, that never blocks, so the webhooks
+ * are acknowledged in the same time whatever the load of the workers. A single thread moves the requests to
+ * the scheduler, waiting while the build queue is full. This way a burst of events is absorbed by this queue,
+ * and only when it is full too the new requests are rejected, so the sender knows it has to retry later.
+ *
+ * The requests of a delivery that is sent again are ignored, the ids of the most recent deliveries are
+ * remembered. The requests of a commit of a branch or pull request whose build is still pending or running are
+ * ignored too, as their build would be the same. The commit is released when the scheduler finishes or cancels
+ * its build, so the same commit can be built again later, like when it is pushed to another branch or rebuilt
+ * after a failure.
+ *
+ * The capacity of the queue and the number of deliveries remembered can be configured with the system
+ * properties ontoloci.listener.capacity and ontoloci.listener.recent.
+ *
+ * @author Pablo Menéndez
+ */
+public class BuildRequestQueue {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildRequestQueue.class);
+
+    private static final int CAPACITY = Integer.getInteger("ontoloci.listener.capacity", 1000);
+    private static final int RECENT = Integer.getInteger("ontoloci.listener.recent", 10000);
+
+    // Seconds waited for a free slot in the build queue before logging that the scheduler is saturated.
+    private static final long SCHEDULE_WAIT = 10;
+
+    // Singleton instance.
+    private static final BuildRequestQueue INSTANCE = create();
+
+    private final BlockingQueue<BuildRequest> requests;
+    private final BuildScheduler scheduler;
+
+    // Ids of the recent deliveries, keys of the commits whose builds are pending or running and key of the commit
+    // of each scheduled build, guarded by this.
+    private final Set<String> recentDeliveries;
+    private final Set<String> activeCommits = new HashSet<>();
+    private final Map<String, String> scheduledCommits = new HashMap<>();
+
+    /**
+     * Schedules the builds of the requests, waiting for a free slot in the build queue.
+     */
+    interface BuildScheduler {
+
+        /**
+         * Schedules a build, waiting for a free slot if the build queue is full.
+         *
+         * @param build   to schedule.
+         * @param timeout maximum time to wait for a free slot.
+         * @param unit    of the timeout.
+         * @return true if the build was scheduled, false if the build queue is still full after the timeout.
+         * @throws InterruptedException if the thread is interrupted while waiting.
+         */
+        boolean scheduleBuild(Build build, long timeout, TimeUnit unit) throws InterruptedException;
+    }
+
+    /**
+     * Outcome of the submission of a build request.
+     */
+    public enum Submission {
+
+        /**
+         * The request has been queued.
+         */
+        ACCEPTED,
+
+        /**
+         * The delivery of the request has already been accepted, or the build of its commit is pending or running,
+         * the request is ignored.
+         */
+        DUPLICATE,
+
+        /**
+         * The queue is full, the request has to be sent again later.
+         */
+        REJECTED
+    }
+
+    /**
+     * Gets the instance of the build request queue.
+     *
+     * @return the instance of the build request queue.
+     */
+    public static BuildRequestQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates the queue that schedules the builds in the scheduler and releases their commits when they finish.
+     *
+     * @return the build request queue.
+     */
+    private static BuildRequestQueue create() {
+        final Scheduler scheduler = Scheduler.getInstance();
+        final BuildRequestQueue queue = new BuildRequestQueue(CAPACITY, RECENT, scheduler::scheduleBuild);
+        scheduler.addFinishedListener(queue::finished);
+        return queue;
+    }
+
+    /**
+     * Creates the request queue and starts the thread that moves the requests to the scheduler.
+     *
+     * @param capacity  maximum number of requests waiting to be scheduled.
+     * @param recent    number of deliveries remembered.
+     * @param scheduler where the builds of the requests are scheduled.
+     */
+    BuildRequestQueue(final int capacity, final int recent, final BuildScheduler scheduler) {
+        this.requests = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.scheduler = scheduler;
+        this.recentDeliveries = recentSet(recent);
+
+        final Thread thread = new Thread(this::dispatch, "ontoloci-build-requests");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Submits a build request. It returns immediately, the build is scheduled by the thread of the queue.
+     *
+     * @param request to submit.
+     * @return if the request was accepted, ignored as a duplicate or rejected because the queue is full.
+     */
+    public synchronized Submission submit(final BuildRequest request) {
+        final String deliveryId = request.getDeliveryId();
+        if((deliveryId != null && recentDeliveries.contains(deliveryId)) || activeCommits.contains(request.getCommitKey())) {
+            LOGGER.debug(String.format("Ignoring duplicated %s", request));
+            return Submission.DUPLICATE;
+        }
+
+        if(!requests.offer(request)) {
+            LOGGER.error(String.format("Build request queue is full, rejecting %s", request));
+            return Submission.REJECTED;
+        }
+
+        // Only the accepted requests are remembered, the rejected ones will be sent again.
+        if(deliveryId != null)
+            recentDeliveries.add(deliveryId);
+        activeCommits.add(request.getCommitKey());
+        return Submission.ACCEPTED;
+    }
+
+    /**
+     * Releases the commit of a build that has finished or has been cancelled, so it can be requested again.
+     * The builds that were not scheduled by this queue are ignored.
+     *
+     * @param build that has left the scheduler.
+     */
+    public synchronized void finished(final Build build) {
+        final String commitKey = scheduledCommits.remove(build.getId());
+        if(commitKey != null)
+            activeCommits.remove(commitKey);
+    }
+
+    /**
+     * Gets the number of build requests waiting to be scheduled.
+     *
+     * @return pending requests.
+     */
+    public int getPendingRequests() {
+        return requests.size();
+    }
+
+    /**
+     * Task executed by the thread of the queue. Takes the requests in order and schedules their builds,
+     * waiting for the workers when the build queue is full.
+     */
+    private void dispatch() {
+        while(!Thread.currentThread().isInterrupted()) {
+            try {
+                final BuildRequest request = requests.take();
+                try {
+                    schedule(request);
+                } catch (InterruptedException e) {
+                    release(request);
+                    throw e;
+                } catch (Exception e) {
+                    // A broken request must not stop the scheduling of the others.
+                    LOGGER.error(String.format("ERROR while scheduling a build request: %s", e.getMessage()));
+                    release(request);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Schedules the build of a request, waiting for the workers when the build queue is full.
+     *
+     * @param request to schedule.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private void schedule(final BuildRequest request) throws InterruptedException {
+        final Build build = request.toBuild();
+        // The build is registered before it is scheduled, as it may finish before the scheduler returns.
+        synchronized (this) {
+            scheduledCommits.put(build.getId(), request.getCommitKey());
+        }
+        while(!scheduler.scheduleBuild(build, SCHEDULE_WAIT, TimeUnit.SECONDS)) {
+            LOGGER.warn(String.format("Build queue is full, [%s] build requests waiting to be scheduled",
+                    requests.size() + 1));
+        }
+        LOGGER.debug(String.format("Scheduled %s after [%s] ms", request,
+                System.currentTimeMillis() - request.getReceivedAt()));
+    }
+
+    /**
+     * Releases the commit of a request whose build could not be scheduled.
+     *
+     * @param request that could not be scheduled.
+     */
+    private synchronized void release(final BuildRequest request) {
+        activeCommits.remove(request.getCommitKey());
+        scheduledCommits.values().remove(request.getCommitKey());
+    }
+
+    /**
+     * Creates a set that only keeps the most recent elements added.
+     *
+     * @param size maximum number of elements.
+     * @return the set.
+     */
+    private static Set<String> recentSet(final int size) {
+        return Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > size;
+            }
+        });
+    }
+}
@@ -1,19 +1,30 @@
 package es.weso.ontoloci.listener;
 
 
-import es.weso.ontoloci.scheduler.Scheduler;
-import es.weso.ontoloci.worker.build.Build;
-import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-
+import java.util.Optional;
+
+/**
+ * Endpoint of the GitHub webhooks. The events are only validated and turned into build requests, that are
+ * submitted to the {@link BuildRequestQueue}, and the webhook is acknowledged straight away with a 202 status,
+ * far from the timeout of GitHub whatever the duration of the builds.
+ *
+ * The deliveries sent again and the events of a commit already accepted are acknowledged with a 200 status
+ * without requesting a build. If the request queue is full the event is rejected with a 503 status and a
+ * Retry-After header.
+ */
 @RestController
 @RequestMapping("/api/v1/github")
 public class GitHubRestListener {
@@ -24,91 +35,158 @@ public class GitHubRestListener {
     private static final String GITHUB_PUSH_EVENT = "push";
     private static final String GITHUB_PULL_REQUEST_EVENT = "pull_request";
 
+    // Seconds suggested to the sender to retry a rejected event.
+    private static final String RETRY_AFTER = String.valueOf(Integer.getInteger("ontoloci.listener.retryAfter", 60));
+
+    private final BuildRequestQueue requestQueue;
+
+    public GitHubRestListener() {
+        this(BuildRequestQueue.getInstance());
+    }
+
+    /**
+     * Creates a listener that submits the build requests to the given queue.
+     *
+     * @param requestQueue where the build requests are submitted.
+     */
+    GitHubRestListener(final BuildRequestQueue requestQueue) {
+        this.requestQueue = requestQueue;
+    }
+
     public static void main(String... args) {
         SpringApplication.run(GitHubRestListener.class, args);
     }
 
     @RequestMapping("/")
-    public void listen(@RequestHeader("X-GitHub-Event") String event, @RequestBody Map<String, Object> payload) {
+    public ResponseEntity<Void> listen(@RequestHeader("X-GitHub-Event") String event,
+                                       @RequestHeader(value = "X-GitHub-Delivery", required = false) String deliveryId,
+                                       @RequestBody Map<String, Object> payload) {
         // We only listen to these two type of events.
         LOGGER.debug("GITHUB-EVENT- "+ event);
+        Optional<BuildRequest> request = Optional.empty();
         if(Objects.equals(event, GITHUB_PUSH_EVENT))
-            handlePush(payload);
+            request = handlePush(payload, deliveryId);
         if(Objects.equals(event, GITHUB_PULL_REQUEST_EVENT))
-            handlePullRequest(payload);
+            request = handlePullRequest(payload, deliveryId);
+
+        // Nothing to build for this event.
+        if(!request.isPresent())
+            return ResponseEntity.ok().build();
+
+        switch(requestQueue.submit(request.get())) {
+            case ACCEPTED:
+                return ResponseEntity.accepted().build();
+            case DUPLICATE:
+                return ResponseEntity.ok().build();
+            default:
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER).build();
+        }
     }
 
 
-
-    public void handlePush(Map<String, Object> payload) {
-            Map<String, Object> repositoryData = (Map<String, Object>) payload.get("repository");
-            Map<String, Object> ownerData = (Map<String, Object>) repositoryData.get("owner");
-            ArrayList<Map<String, Object>> commitData = (ArrayList<Map<String, Object>>) payload.get("commits");
+    /**
+     * Parses the payload of a push event.
+     *
+     * @param payload    of the event.
+     * @param deliveryId of the webhook delivery, null if unknown.
+     * @return the build request, empty if there is nothing to build.
+     * @throws ResponseStatusException with a bad request status if the payload is not valid.
+     */
+    public Optional<BuildRequest> handlePush(Map<String, Object> payload, String deliveryId) {
+            Map<String, Object> repositoryData = getObject(payload, "repository");
+            Map<String, Object> ownerData = getObject(repositoryData, "owner");
+            List<Map<String, Object>> commitData = getValue(payload, "commits", List.class);
 
             // We don´t want to do nothing if there is nothing to commit
             // This usually happens with the push of a new branch
             if(commitData.size()<=0)
-                return;
+                return Optional.empty();
 
-            final Build build = Build.from();
             // Parse the content and create the test cases array.
-            final String owner = (String) ownerData.get("name");
-            final String repo = (String) repositoryData.get("name");
-            final String branch = ((String) payload.get("ref")).split("refs/heads/")[1];
-            final String commit = (String) commitData.get(0).get("id");
-            final String commitId = String.valueOf(commit).substring(0,6);
-            final String commitName = (String) commitData.get(0).get("message");
+            // The commits are listed from the oldest, the head commit is the one the branch points to after the push.
+            final String owner = getString(ownerData, "name");
+            final String repo = getString(repositoryData, "name");
+            final String ref = getString(payload, "ref");
+            final Map<String, Object> headCommit = getObject(payload, "head_commit");
+            final String commit = getString(headCommit, "id");
+            final String commitName = getString(headCommit, "message");
             final String prNumber = "none";
 
-            // Add the metadata.
-            Map<String, String> metadata = fillMetadata(owner,repo,branch,commit,commitId,commitName,prNumber);
-            // We set the metadata.
-            build.setMetadata(metadata);
-
-            // Instantiate the scheduler.
-            Scheduler.getInstance().scheduleBuild(build);
+            // Only the pushes of branches are built, not the ones of tags.
+            if(!ref.startsWith("refs/heads/"))
+                return Optional.empty();
+            final String branch = ref.substring("refs/heads/".length());
 
+            // Add the metadata.
+            Map<String, String> metadata = fillMetadata(owner,repo,branch,commit,commitName,prNumber);
+            return Optional.of(BuildRequest.from(metadata, deliveryId));
     }
 
 
-    public void handlePullRequest(Map<String, Object> payload) {
+    /**
+     * Parses the payload of a pull request event.
+     *
+     * @param payload    of the event.
+     * @param deliveryId of the webhook delivery, null if unknown.
+     * @return the build request, empty if there is nothing to build.
+     * @throws ResponseStatusException with a bad request status if the payload is not valid.
+     */
+    public Optional<BuildRequest> handlePullRequest(Map<String, Object> payload, String deliveryId) {
 
-        if(!payload.get("action").equals("closed")) {
-            Map<String, Object> pullRequest = (Map<String, Object>) payload.get("pull_request");
-            Map<String, Object> headData = (Map<String, Object>) pullRequest.get("head");
-            Map<String, Object> repoData = (Map<String, Object>) headData.get("repo");
-            Map<String, Object> ownerData = (Map<String, Object>) repoData.get("owner");
+        if(!Objects.equals(getString(payload, "action"), "closed")) {
+            Map<String, Object> pullRequest = getObject(payload, "pull_request");
+            Map<String, Object> headData = getObject(pullRequest, "head");
+            Map<String, Object> repoData = getObject(headData, "repo");
+            Map<String, Object> ownerData = getObject(repoData, "owner");
 
-            final Build build = Build.from();
             // Parse the content and create the test cases array.
-            final String owner = (String) ownerData.get("login");
-            final String repo = (String) repoData.get("name");
-            final String branch = (String) headData.get("ref");
-            final String commit = (String) headData.get("sha");
-            final String commitId = String.valueOf(commit).substring(0, 6);
-            final String commitName = (String) pullRequest.get("title");
-            final String prNumber = String.valueOf(payload.get("number"));
+            final String owner = getString(ownerData, "login");
+            final String repo = getString(repoData, "name");
+            final String branch = getString(headData, "ref");
+            final String commit = getString(headData, "sha");
+            final String commitName = getString(pullRequest, "title");
+            final Object number = getValue(payload, "number", Object.class);
+            final String prNumber = String.valueOf(number);
 
             // Add the metadata.
-            Map<String, String> metadata = fillMetadata(owner,repo,branch,commit,commitId,commitName,prNumber);
-            // We set the metadata.
-            build.setMetadata(metadata);
-
-            // Instantiate the scheduler.
-            Scheduler.getInstance().scheduleBuild(build);
+            Map<String, String> metadata = fillMetadata(owner,repo,branch,commit,commitName,prNumber);
+            return Optional.of(BuildRequest.from(metadata, deliveryId));
         }
+        return Optional.empty();
     }
 
 
-    private Map<String, String> fillMetadata(String owner,String repo,String branch,String commit,String commitId,String commitName,String prNumber){
+    private Map<String, String> fillMetadata(String owner,String repo,String branch,String commit,String commitName,String prNumber){
         Map<String, String> metadata = new HashMap<>();
         metadata.put("owner", owner);
         metadata.put("repo", repo);
         metadata.put("branch", branch);
         metadata.put("commit", commit);
-        metadata.put("commitId", commitId);
+        metadata.put("commitId", commit.substring(0, Math.min(6, commit.length())));
         metadata.put("commitName", commitName);
         metadata.put("prNumber", prNumber);
         return metadata;
     }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getObject(Map<String, Object> data, String key) {
+        return getValue(data, key, Map.class);
+    }
+
+    private String getString(Map<String, Object> data, String key) {
+        return getValue(data, key, String.class);
+    }
+
+    /**
+     * Gets a required value of the payload.
+     *
+     * @throws ResponseStatusException with a bad request status if the value is missing or has another type.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getValue(Map<String, Object> data, String key, Class<? super T> type) {
+        final Object value = data.get(key);
+        if(!type.isInstance(value))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("invalid payload, missing [%s]", key));
+        return (T) value;
+    }
 }
@@ -0,0 +1,105 @@
+package es.weso.ontoloci.listener;
+
+import es.weso.ontoloci.worker.build.Build;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildRequestQueueTest {
+
+    @Test
+    public void dispatchTest() throws InterruptedException {
+        final BlockingQueue<Build> scheduled = new LinkedBlockingQueue<>();
+        final BuildRequestQueue queue = new BuildRequestQueue(10, 10, (build, timeout, unit) -> scheduled.offer(build));
+
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c1", "d1")));
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c2", "d2")));
+
+        // The builds are scheduled in the order of the requests, with their metadata.
+        assertEquals("c1", scheduled.poll(5, TimeUnit.SECONDS).getMetadata().get("commit"));
+        assertEquals("c2", scheduled.poll(5, TimeUnit.SECONDS).getMetadata().get("commit"));
+    }
+
+    @Test
+    public void dispatchRetryTest() throws InterruptedException {
+        final BlockingQueue<Build> scheduled = new LinkedBlockingQueue<>();
+        final AtomicInteger attempts = new AtomicInteger();
+        // The build queue is full for the first two attempts.
+        final BuildRequestQueue queue = new BuildRequestQueue(10, 10,
+                (build, timeout, unit) -> attempts.incrementAndGet() > 2 && scheduled.offer(build));
+
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c1", "d1")));
+        assertEquals("c1", scheduled.poll(5, TimeUnit.SECONDS).getMetadata().get("commit"));
+        assertEquals(3, attempts.get());
+        assertNull(scheduled.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void duplicateTest() {
+        final BuildRequestQueue queue = new BuildRequestQueue(10, 10, (build, timeout, unit) -> true);
+
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c1", "d1")));
+        // The same delivery sent again.
+        assertEquals(BuildRequestQueue.Submission.DUPLICATE, queue.submit(request("c2", "d1")));
+    }
+
+    @Test
+    public void activeCommitTest() throws InterruptedException {
+        final BlockingQueue<Build> scheduled = new LinkedBlockingQueue<>();
+        final BuildRequestQueue queue = new BuildRequestQueue(10, 10, (build, timeout, unit) -> scheduled.offer(build));
+
+        // Another delivery of a commit whose build is pending is ignored, the same commit in another branch is not.
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c1", "d1")));
+        assertEquals(BuildRequestQueue.Submission.DUPLICATE, queue.submit(request("c1", "d2")));
+        final BuildRequest merged = request("c1", "d3");
+        final Map<String, String> metadata = new HashMap<>(merged.getMetadata());
+        metadata.put("branch", "develop");
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(BuildRequest.from(metadata, "d3")));
+
+        // Once its build finishes the commit can be built again.
+        final Build build = scheduled.poll(5, TimeUnit.SECONDS);
+        assertEquals(BuildRequestQueue.Submission.DUPLICATE, queue.submit(request("c1", "d4")));
+        queue.finished(build);
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c1", "d4")));
+    }
+
+    @Test
+    public void rejectedTest() throws InterruptedException {
+        final CountDownLatch taken = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BuildRequestQueue queue = new BuildRequestQueue(1, 10, (build, timeout, unit) -> {
+            taken.countDown();
+            return release.await(timeout, unit);
+        });
+
+        // The first request blocks the dispatcher and the second one fills the queue.
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c1", "d1")));
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c2", "d2")));
+        assertEquals(BuildRequestQueue.Submission.REJECTED, queue.submit(request("c3", "d3")));
+
+        // The rejected request is not remembered, it is accepted when it is sent again with room in the queue.
+        release.countDown();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while(queue.getPendingRequests() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(BuildRequestQueue.Submission.ACCEPTED, queue.submit(request("c3", "d3")));
+    }
+
+    private static BuildRequest request(String commit, String deliveryId) {
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("owner", "weso");
+        metadata.put("repo", "ontoloci");
+        metadata.put("branch", "master");
+        metadata.put("commit", commit);
+        metadata.put("prNumber", "none");
+        return BuildRequest.from(metadata, deliveryId);
+    }
+}
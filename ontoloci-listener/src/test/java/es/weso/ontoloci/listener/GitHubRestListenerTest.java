@@ -0,0 +1,74 @@
+package es.weso.ontoloci.listener;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GitHubRestListenerTest {
+
+    @Test
+    public void pushHeadCommitTest() {
+        final GitHubRestListener listener = new GitHubRestListener(new BuildRequestQueue(10, 10, (build, timeout, unit) -> true));
+
+        // The commits of the push are listed from the oldest, the build is for the head commit.
+        final Map<String, Object> payload = pushPayload(commit("c1", "first"), commit("c2", "second"));
+        final Map<String, String> metadata = listener.handlePush(payload, "d1").get().getMetadata();
+        assertEquals("c2", metadata.get("commit"));
+        assertEquals("second", metadata.get("commitName"));
+        assertEquals("master", metadata.get("branch"));
+    }
+
+    @Test
+    public void fullQueueTest() throws InterruptedException {
+        final CountDownLatch taken = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BuildRequestQueue queue = new BuildRequestQueue(1, 10, (build, timeout, unit) -> {
+            taken.countDown();
+            return release.await(timeout, unit);
+        });
+        final GitHubRestListener listener = new GitHubRestListener(queue);
+
+        // The first push blocks the dispatcher and the second one fills the queue.
+        assertEquals(HttpStatus.ACCEPTED, listener.listen("push", "d1", pushPayload(commit("c1", "first"))).getStatusCode());
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.ACCEPTED, listener.listen("push", "d2", pushPayload(commit("c2", "second"))).getStatusCode());
+
+        // The third one is rejected, with the time after which GitHub can send it again.
+        final ResponseEntity<Void> response = listener.listen("push", "d3", pushPayload(commit("c3", "third")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("60", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        release.countDown();
+    }
+
+    private static Map<String, Object> commit(String id, String message) {
+        final Map<String, Object> commit = new HashMap<>();
+        commit.put("id", id);
+        commit.put("message", message);
+        return commit;
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> pushPayload(Map<String, Object>... commits) {
+        final Map<String, Object> owner = new HashMap<>();
+        owner.put("name", "weso");
+        final Map<String, Object> repository = new HashMap<>();
+        repository.put("name", "ontoloci");
+        repository.put("owner", owner);
+
+        final Map<String, Object> headCommit = commits[commits.length - 1];
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("ref", "refs/heads/master");
+        payload.put("after", headCommit.get("id"));
+        payload.put("repository", repository);
+        payload.put("head_commit", headCommit);
+        payload.put("commits", Arrays.asList(commits));
+        return payload;
+    }
+}
@@ -0,0 +1,319 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import es.weso.ontoloci.persistence.BuildResultPage;
+import es.weso.ontoloci.persistence.BuildResultQuery;
+import es.weso.ontoloci.persistence.PersistedBuildSummary;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of the persisted build results shared by the DAO implementations.
+ * It keeps the summary of each build result by id, and secondary indexes by repository, branch, commit
+ * and execution date, so the queries only visit the matching build results instead of scanning the whole
+ * history. The summaries have all the fields the queries filter by, so a query is answered without
+ * reading the test cases of the build results.
+ *
+ * The build results are ordered by execution date and then by id, so the pages of a query are stable.
+ * Writes are serialized so the secondary indexes are always consistent, reads never block.
+ */
+class BuildResultIndex {
+
+    private static final String OWNER = "owner";
+    private static final String REPO = "repo";
+    private static final String BRANCH = "branch";
+    private static final String COMMIT = "commit";
+    private static final String SEPARATOR = "/";
+
+    // Ascending order of the build results, by execution date and then by id.
+    private static final Comparator<PersistedBuildSummary> ORDER = Comparator
+            .comparingLong(BuildResultIndex::getExecutionDate)
+            .thenComparing(PersistedBuildSummary::getId);
+
+    private final Map<String, PersistedBuildSummary> summaries = new ConcurrentHashMap<>();
+
+    // Secondary indexes, from the indexed value to the ids of the build results.
+    private final Map<String, Set<String>> byRepository = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byBranch = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byCommit = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, NavigableSet<String>> byExecutionDate = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    /**
+     * Adds the summary of a build result to the index, replacing the previous one with the same id.
+     *
+     * @param summary of the build result.
+     */
+    synchronized void put(PersistedBuildSummary summary) {
+        final PersistedBuildSummary previous = summaries.put(summary.getId(), summary);
+        if(previous != null)
+            unindex(previous);
+        index(summary);
+    }
+
+    /**
+     * Removes a build result from the index.
+     *
+     * @param id of the build result.
+     * @return the summary of the removed build result, null if it was not indexed.
+     */
+    synchronized PersistedBuildSummary remove(String id) {
+        final PersistedBuildSummary removed = summaries.remove(id);
+        if(removed != null)
+            unindex(removed);
+        return removed;
+    }
+
+    synchronized void clear() {
+        summaries.clear();
+        byRepository.clear();
+        byBranch.clear();
+        byCommit.clear();
+        byExecutionDate.clear();
+    }
+
+    Optional<PersistedBuildSummary> get(String id) {
+        return Optional.ofNullable(summaries.get(id));
+    }
+
+    boolean contains(String id) {
+        return summaries.containsKey(id);
+    }
+
+    int size() {
+        return summaries.size();
+    }
+
+    /**
+     * Gets all the summaries, the most recent execution first.
+     *
+     * @return the summaries.
+     */
+    List<PersistedBuildSummary> findAll() {
+        return collect(byExecutionDate);
+    }
+
+    List<PersistedBuildSummary> findForRepository(String owner, String repo) {
+        return sortByExecutionDate(byRepository.get(repositoryKey(owner, repo)));
+    }
+
+    List<PersistedBuildSummary> findForBranch(String owner, String repo, String branch) {
+        return sortByExecutionDate(byBranch.get(branchKey(owner, repo, branch)));
+    }
+
+    List<PersistedBuildSummary> findForCommit(String commit) {
+        return sortByExecutionDate(byCommit.get(commit));
+    }
+
+    List<PersistedBuildSummary> findBetween(long from, long to) {
+        if(from > to)
+            return new ArrayList<>();
+        // The date index is in descending order, so the range goes from the last date to the first one.
+        return collect(byExecutionDate.subMap(to, true, from, true));
+    }
+
+    /**
+     * Finds a page of the summaries that match the filters of a query, in the order of the query.
+     *
+     * @param query with the filters, the order and the position of the page.
+     * @return the page of summaries and the cursor of the following one.
+     */
+    BuildResultPage<PersistedBuildSummary> find(BuildResultQuery query) {
+        final List<PersistedBuildSummary> page = candidates(query)
+                .filter(summary -> matches(query, summary))
+                .filter(summary -> isAfterCursor(query, summary))
+                .limit(query.getLimit() + 1L)
+                .collect(Collectors.toList());
+
+        // One more result than the limit is fetched just to know if there is a following page.
+        if(page.size() <= query.getLimit())
+            return BuildResultPage.from(page, null);
+
+        final List<PersistedBuildSummary> results = new ArrayList<>(page.subList(0, query.getLimit()));
+        final PersistedBuildSummary last = results.get(results.size() - 1);
+        return BuildResultPage.from(results, BuildResultQuery.encodeCursor(getExecutionDate(last), last.getId()));
+    }
+
+    /**
+     * Adds a summary to the secondary indexes.
+     *
+     * @param summary to index.
+     */
+    private void index(PersistedBuildSummary summary) {
+        final Map<String, String> metadata = summary.getMetadata();
+        final String id = summary.getId();
+        addToIndex(byRepository, repositoryKey(metadata.get(OWNER), metadata.get(REPO)), id);
+        addToIndex(byBranch, branchKey(metadata.get(OWNER), metadata.get(REPO), metadata.get(BRANCH)), id);
+        addToIndex(byCommit, metadata.get(COMMIT), id);
+        byExecutionDate.computeIfAbsent(getExecutionDate(summary), k -> new ConcurrentSkipListSet<>()).add(id);
+    }
+
+    /**
+     * Removes a summary from the secondary indexes.
+     *
+     * @param summary to remove.
+     */
+    private void unindex(PersistedBuildSummary summary) {
+        final Map<String, String> metadata = summary.getMetadata();
+        final String id = summary.getId();
+        removeFromIndex(byRepository, repositoryKey(metadata.get(OWNER), metadata.get(REPO)), id);
+        removeFromIndex(byBranch, branchKey(metadata.get(OWNER), metadata.get(REPO), metadata.get(BRANCH)), id);
+        removeFromIndex(byCommit, metadata.get(COMMIT), id);
+        removeFromIndex(byExecutionDate, getExecutionDate(summary), id);
+    }
+
+    private void addToIndex(Map<String, Set<String>> index, String key, String id) {
+        if(key != null)
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private <K, S extends Set<String>> void removeFromIndex(Map<K, S> index, K key, String id) {
+        if(key == null)
+            return;
+        final S ids = index.get(key);
+        if(ids != null) {
+            ids.remove(id);
+            if(ids.isEmpty())
+                index.remove(key);
+        }
+    }
+
+    /**
+     * Gets the summaries of the ids of a descending date index, the most recent execution first.
+     *
+     * @param dateIndex from the execution date to the ids of the build results.
+     * @return summaries.
+     */
+    private List<PersistedBuildSummary> collect(Map<Long, NavigableSet<String>> dateIndex) {
+        final List<PersistedBuildSummary> results = new ArrayList<>();
+        for(NavigableSet<String> ids : dateIndex.values()) {
+            for(String id : ids.descendingSet()) {
+                final PersistedBuildSummary summary = summaries.get(id);
+                if(summary != null)
+                    results.add(summary);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the summaries of a set of ids, the most recent execution first.
+     *
+     * @param ids of the build results.
+     * @return summaries.
+     */
+    private List<PersistedBuildSummary> sortByExecutionDate(Set<String> ids) {
+        if(ids == null)
+            return new ArrayList<>();
+        return sorted(ids, ORDER.reversed()).collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the summaries that may match a query, in the order of the query.
+     * The most selective index available for the filters of the query is used, if there is none
+     * the execution date index is walked lazily from the position of the cursor.
+     *
+     * @param query with the filters and the order.
+     * @return ordered stream of candidate summaries.
+     */
+    private Stream<PersistedBuildSummary> candidates(BuildResultQuery query) {
+        final Comparator<PersistedBuildSummary> order = query.isAscending() ? ORDER : ORDER.reversed();
+
+        final String branchKey = branchKey(query.getOwner(), query.getRepo(), query.getBranch());
+        if(branchKey != null)
+            return sorted(byBranch.get(branchKey), order);
+        final String repositoryKey = repositoryKey(query.getOwner(), query.getRepo());
+        if(repositoryKey != null)
+            return sorted(byRepository.get(repositoryKey), order);
+
+        long first = query.getFrom() != null ? query.getFrom() : Long.MIN_VALUE;
+        long last = query.getTo() != null ? query.getTo() : Long.MAX_VALUE;
+        final Long cursorDate = query.getCursorExecutionDate();
+        if(cursorDate != null) {
+            if(query.isAscending())
+                first = Math.max(first, cursorDate);
+            else
+                last = Math.min(last, cursorDate);
+        }
+        if(first > last)
+            return Stream.empty();
+
+        // The date index is in descending order.
+        final NavigableMap<Long, NavigableSet<String>> dates = query.isAscending()
+                ? byExecutionDate.subMap(last, true, first, true).descendingMap()
+                : byExecutionDate.subMap(last, true, first, true);
+        return dates.values().stream()
+                .flatMap(ids -> (query.isAscending() ? ids : ids.descendingSet()).stream())
+                .map(summaries::get)
+                .filter(Objects::nonNull);
+    }
+
+    private Stream<PersistedBuildSummary> sorted(Set<String> ids, Comparator<PersistedBuildSummary> order) {
+        if(ids == null)
+            return Stream.empty();
+        return ids.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .sorted(order);
+    }
+
+    /**
+     * Checks if a summary matches the filters of a query.
+     *
+     * @param query   with the filters.
+     * @param summary to check.
+     * @return true if the summary matches all the filters of the query.
+     */
+    private boolean matches(BuildResultQuery query, PersistedBuildSummary summary) {
+        final Map<String, String> metadata = summary.getMetadata();
+        final long executionDate = getExecutionDate(summary);
+        return (query.getOwner() == null || query.getOwner().equals(metadata.get(OWNER)))
+                && (query.getRepo() == null || query.getRepo().equals(metadata.get(REPO)))
+                && (query.getBranch() == null || query.getBranch().equals(metadata.get(BRANCH)))
+                && (query.getStatus() == null || query.getStatus() == summary.getStatus())
+                && (query.getFrom() == null || executionDate >= query.getFrom())
+                && (query.getTo() == null || executionDate <= query.getTo());
+    }
+
+    /**
+     * Checks if a summary goes after the position of the cursor of a query.
+     *
+     * @param query   with the cursor and the order.
+     * @param summary to check.
+     * @return true if the query has no cursor or the summary goes after it.
+     */
+    private boolean isAfterCursor(BuildResultQuery query, PersistedBuildSummary summary) {
+        if(query.getCursor() == null)
+            return true;
+        final long executionDate = getExecutionDate(summary);
+        final long cursorDate = query.getCursorExecutionDate();
+        final int comparison = executionDate != cursorDate
+                ? Long.compare(executionDate, cursorDate)
+                : summary.getId().compareTo(query.getCursorId());
+        return query.isAscending() ? comparison > 0 : comparison < 0;
+    }
+
+    /**
+     * Gets the execution date of a build result from its summary.
+     *
+     * @param summary of the build result.
+     * @return execution date in milliseconds, 0 if the build result has no valid execution date.
+     */
+    static long getExecutionDate(PersistedBuildSummary summary) {
+        final Long date = summary.getExecutionDate();
+        return date != null ? date : 0L;
+    }
+
+    private static String repositoryKey(String owner, String repo) {
+        return owner == null || repo == null ? null : owner + SEPARATOR + repo;
+    }
+
+    private static String branchKey(String owner, String repo, String branch) {
+        final String repository = repositoryKey(owner, repo);
+        return repository == null || branch == null ? null : repository + SEPARATOR + branch;
+    }
+}
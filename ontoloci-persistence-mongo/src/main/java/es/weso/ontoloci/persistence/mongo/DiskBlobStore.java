@@ -0,0 +1,192 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import es.weso.ontoloci.persistence.BlobStore;
+import es.weso.ontoloci.persistence.utils.HashUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Blob store backed by an append only {@link RecordLog}. The header of each record is the hash of the content
+ * and the body is the content itself, so opening the store only reads the hashes.
+ *
+ * New contents are kept in memory until the next {@link #flush()}, that writes all of them in a single batch.
+ * Removed contents are only dropped from the index, their space is reclaimed by {@link #compact(Set)}, that
+ * copies the live contents to a new file and replaces the log with it.
+ */
+class DiskBlobStore implements BlobStore, Closeable {
+
+    private final Path path;
+    private volatile RecordLog log;
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+    // The readers hold the read lock while they use an offset, so a compaction does not replace the log under them.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Opens the blob store of a file, creating it if it does not exist.
+     *
+     * @param path of the file.
+     * @return the blob store.
+     * @throws IOException if the file can not be opened or read.
+     */
+    static DiskBlobStore open(Path path) throws IOException {
+        final Map<String, Long> offsets = new ConcurrentHashMap<>();
+        final RecordLog log = RecordLog.open(path, (offset, header) ->
+                offsets.put(new String(header, StandardCharsets.US_ASCII), offset));
+        return new DiskBlobStore(path, log, offsets);
+    }
+
+    private DiskBlobStore(Path path, RecordLog log, Map<String, Long> offsets) {
+        this.path = path;
+        this.log = log;
+        this.offsets.putAll(offsets);
+    }
+
+    // Synchronized with the compaction, so a content is not taken as stored while it is being removed.
+    @Override
+    public synchronized String put(String content) {
+        final String hash = HashUtils.sha256(content);
+        if(!offsets.containsKey(hash))
+            pending.putIfAbsent(hash, content);
+        return hash;
+    }
+
+    @Override
+    public Optional<String> get(String hash) {
+        final String content = pending.get(hash);
+        if(content != null)
+            return Optional.of(content);
+
+        lock.readLock().lock();
+        try {
+            final Long offset = offsets.get(hash);
+            if(offset == null)
+                return Optional.empty();
+            return Optional.of(new String(log.readBody(offset), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Synchronized with the writes, so a flush does not store a content that is being removed.
+    @Override
+    public synchronized void retainAll(Set<String> hashes) {
+        offsets.keySet().retainAll(hashes);
+        pending.keySet().retainAll(hashes);
+    }
+
+    @Override
+    public int size() {
+        return offsets.size() + pending.size();
+    }
+
+    /**
+     * Writes the pending contents to disk.
+     *
+     * @throws IOException if the contents can not be written.
+     */
+    synchronized void flush() throws IOException {
+        if(pending.isEmpty())
+            return;
+
+        final List<String> hashes = new ArrayList<>(pending.size());
+        final List<byte[]> headers = new ArrayList<>(pending.size());
+        final List<byte[]> bodies = new ArrayList<>(pending.size());
+        for(Map.Entry<String, String> entry : pending.entrySet()) {
+            hashes.add(entry.getKey());
+            headers.add(entry.getKey().getBytes(StandardCharsets.US_ASCII));
+            bodies.add(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+
+        final long[] written = log.append(headers, bodies);
+        for(int i = 0; i < hashes.size(); i++) {
+            offsets.put(hashes.get(i), written[i]);
+            pending.remove(hashes.get(i));
+        }
+    }
+
+    /**
+     * Removes the contents that are not live and reclaims their space on disk. The live contents are copied
+     * to a new file that replaces the log, the contents can be read while they are copied.
+     *
+     * @param live hashes of the contents to keep.
+     * @return number of bytes reclaimed.
+     * @throws IOException if the contents can not be copied or the log can not be replaced.
+     */
+    synchronized long compact(Set<String> live) throws IOException {
+        flush();
+        final long before = log.size();
+        final Path compactedPath = path.resolveSibling(path.getFileName() + RecordLog.COMPACTION_SUFFIX);
+        Files.deleteIfExists(compactedPath);
+        try(RecordLog compacted = RecordLog.open(compactedPath, (offset, header) -> {})) {
+            final List<byte[]> headers = new ArrayList<>();
+            final List<byte[]> bodies = new ArrayList<>();
+            for(Map.Entry<String, Long> entry : offsets.entrySet()) {
+                if(!live.contains(entry.getKey()))
+                    continue;
+                headers.add(entry.getKey().getBytes(StandardCharsets.US_ASCII));
+                bodies.add(log.readBody(entry.getValue()));
+                if(headers.size() == RecordLog.COPY_BATCH_SIZE) {
+                    compacted.append(headers, bodies);
+                    headers.clear();
+                    bodies.clear();
+                }
+            }
+            if(!headers.isEmpty())
+                compacted.append(headers, bodies);
+        }
+
+        lock.writeLock().lock();
+        try {
+            final Map<String, Long> compactedOffsets = new HashMap<>();
+            log = RecordLog.replace(log, compactedPath, path, (offset, header) ->
+                    compactedOffsets.put(new String(header, StandardCharsets.US_ASCII), offset));
+            offsets.clear();
+            offsets.putAll(compactedOffsets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return before - log.size();
+    }
+
+    /**
+     * Removes all the contents, in memory and on disk.
+     *
+     * @throws IOException if the file can not be truncated.
+     */
+    synchronized void clear() throws IOException {
+        pending.clear();
+        lock.writeLock().lock();
+        try {
+            offsets.clear();
+            log.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the size of the file of the store.
+     *
+     * @return size in bytes.
+     */
+    long sizeOnDisk() {
+        return log.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        log.close();
+    }
+}
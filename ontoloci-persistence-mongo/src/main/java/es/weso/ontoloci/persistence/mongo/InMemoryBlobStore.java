@@ -0,0 +1,48 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import es.weso.ontoloci.persistence.BlobStore;
+import es.weso.ontoloci.persistence.utils.HashUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory implementation of the blob store, the contents are kept in a concurrent map by hash.
+ */
+public class InMemoryBlobStore implements BlobStore {
+
+    private final Map<String, String> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public String put(String content) {
+        final String hash = HashUtils.sha256(content);
+        blobs.putIfAbsent(hash, content);
+        return hash;
+    }
+
+    @Override
+    public Optional<String> get(String hash) {
+        return Optional.ofNullable(blobs.get(hash));
+    }
+
+    /**
+     * Removes a stored content.
+     *
+     * @param hash of the content.
+     */
+    public void remove(String hash) {
+        blobs.remove(hash);
+    }
+
+    @Override
+    public void retainAll(Set<String> hashes) {
+        blobs.keySet().retainAll(hashes);
+    }
+
+    @Override
+    public int size() {
+        return blobs.size();
+    }
+}
@@ -0,0 +1,114 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import es.weso.ontoloci.persistence.BlobStore;
+import es.weso.ontoloci.persistence.utils.HashUtils;
+import org.bson.Document;
+
+import java.util.*;
+
+/**
+ * Blob store backed by a Mongo collection, each content is a document whose id is the hash of the content.
+ * Each time a content is put its last use time is updated, so a compaction does not remove the contents that
+ * were put recently by a build that may still be saving its test cases.
+ */
+class MongoBlobStore implements BlobStore {
+
+    static final String CONTENT = "content";
+    static final String LAST_USED = "lastUsed";
+
+    // Number of contents removed with each delete of a compaction.
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    // Duplicate key error, when two builds insert the same content at the same time.
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoCollection<Document> blobs;
+
+    MongoBlobStore(MongoCollection<Document> blobs) {
+        this.blobs = blobs;
+    }
+
+    @Override
+    public String put(String content) {
+        final String hash = HashUtils.sha256(content);
+        putAll(Collections.singletonMap(hash, content));
+        return hash;
+    }
+
+    /**
+     * Stores a batch of contents with a single bulk write, the contents that are already stored are skipped.
+     *
+     * @param contents by hash.
+     */
+    void putAll(Map<String, String> contents) {
+        if(contents.isEmpty())
+            return;
+
+        final long now = System.currentTimeMillis();
+        final List<WriteModel<Document>> writes = new ArrayList<>(contents.size());
+        for(Map.Entry<String, String> entry : contents.entrySet()) {
+            writes.add(new UpdateOneModel<>(
+                    Filters.eq("_id", entry.getKey()),
+                    Updates.combine(Updates.setOnInsert(CONTENT, entry.getValue()), Updates.set(LAST_USED, now)),
+                    new UpdateOptions().upsert(true)));
+        }
+        try {
+            blobs.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for(BulkWriteError error : e.getWriteErrors()) {
+                if(error.getCode() != DUPLICATE_KEY)
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public Optional<String> get(String hash) {
+        final Document blob = blobs.find(Filters.eq("_id", hash)).first();
+        return blob == null ? Optional.empty() : Optional.ofNullable(blob.getString(CONTENT));
+    }
+
+    @Override
+    public void retainAll(Set<String> hashes) {
+        blobs.deleteMany(Filters.nin("_id", hashes));
+    }
+
+    /**
+     * Removes the contents that are not referenced and were last used before a time.
+     *
+     * @param referenced hashes of the contents referenced by the build results.
+     * @param time       limit of the last use of the removed contents, in milliseconds. It must be earlier than the
+     *                   start of the collection of the references by more than the time a build takes to save.
+     * @return number of removed contents.
+     */
+    long removeUnused(Set<String> referenced, long time) {
+        long removed = 0;
+        final List<String> unused = new ArrayList<>(DELETE_BATCH_SIZE);
+        for(Document blob : blobs.find(Filters.lt(LAST_USED, time)).projection(Projections.include("_id"))) {
+            if(!referenced.contains(blob.getString("_id")))
+                unused.add(blob.getString("_id"));
+            if(unused.size() == DELETE_BATCH_SIZE) {
+                removed += blobs.deleteMany(Filters.and(Filters.in("_id", unused), Filters.lt(LAST_USED, time))).getDeletedCount();
+                unused.clear();
+            }
+        }
+        if(!unused.isEmpty())
+            removed += blobs.deleteMany(Filters.and(Filters.in("_id", unused), Filters.lt(LAST_USED, time))).getDeletedCount();
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return (int) blobs.countDocuments();
+    }
+}
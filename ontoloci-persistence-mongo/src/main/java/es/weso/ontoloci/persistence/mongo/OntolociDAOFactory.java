@@ -0,0 +1,102 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import es.weso.ontoloci.persistence.OntolociDAO;
+import es.weso.ontoloci.persistence.RetentionPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the DAO shared by the workers and the API, selected with the following system properties:
+ *
+ *  - ontoloci.persistence                  memory, disk or mongo (default memory)
+ *  - ontoloci.persistence.dir              directory of the disk DAO (default ontoloci-data)
+ *  - ontoloci.persistence.mongo.uri        connection string of the Mongo DAO (default mongodb://localhost:27017)
+ *  - ontoloci.persistence.mongo.database   database of the Mongo DAO (default ontoloci)
+ *
+ * The disk DAO and the Mongo client are closed when the JVM shuts down, so the pending writes are flushed.
+ *
+ * A {@link RetentionPolicy} is applied to the DAO in the background, configured with:
+ *
+ *  - ontoloci.retention.buildsPerBranch    most recent build results kept per branch, 0 keeps all (default 100)
+ *  - ontoloci.retention.contentsDays       days the test case contents are kept, 0 keeps all (default 30)
+ *  - ontoloci.retention.interval           minutes between two applications, 0 disables it (default 60)
+ */
+public class OntolociDAOFactory {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(OntolociDAOFactory.class);
+
+    private static final String MEMORY = "memory";
+    private static final String DISK = "disk";
+    private static final String MONGO = "mongo";
+
+    private static final int BUILDS_PER_BRANCH = Integer.getInteger("ontoloci.retention.buildsPerBranch", 100);
+    private static final int CONTENTS_DAYS = Integer.getInteger("ontoloci.retention.contentsDays", 30);
+    private static final int RETENTION_INTERVAL = Integer.getInteger("ontoloci.retention.interval", 60);
+
+    private OntolociDAOFactory() {}
+
+    /**
+     * Gets the configured DAO.
+     *
+     * @return the shared DAO instance.
+     */
+    public static OntolociDAO getDAO() {
+        return Holder.INSTANCE;
+    }
+
+    private static OntolociDAO createDAO() {
+        final String type = System.getProperty("ontoloci.persistence", MEMORY);
+        if(MEMORY.equalsIgnoreCase(type))
+            return OntolociInMemoryDAO.instance();
+        if(MONGO.equalsIgnoreCase(type))
+            return createMongoDAO();
+        if(!DISK.equalsIgnoreCase(type))
+            throw new IllegalArgumentException(String.format("unknown persistence [%s], expected %s, %s or %s", type, MEMORY, DISK, MONGO));
+
+        final String directory = System.getProperty("ontoloci.persistence.dir", "ontoloci-data");
+        try {
+            final OntolociDiskDAO dao = OntolociDiskDAO.open(Paths.get(directory));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dao.close();
+                } catch (IOException e) {
+                    LOGGER.error(String.format("Error closing the disk DAO at [%s]", directory), e);
+                }
+            }, "ontoloci-disk-dao-shutdown"));
+            return dao;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("can not open the disk DAO at [%s]", directory), e);
+        }
+    }
+
+    private static OntolociDAO createMongoDAO() {
+        final String uri = System.getProperty("ontoloci.persistence.mongo.uri", "mongodb://localhost:27017");
+        final String database = System.getProperty("ontoloci.persistence.mongo.database", "ontoloci");
+        LOGGER.info(String.format("Using the Mongo DAO on the database [%s]", database));
+
+        final MongoClient client = MongoClients.create(uri);
+        Runtime.getRuntime().addShutdownHook(new Thread(client::close, "ontoloci-mongo-dao-shutdown"));
+        return OntolociMongoDAO.from(client, database);
+    }
+
+    private static OntolociDAO startRetention(OntolociDAO dao) {
+        if(RETENTION_INTERVAL > 0) {
+            RetentionPolicy.from(dao, BUILDS_PER_BRANCH, TimeUnit.DAYS.toMillis(CONTENTS_DAYS))
+                    .start(RETENTION_INTERVAL, TimeUnit.MINUTES);
+        }
+        return dao;
+    }
+
+    // Lazy initialization, the DAO is only created when it is first requested.
+    private static class Holder {
+        private static final OntolociDAO INSTANCE = startRetention(createDAO());
+    }
+}
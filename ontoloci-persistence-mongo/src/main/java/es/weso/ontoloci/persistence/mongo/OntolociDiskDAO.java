@@ -0,0 +1,524 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import es.weso.ontoloci.persistence.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Disk backed implementation of the ontoloci DAO, it runs embedded in the process and does not need any
+ * external service.
+ *
+ * The build results are appended to a log file, and the contents of their test cases to a content addressed
+ * blob log, so each distinct ontology or schema is written once. Each build record starts with the summary of
+ * the build result, and when the DAO is opened only those summaries are read to rebuild the
+ * {@link BuildResultIndex}, the test cases are read from disk when a build result is requested.
+ *
+ * Writes are batched: the records are kept in memory, where they can already be read, until they are flushed
+ * together, forcing the files to disk once per batch. A batch is flushed when it reaches the batch size, every
+ * flush interval, and when the DAO is closed.
+ *
+ * Removed and replaced build results, and the contents no longer referenced, stay on disk until the DAO is
+ * compacted, then the live records are copied to new files that replace the logs.
+ *
+ * The DAO can be configured with the following system properties:
+ *
+ *  - ontoloci.persistence.batchSize        number of records that triggers a flush (default 32)
+ *  - ontoloci.persistence.flushInterval    maximum time in milliseconds a record waits to be flushed (default 100)
+ */
+public class OntolociDiskDAO implements OntolociDAO, Closeable {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(OntolociDiskDAO.class);
+
+    static final String BUILDS_FILE = "builds.log";
+    static final String BLOBS_FILE = "blobs.log";
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private static final int BATCH_SIZE = Integer.getInteger("ontoloci.persistence.batchSize", 32);
+    private static final long FLUSH_INTERVAL = Long.getLong("ontoloci.persistence.flushInterval", 100L);
+
+    private final Path directory;
+    private volatile RecordLog log;
+    private final DiskBlobStore blobs;
+    private final BuildResultIndex index;
+
+    // Offsets of the flushed build records, and bodies of the build records waiting to be flushed.
+    private final Map<String, Long> offsets;
+    private final Map<String, byte[]> pendingBodies = new ConcurrentHashMap<>();
+
+    // Records waiting to be flushed, guarded by this.
+    private final List<byte[]> pendingHeaders = new ArrayList<>();
+    private final List<byte[]> pendingRecords = new ArrayList<>();
+
+    // Only one batch is written at a time, so the batches reach the disk in order.
+    private final Object flushLock = new Object();
+
+    // The readers hold the read lock while they use an offset, so a compaction does not replace the log under them.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Opens the DAO of a directory, creating it if it does not exist and recovering the build results
+     * saved in a previous execution.
+     *
+     * @param directory where the files of the DAO are stored.
+     * @return the opened DAO.
+     * @throws IOException if the files can not be opened or read.
+     */
+    public static OntolociDiskDAO open(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        LOGGER.debug(String.format("NEW Opening the disk DAO at [%s]", directory));
+
+        final DiskBlobStore blobs = DiskBlobStore.open(directory.resolve(BLOBS_FILE));
+        final BuildResultIndex index = new BuildResultIndex();
+        final Map<String, Long> offsets = new ConcurrentHashMap<>();
+        try {
+            final RecordLog log = RecordLog.open(directory.resolve(BUILDS_FILE), (offset, header) -> {
+                final DataInputStream in = RecordCodec.input(header);
+                final byte type = in.readByte();
+                final String id = RecordCodec.readString(in);
+                if(type == PUT) {
+                    index.put(readSummary(id, in));
+                    offsets.put(id, offset);
+                } else if(type == DELETE) {
+                    index.remove(id);
+                    offsets.remove(id);
+                }
+            });
+            LOGGER.debug(String.format("Recovered [%s] build results and [%s] contents from [%s]", index.size(), blobs.size(), directory));
+            return new OntolociDiskDAO(directory, log, blobs, index, offsets);
+        } catch (IOException | RuntimeException e) {
+            blobs.close();
+            throw e;
+        }
+    }
+
+    private OntolociDiskDAO(Path directory, RecordLog log, DiskBlobStore blobs, BuildResultIndex index, Map<String, Long> offsets) {
+        this.directory = directory;
+        this.log = log;
+        this.blobs = blobs;
+        this.index = index;
+        this.offsets = offsets;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ontoloci-disk-dao-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<PersistedBuildResult> findAllBuildResults() {
+        return load(index.findAll());
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForRepository(String owner, String repo) {
+        return load(index.findForRepository(owner, repo));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForBranch(String owner, String repo, String branch) {
+        return load(index.findForBranch(owner, repo, branch));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForCommit(String commit) {
+        return load(index.findForCommit(commit));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsBetween(long from, long to) {
+        return load(index.findBetween(from, to));
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildResult> findBuildResults(BuildResultQuery query) {
+        final BuildResultPage<PersistedBuildSummary> page = index.find(query);
+        return BuildResultPage.from(load(page.getBuildResults()), page.getNextCursor());
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildSummary> findBuildSummaries(BuildResultQuery query) {
+        return index.find(query);
+    }
+
+    @Override
+    public Optional<PersistedBuildResult> findBuildResultForId(String id) {
+        try {
+            byte[] body = pendingBodies.get(id);
+            if(body == null) {
+                lock.readLock().lock();
+                try {
+                    final Long offset = offsets.get(id);
+                    if(offset == null)
+                        return Optional.empty();
+                    body = log.readBody(offset);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            return Optional.of(readBuildResult(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(PersistedBuildResult buildResult) {
+        final boolean full;
+        synchronized (this) {
+            if(Objects.isNull(buildResult.getId())) {
+                buildResult.setId(Long.toString(System.nanoTime()));
+            }
+            final PersistedBuildSummary summary = PersistedBuildSummary.from(buildResult);
+            final byte[] header = encode(out -> {
+                out.writeByte(PUT);
+                RecordCodec.writeString(out, buildResult.getId());
+                writeSummary(out, summary);
+            });
+            final byte[] body = encode(out -> writeBuildResult(out, buildResult));
+
+            pendingBodies.put(buildResult.getId(), body);
+            pendingHeaders.add(header);
+            pendingRecords.add(body);
+            index.put(summary);
+            full = pendingRecords.size() >= BATCH_SIZE;
+        }
+        if(full)
+            flushQuietly();
+    }
+
+    @Override
+    public void update(PersistedBuildResult buildResult) {
+        this.save(buildResult);
+    }
+
+    @Override
+    public void remove(PersistedBuildResult buildResult) {
+        final boolean full;
+        synchronized (this) {
+            if(index.remove(buildResult.getId()) == null)
+                return;
+            pendingBodies.remove(buildResult.getId());
+            offsets.remove(buildResult.getId());
+            pendingHeaders.add(encode(out -> {
+                out.writeByte(DELETE);
+                RecordCodec.writeString(out, buildResult.getId());
+            }));
+            pendingRecords.add(new byte[0]);
+            full = pendingRecords.size() >= BATCH_SIZE;
+        }
+        if(full)
+            flushQuietly();
+    }
+
+    @Override
+    public void removeAll() {
+        synchronized (flushLock) {
+            synchronized (this) {
+                pendingHeaders.clear();
+                pendingRecords.clear();
+                pendingBodies.clear();
+                index.clear();
+                // The readers may be using an offset, so the log is not truncated under them.
+                lock.writeLock().lock();
+                try {
+                    offsets.clear();
+                    log.clear();
+                    blobs.clear();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the live build records and the contents they reference to new files that replace the logs, so
+     * the space of the removed build results and of the unreferenced contents is reclaimed. The build results
+     * can be read during the compaction, but the writes wait until it finishes.
+     */
+    @Override
+    public void compact() {
+        synchronized (flushLock) {
+            synchronized (this) {
+                try {
+                    flush();
+                    final long before = log.size();
+                    final Set<String> referenced = compactBuilds();
+                    final long reclaimed = blobs.compact(referenced);
+                    LOGGER.info(String.format("Compacted [%s], reclaimed [%s] bytes of build results and [%s] bytes of contents",
+                            directory, before - log.size(), reclaimed));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(String.format("can not compact the disk DAO at [%s]", directory), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the last record of each build result to a new log that replaces the current one.
+     *
+     * @return the hashes of the contents referenced by the build results.
+     */
+    private Set<String> compactBuilds() throws IOException {
+        final Set<String> referenced = new HashSet<>();
+        final Path path = directory.resolve(BUILDS_FILE);
+        final Path compactedPath = directory.resolve(BUILDS_FILE + RecordLog.COMPACTION_SUFFIX);
+        Files.deleteIfExists(compactedPath);
+        try(RecordLog compacted = RecordLog.open(compactedPath, (offset, header) -> {})) {
+            final List<byte[]> headers = new ArrayList<>();
+            final List<byte[]> bodies = new ArrayList<>();
+            for(Map.Entry<String, Long> entry : offsets.entrySet()) {
+                final PersistedBuildSummary summary = index.get(entry.getKey()).get();
+                final byte[] body = log.readBody(entry.getValue());
+                collectHashes(body, referenced);
+                headers.add(encode(out -> {
+                    out.writeByte(PUT);
+                    RecordCodec.writeString(out, summary.getId());
+                    writeSummary(out, summary);
+                }));
+                bodies.add(body);
+                if(headers.size() == RecordLog.COPY_BATCH_SIZE) {
+                    compacted.append(headers, bodies);
+                    headers.clear();
+                    bodies.clear();
+                }
+            }
+            if(!headers.isEmpty())
+                compacted.append(headers, bodies);
+        }
+
+        lock.writeLock().lock();
+        try {
+            final Map<String, Long> compactedOffsets = new HashMap<>();
+            log = RecordLog.replace(log, compactedPath, path, (offset, header) -> {
+                final DataInputStream in = RecordCodec.input(header);
+                in.readByte();
+                compactedOffsets.put(RecordCodec.readString(in), offset);
+            });
+            offsets.clear();
+            offsets.putAll(compactedOffsets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return referenced;
+    }
+
+    /**
+     * Writes the pending records to disk. The contents of the test cases are written before the build
+     * records that reference them.
+     *
+     * @throws IOException if the records can not be written.
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            final List<byte[]> headers;
+            final List<byte[]> bodies;
+            synchronized (this) {
+                if(pendingRecords.isEmpty())
+                    return;
+                headers = new ArrayList<>(pendingHeaders);
+                bodies = new ArrayList<>(pendingRecords);
+                pendingHeaders.clear();
+                pendingRecords.clear();
+            }
+
+            blobs.flush();
+            final long[] written = log.append(headers, bodies);
+
+            synchronized (this) {
+                for(int i = 0; i < headers.size(); i++) {
+                    final DataInputStream in = RecordCodec.input(headers.get(i));
+                    if(in.readByte() != PUT)
+                        continue;
+                    final String id = RecordCodec.readString(in);
+                    // Only if the build result was not saved again or removed while the batch was written. The
+                    // offset is set before the body is removed, so the readers always find one of them.
+                    if(pendingBodies.get(id) == bodies.get(i)) {
+                        offsets.put(id, written[i]);
+                        pendingBodies.remove(id);
+                    }
+                }
+            }
+            LOGGER.debug(String.format("Flushed [%s] records to [%s]", headers.size(), directory));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error(String.format("Error flushing the build results to [%s]", directory), e);
+        }
+    }
+
+    /**
+     * Flushes the pending records and closes the files.
+     *
+     * @throws IOException if the records can not be written or the files can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flush();
+        } finally {
+            log.close();
+            blobs.close();
+        }
+    }
+
+    /**
+     * Gets the blob store where the contents of the test cases are stored.
+     *
+     * @return the blob store.
+     */
+    public BlobStore getBlobStore() {
+        return blobs;
+    }
+
+    /**
+     * Loads the build results of a list of summaries, in the same order.
+     *
+     * @param summaries of the build results.
+     * @return build results.
+     */
+    private List<PersistedBuildResult> load(List<PersistedBuildSummary> summaries) {
+        final List<PersistedBuildResult> results = new ArrayList<>(summaries.size());
+        for(PersistedBuildSummary summary : summaries) {
+            findBuildResultForId(summary.getId()).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    private static void writeSummary(DataOutput out, PersistedBuildSummary summary) throws IOException {
+        RecordCodec.writeMap(out, summary.getMetadata());
+        RecordCodec.writeEnum(out, summary.getStatus());
+        out.writeInt(summary.getTotal());
+        out.writeInt(summary.getPassed());
+        out.writeInt(summary.getFailed());
+    }
+
+    private static PersistedBuildSummary readSummary(String id, DataInput in) throws IOException {
+        final Map<String, String> metadata = RecordCodec.readMap(in);
+        final PersistedBuildResultStatus status = RecordCodec.readEnum(in, PersistedBuildResultStatus.class);
+        return PersistedBuildSummary.from(id, metadata, status, in.readInt(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * Writes a build result, the contents of its test cases are stored in the blob store and only their
+     * hashes are written.
+     */
+    private void writeBuildResult(DataOutput out, PersistedBuildResult buildResult) throws IOException {
+        RecordCodec.writeString(out, buildResult.getId());
+        RecordCodec.writeMap(out, buildResult.getMetadata());
+        RecordCodec.writeEnum(out, buildResult.getStatus());
+
+        final Collection<PersistedTestCaseResult> testCaseResults = buildResult.getTestCaseResults();
+        out.writeInt(testCaseResults.size());
+        for(PersistedTestCaseResult testCaseResult : testCaseResults) {
+            final PersistedTestCase testCase = testCaseResult.getTestCase();
+            RecordCodec.writeString(out, testCase.getName());
+            writeContent(out, testCase.getOntology());
+            writeContent(out, testCase.getInstances());
+            writeContent(out, testCase.getSchema());
+            writeContent(out, testCase.getProducedShapeMap());
+            writeContent(out, testCase.getExpectedShapeMap());
+            RecordCodec.writeEnum(out, testCaseResult.getStatus());
+            RecordCodec.writeMap(out, testCaseResult.getMetadata());
+        }
+    }
+
+    private PersistedBuildResult readBuildResult(byte[] body) throws IOException {
+        final DataInputStream in = RecordCodec.input(body);
+        final String id = RecordCodec.readString(in);
+        final Map<String, String> metadata = RecordCodec.readMap(in);
+        final PersistedBuildResultStatus status = RecordCodec.readEnum(in, PersistedBuildResultStatus.class);
+
+        final int size = in.readInt();
+        final List<PersistedTestCaseResult> testCaseResults = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            final PersistedTestCase testCase = PersistedTestCase.from(
+                    RecordCodec.readString(in),
+                    readContent(in),
+                    readContent(in),
+                    readContent(in),
+                    readContent(in),
+                    readContent(in)
+            );
+            final PersistedTestCaseResult testCaseResult = PersistedTestCaseResult.from(testCase);
+            testCaseResult.setStatus(RecordCodec.readEnum(in, PersistedTestCaseResultStatus.class));
+            testCaseResult.setMetadata(RecordCodec.readMap(in));
+            testCaseResults.add(testCaseResult);
+        }
+        return PersistedBuildResult.from(id, metadata, status, testCaseResults);
+    }
+
+    /**
+     * Collects the hashes of the contents referenced by the body of a build record.
+     */
+    private static void collectHashes(byte[] body, Set<String> hashes) throws IOException {
+        final DataInputStream in = RecordCodec.input(body);
+        RecordCodec.readString(in);
+        RecordCodec.readMap(in);
+        RecordCodec.readEnum(in, PersistedBuildResultStatus.class);
+
+        final int size = in.readInt();
+        for(int i = 0; i < size; i++) {
+            RecordCodec.readString(in);
+            // Ontology, instances, schema, produced and expected shape maps.
+            for(int content = 0; content < 5; content++) {
+                final String hash = RecordCodec.readString(in);
+                if(hash != null)
+                    hashes.add(hash);
+            }
+            RecordCodec.readEnum(in, PersistedTestCaseResultStatus.class);
+            RecordCodec.readMap(in);
+        }
+    }
+
+    private void writeContent(DataOutput out, String content) throws IOException {
+        RecordCodec.writeString(out, content == null ? null : blobs.put(content));
+    }
+
+    private PersistedContent readContent(DataInput in) throws IOException {
+        final String hash = RecordCodec.readString(in);
+        return hash == null ? PersistedContent.from(null) : PersistedContent.from(hash, blobs);
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            writer.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // Writing to memory does not fail.
+            throw new UncheckedIOException(e);
+        }
+    }
+}
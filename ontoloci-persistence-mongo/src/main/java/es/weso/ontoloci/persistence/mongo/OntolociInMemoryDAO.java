@@ -1,15 +1,39 @@
 package es.weso.ontoloci.persistence.mongo;
 
+import es.weso.ontoloci.persistence.BlobStore;
+import es.weso.ontoloci.persistence.BuildResultPage;
+import es.weso.ontoloci.persistence.BuildResultQuery;
 import es.weso.ontoloci.persistence.OntolociDAO;
 import es.weso.ontoloci.persistence.PersistedBuildResult;
+import es.weso.ontoloci.persistence.PersistedBuildSummary;
+import es.weso.ontoloci.persistence.PersistedTestCaseResult;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * In memory implementation of the ontoloci DAO.
+ * The build results are stored in concurrent maps, so the workers can save results while the API reads them.
+ * Besides the main map by id, the store keeps a {@link BuildResultIndex} with the summary of each build
+ * result, so the queries only visit the matching build results instead of scanning the whole history, and
+ * listing the summaries does not touch the test cases.
+ *
+ * Writes are serialized so the index is always consistent with the main map, reads never block.
+ * The contents of the test cases are moved to a content addressed blob store, so the memory grows with the
+ * distinct contents and not with the number of builds. Each stored content keeps a count of the test cases that
+ * reference it, so removing or replacing a build result only visits its own test cases.
+ */
 public class OntolociInMemoryDAO implements OntolociDAO {
 
     private static final OntolociInMemoryDAO INSTANCE = new OntolociInMemoryDAO();
 
-    private final Map<String, PersistedBuildResult> db = new HashMap<>();
+    private final Map<String, PersistedBuildResult> db = new ConcurrentHashMap<>();
+    private final BuildResultIndex index = new BuildResultIndex();
+    private final InMemoryBlobStore blobs = new InMemoryBlobStore();
+    // Number of references to each stored content and hashes counted for each build result, only modified by
+    // the synchronized writes.
+    private final Map<String, Integer> references = new HashMap<>();
+    private final Map<String, List<String>> referencedBy = new HashMap<>();
 
     public static OntolociInMemoryDAO instance() {
         return INSTANCE;
@@ -19,7 +43,38 @@ public class OntolociInMemoryDAO implements OntolociDAO {
 
     @Override
     public List<PersistedBuildResult> findAllBuildResults() {
-        return new ArrayList<>(db.values());
+        return resolve(index.findAll());
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForRepository(String owner, String repo) {
+        return resolve(index.findForRepository(owner, repo));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForBranch(String owner, String repo, String branch) {
+        return resolve(index.findForBranch(owner, repo, branch));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForCommit(String commit) {
+        return resolve(index.findForCommit(commit));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsBetween(long from, long to) {
+        return resolve(index.findBetween(from, to));
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildResult> findBuildResults(BuildResultQuery query) {
+        final BuildResultPage<PersistedBuildSummary> page = index.find(query);
+        return BuildResultPage.from(resolve(page.getBuildResults()), page.getNextCursor());
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildSummary> findBuildSummaries(BuildResultQuery query) {
+        return index.find(query);
     }
 
     @Override
@@ -28,11 +83,17 @@ public class OntolociInMemoryDAO implements OntolociDAO {
     }
 
     @Override
-    public void save(PersistedBuildResult buildResult) {
+    public synchronized void save(PersistedBuildResult buildResult) {
         if(Objects.isNull(buildResult.getId())) {
             buildResult.setId(Long.toString(System.nanoTime()));
         }
-        db.put(buildResult.getId(), buildResult);
+        storeContents(buildResult);
+        final PersistedBuildResult previous = db.put(buildResult.getId(), buildResult);
+        index.put(PersistedBuildSummary.from(buildResult));
+        // The replaced build result is loaded before its references are released, so it can still be read.
+        if(previous != null && previous != buildResult)
+            loadContents(previous);
+        addReferences(buildResult);
     }
 
     @Override
@@ -41,12 +102,136 @@ public class OntolociInMemoryDAO implements OntolociDAO {
     }
 
     @Override
-    public void remove(PersistedBuildResult buildResult) {
-        db.remove(buildResult.getId());
+    public synchronized void remove(PersistedBuildResult buildResult) {
+        final PersistedBuildResult removed = db.remove(buildResult.getId());
+        index.remove(buildResult.getId());
+        if(removed != null) {
+            loadContents(removed);
+            releaseReferences(removed.getId());
+        }
     }
 
     @Override
-    public void removeAll() {
+    public synchronized void removeAll() {
+        db.values().forEach(this::loadContents);
         db.clear();
+        index.clear();
+        references.clear();
+        referencedBy.clear();
+        blobs.retainAll(Collections.emptySet());
+    }
+
+    @Override
+    public synchronized void compact() {
+        removeUnreferencedContents();
+    }
+
+    /**
+     * Gets the blob store where the contents of the test cases are stored.
+     *
+     * @return the blob store.
+     */
+    public BlobStore getBlobStore() {
+        return blobs;
+    }
+
+    /**
+     * Gets the build results of a list of summaries, in the same order.
+     *
+     * @param summaries of the build results.
+     * @return build results.
+     */
+    private List<PersistedBuildResult> resolve(List<PersistedBuildSummary> summaries) {
+        final List<PersistedBuildResult> results = new ArrayList<>(summaries.size());
+        for(PersistedBuildSummary summary : summaries) {
+            final PersistedBuildResult result = db.get(summary.getId());
+            if(result != null)
+                results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Moves the contents of the test cases of a build result to the blob store.
+     *
+     * @param buildResult whose contents are stored.
+     */
+    private void storeContents(PersistedBuildResult buildResult) {
+        for(PersistedTestCaseResult testCaseResult : buildResult.getTestCaseResults()) {
+            if(testCaseResult.getTestCase() != null)
+                testCaseResult.getTestCase().storeIn(blobs);
+        }
+    }
+
+    /**
+     * Counts the references of a saved build result to the stored contents, releasing the ones counted when it
+     * was saved before.
+     *
+     * @param buildResult whose references are counted.
+     */
+    private void addReferences(PersistedBuildResult buildResult) {
+        final List<String> hashes = storedHashes(buildResult);
+        for(String hash : hashes)
+            references.merge(hash, 1, Integer::sum);
+        release(referencedBy.put(buildResult.getId(), hashes));
+    }
+
+    /**
+     * Releases the references of a build result that is no longer persisted.
+     *
+     * @param id of the build result.
+     */
+    private void releaseReferences(String id) {
+        release(referencedBy.remove(id));
+    }
+
+    /**
+     * Releases references to stored contents, removing from the blob store the contents that are no longer
+     * referenced.
+     *
+     * @param hashes of the released references, might be null.
+     */
+    private void release(List<String> hashes) {
+        if(hashes == null)
+            return;
+        for(String hash : hashes) {
+            if(references.merge(hash, -1, Integer::sum) <= 0) {
+                references.remove(hash);
+                blobs.remove(hash);
+            }
+        }
+    }
+
+    private List<String> storedHashes(PersistedBuildResult buildResult) {
+        final List<String> hashes = new ArrayList<>();
+        for(PersistedTestCaseResult testCaseResult : buildResult.getTestCaseResults()) {
+            if(testCaseResult.getTestCase() != null)
+                hashes.addAll(testCaseResult.getTestCase().storedHashes());
+        }
+        return hashes;
+    }
+
+    /**
+     * Brings back the contents of the test cases of a build result that is no longer persisted, so
+     * they can still be read after they are removed from the blob store.
+     *
+     * @param buildResult whose contents are loaded.
+     */
+    private void loadContents(PersistedBuildResult buildResult) {
+        for(PersistedTestCaseResult testCaseResult : buildResult.getTestCaseResults()) {
+            if(testCaseResult.getTestCase() != null)
+                testCaseResult.getTestCase().loadContents();
+        }
+    }
+
+    /**
+     * Recounts the references of all the build results and removes from the blob store the contents that are
+     * no longer referenced by any of them.
+     */
+    private void removeUnreferencedContents() {
+        references.clear();
+        referencedBy.clear();
+        db.values().forEach(this::addReferences);
+        blobs.retainAll(references.keySet());
     }
 }
@@ -0,0 +1,470 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import es.weso.ontoloci.persistence.BlobStore;
+import es.weso.ontoloci.persistence.BuildResultPage;
+import es.weso.ontoloci.persistence.BuildResultQuery;
+import es.weso.ontoloci.persistence.OntolociDAO;
+import es.weso.ontoloci.persistence.PersistedBuildResult;
+import es.weso.ontoloci.persistence.PersistedBuildResultStatus;
+import es.weso.ontoloci.persistence.PersistedBuildSummary;
+import es.weso.ontoloci.persistence.PersistedContent;
+import es.weso.ontoloci.persistence.PersistedTestCase;
+import es.weso.ontoloci.persistence.PersistedTestCaseResult;
+import es.weso.ontoloci.persistence.PersistedTestCaseResultStatus;
+import es.weso.ontoloci.persistence.utils.HashUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MongoDB implementation of the ontoloci DAO. The data is split in three collections:
+ *
+ *  - buildResults      one document per build with the metadata, the status and the counts of the test cases.
+ *                      The owner, repository, branch, commit and execution date are copied to top level fields
+ *                      that are indexed for the queries of the dashboard.
+ *  - testCaseResults   one document per test case result, with the hashes of its contents. They are inserted
+ *                      with a single bulk write per build, tagged with the generation of the save.
+ *  - blobs             the contents of the test cases by hash, so a content shared by many builds is stored once.
+ *
+ * The summaries are read from the build documents with a projection, without touching the test cases. The full
+ * build results are assembled with one query for the test cases and one for the contents of the whole page.
+ *
+ * A build that is saved again writes its new test cases before it removes the old ones. The build document keeps
+ * the generation of its last save and only the test cases of that generation are read, so the readers see either
+ * the old test cases or the new ones, never a part of them.
+ *
+ * The contents of a removed build stay in the blob collection until a compaction.
+ */
+public class OntolociMongoDAO implements OntolociDAO {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(OntolociMongoDAO.class);
+
+    // Minutes that a content is kept after its last use, so a build whose test cases are not written yet when the
+    // references are collected does not lose its contents.
+    private static final long COMPACT_GRACE = Long.getLong("ontoloci.persistence.compactGraceMinutes", 10L);
+
+    static final String BUILD_RESULTS = "buildResults";
+    static final String TEST_CASE_RESULTS = "testCaseResults";
+    static final String BLOBS = "blobs";
+
+    private static final String ID = "_id";
+    private static final String OWNER = "owner";
+    private static final String REPO = "repo";
+    private static final String BRANCH = "branch";
+    private static final String COMMIT = "commit";
+    private static final String EXECUTION_DATE = "executionDate";
+    private static final String STATUS = "status";
+    private static final String TOTAL = "total";
+    private static final String PASSED = "passed";
+    private static final String FAILED = "failed";
+    private static final String METADATA = "metadata";
+
+    private static final String GENERATION = "generation";
+
+    private static final String BUILD_ID = "buildId";
+    private static final String POSITION = "position";
+    private static final String NAME = "name";
+    private static final String ONTOLOGY = "ontology";
+    private static final String INSTANCES = "instances";
+    private static final String SCHEMA = "schema";
+    private static final String PRODUCED_SHAPE_MAP = "producedShapeMap";
+    private static final String EXPECTED_SHAPE_MAP = "expectedShapeMap";
+
+    // Unique index of the test cases before they had a generation, it is dropped so several generations can coexist.
+    private static final String POSITION_INDEX = "buildId_1_position_1";
+
+    private static final String[] CONTENT_FIELDS = { ONTOLOGY, INSTANCES, SCHEMA, PRODUCED_SHAPE_MAP, EXPECTED_SHAPE_MAP };
+
+    private final MongoCollection<Document> buildResults;
+    private final MongoCollection<Document> testCaseResults;
+    private final MongoCollection<Document> blobCollection;
+    private final MongoBlobStore blobs;
+    private long compactGrace = COMPACT_GRACE;
+
+    /**
+     * Factory method that creates a DAO on a database, creating the indexes that are missing.
+     *
+     * @param client   connected to the Mongo server.
+     * @param database name of the database.
+     * @return a new instance of the Mongo DAO.
+     */
+    public static OntolociMongoDAO from(MongoClient client, String database) {
+        return from(client.getDatabase(database));
+    }
+
+    /**
+     * Factory method that creates a DAO on a database, creating the indexes that are missing.
+     *
+     * @param database where the collections are.
+     * @return a new instance of the Mongo DAO.
+     */
+    public static OntolociMongoDAO from(MongoDatabase database) {
+        final OntolociMongoDAO dao = new OntolociMongoDAO(database);
+        dao.createIndexes();
+        return dao;
+    }
+
+    private OntolociMongoDAO(MongoDatabase database) {
+        this.buildResults = database.getCollection(BUILD_RESULTS);
+        this.testCaseResults = database.getCollection(TEST_CASE_RESULTS);
+        this.blobCollection = database.getCollection(BLOBS);
+        this.blobs = new MongoBlobStore(blobCollection);
+    }
+
+    /**
+     * Sets the minutes that a content is kept after its last use, even if it is not referenced.
+     *
+     * @param minutes of the grace period of the compactions.
+     * @return the DAO.
+     */
+    public OntolociMongoDAO withCompactGrace(long minutes) {
+        this.compactGrace = minutes;
+        return this;
+    }
+
+    private void createIndexes() {
+        LOGGER.debug("Creating the indexes of the Mongo DAO");
+
+        // The id is the last key of every index on the date, it breaks the ties of the pages.
+        buildResults.createIndex(Indexes.compoundIndex(Indexes.descending(EXECUTION_DATE), Indexes.descending(ID)));
+        buildResults.createIndex(Indexes.compoundIndex(Indexes.ascending(OWNER, REPO),
+                Indexes.descending(EXECUTION_DATE), Indexes.descending(ID)));
+        buildResults.createIndex(Indexes.compoundIndex(Indexes.ascending(OWNER, REPO, BRANCH),
+                Indexes.descending(EXECUTION_DATE), Indexes.descending(ID)));
+        buildResults.createIndex(Indexes.compoundIndex(Indexes.ascending(STATUS),
+                Indexes.descending(EXECUTION_DATE), Indexes.descending(ID)));
+        buildResults.createIndex(Indexes.ascending(COMMIT));
+        for(Document index : testCaseResults.listIndexes()) {
+            if(POSITION_INDEX.equals(index.getString(NAME)))
+                testCaseResults.dropIndex(POSITION_INDEX);
+        }
+        testCaseResults.createIndex(Indexes.ascending(BUILD_ID, GENERATION, POSITION), new IndexOptions().unique(true));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findAllBuildResults() {
+        return findAll(new Document());
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForRepository(String owner, String repo) {
+        return findAll(Filters.and(Filters.eq(OWNER, owner), Filters.eq(REPO, repo)));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForBranch(String owner, String repo, String branch) {
+        return findAll(Filters.and(Filters.eq(OWNER, owner), Filters.eq(REPO, repo), Filters.eq(BRANCH, branch)));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsForCommit(String commit) {
+        return findAll(Filters.eq(COMMIT, commit));
+    }
+
+    @Override
+    public List<PersistedBuildResult> findBuildResultsBetween(long from, long to) {
+        return findAll(Filters.and(Filters.gte(EXECUTION_DATE, from), Filters.lte(EXECUTION_DATE, to)));
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildResult> findBuildResults(BuildResultQuery query) {
+        final List<Document> page = findPage(query, null);
+        final List<Document> documents = page.size() > query.getLimit() ? page.subList(0, query.getLimit()) : page;
+        return BuildResultPage.from(assemble(documents), nextCursor(query, page));
+    }
+
+    @Override
+    public BuildResultPage<PersistedBuildSummary> findBuildSummaries(BuildResultQuery query) {
+        final List<String> fields = new ArrayList<>(Arrays.asList(STATUS, TOTAL, PASSED, FAILED, EXECUTION_DATE));
+        for(String key : PersistedBuildSummary.getMetadataKeys())
+            fields.add(METADATA + "." + key);
+
+        final List<Document> page = findPage(query, Projections.include(fields));
+        final List<PersistedBuildSummary> summaries = new ArrayList<>(Math.min(page.size(), query.getLimit()));
+        for(Document document : page.subList(0, Math.min(page.size(), query.getLimit()))) {
+            summaries.add(PersistedBuildSummary.from(document.getString(ID), readMap(document.get(METADATA, Document.class)),
+                    readStatus(document), document.getInteger(TOTAL, 0), document.getInteger(PASSED, 0),
+                    document.getInteger(FAILED, 0)));
+        }
+        return BuildResultPage.from(summaries, nextCursor(query, page));
+    }
+
+    @Override
+    public Optional<PersistedBuildResult> findBuildResultForId(String id) {
+        final Document document = buildResults.find(Filters.eq(ID, id)).first();
+        if(document == null)
+            return Optional.empty();
+        return Optional.of(assemble(Collections.singletonList(document)).get(0));
+    }
+
+    @Override
+    public void save(PersistedBuildResult buildResult) {
+        if(Objects.isNull(buildResult.getId())) {
+            buildResult.setId(Long.toString(System.nanoTime()));
+        }
+        final String id = buildResult.getId();
+        final String generation = UUID.randomUUID().toString();
+        LOGGER.debug(String.format("Saving the build result with id=[%s] and generation=[%s] in Mongo", id, generation));
+
+        // The contents go first, so a build document never references a missing content.
+        final Map<String, String> contents = new HashMap<>();
+        final List<Document> testCases = new ArrayList<>(buildResult.getTestCaseResults().size());
+        int position = 0;
+        for(PersistedTestCaseResult testCaseResult : buildResult.getTestCaseResults()) {
+            testCases.add(writeTestCaseResult(id, generation, position++, testCaseResult, contents));
+        }
+        blobs.putAll(contents);
+
+        // The new test cases are written before the build document points to their generation, and the test cases
+        // of the previous saves are removed after it, so a build is never read with a part of its test cases.
+        if(!testCases.isEmpty())
+            testCaseResults.insertMany(testCases, new InsertManyOptions().ordered(false));
+        buildResults.replaceOne(Filters.eq(ID, id), writeBuildResult(buildResult, generation), new ReplaceOptions().upsert(true));
+        testCaseResults.deleteMany(Filters.and(Filters.eq(BUILD_ID, id), Filters.ne(GENERATION, generation)));
+    }
+
+    @Override
+    public void update(PersistedBuildResult buildResult) {
+        this.save(buildResult);
+    }
+
+    @Override
+    public void remove(PersistedBuildResult buildResult) {
+        LOGGER.debug(String.format("Removing the build result with id=[%s] from Mongo", buildResult.getId()));
+        buildResults.deleteOne(Filters.eq(ID, buildResult.getId()));
+        testCaseResults.deleteMany(Filters.eq(BUILD_ID, buildResult.getId()));
+    }
+
+    @Override
+    public void removeAll() {
+        buildResults.deleteMany(new Document());
+        testCaseResults.deleteMany(new Document());
+        blobCollection.deleteMany(new Document());
+    }
+
+    @Override
+    public void compact() {
+        // The contents put during the grace period before the references are collected are kept, they may belong
+        // to a build that is still being saved.
+        final long start = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(compactGrace);
+        final Set<String> referenced = new HashSet<>();
+        for(String field : CONTENT_FIELDS) {
+            for(String hash : testCaseResults.distinct(field, String.class)) {
+                if(hash != null)
+                    referenced.add(hash);
+            }
+        }
+        final long removed = blobs.removeUnused(referenced, start);
+        LOGGER.debug(String.format("Compacted the Mongo DAO, removed [%s] unreferenced contents", removed));
+    }
+
+    /**
+     * Gets the blob store where the contents of the test cases are stored.
+     *
+     * @return the blob store.
+     */
+    public BlobStore getBlobStore() {
+        return blobs;
+    }
+
+    private List<PersistedBuildResult> findAll(Bson filter) {
+        final List<Document> documents = new ArrayList<>();
+        buildResults.find(filter).sort(descendingOrder()).into(documents);
+        return assemble(documents);
+    }
+
+    /**
+     * Finds the build documents of a page of a query, one more than the limit to know if there is a following page.
+     *
+     * @param query      with the filters, the order and the position of the page.
+     * @param projection of the fields to read, null to read the whole documents.
+     * @return the build documents in the order of the query.
+     */
+    private List<Document> findPage(BuildResultQuery query, Bson projection) {
+        final List<Bson> filters = new ArrayList<>();
+        if(query.getOwner() != null)
+            filters.add(Filters.eq(OWNER, query.getOwner()));
+        if(query.getRepo() != null)
+            filters.add(Filters.eq(REPO, query.getRepo()));
+        if(query.getBranch() != null)
+            filters.add(Filters.eq(BRANCH, query.getBranch()));
+        if(query.getStatus() != null)
+            filters.add(Filters.eq(STATUS, query.getStatus().name()));
+        if(query.getFrom() != null)
+            filters.add(Filters.gte(EXECUTION_DATE, query.getFrom()));
+        if(query.getTo() != null)
+            filters.add(Filters.lte(EXECUTION_DATE, query.getTo()));
+        if(query.getCursor() != null) {
+            final long date = query.getCursorExecutionDate();
+            final String id = query.getCursorId();
+            filters.add(query.isAscending()
+                    ? Filters.or(Filters.gt(EXECUTION_DATE, date), Filters.and(Filters.eq(EXECUTION_DATE, date), Filters.gt(ID, id)))
+                    : Filters.or(Filters.lt(EXECUTION_DATE, date), Filters.and(Filters.eq(EXECUTION_DATE, date), Filters.lt(ID, id))));
+        }
+
+        final List<Document> page = new ArrayList<>();
+        buildResults.find(filters.isEmpty() ? new Document() : Filters.and(filters))
+                .projection(projection)
+                .sort(query.isAscending() ? Sorts.ascending(EXECUTION_DATE, ID) : descendingOrder())
+                .limit(query.getLimit() + 1)
+                .into(page);
+        return page;
+    }
+
+    private static Bson descendingOrder() {
+        return Sorts.descending(EXECUTION_DATE, ID);
+    }
+
+    private static String nextCursor(BuildResultQuery query, List<Document> page) {
+        if(page.size() <= query.getLimit())
+            return null;
+        final Document last = page.get(query.getLimit() - 1);
+        return BuildResultQuery.encodeCursor(last.getLong(EXECUTION_DATE), last.getString(ID));
+    }
+
+    /**
+     * Builds the results of a list of build documents, reading their test cases and contents with one query each.
+     *
+     * @param documents of the builds.
+     * @return the build results in the same order.
+     */
+    private List<PersistedBuildResult> assemble(List<Document> documents) {
+        if(documents.isEmpty())
+            return new ArrayList<>();
+
+        final List<String> ids = new ArrayList<>(documents.size());
+        for(Document document : documents)
+            ids.add(document.getString(ID));
+
+        final Map<String, List<Document>> testCasesByBuild = new HashMap<>();
+        final Set<String> hashes = new HashSet<>();
+        final Map<String, String> generations = new HashMap<>();
+        for(Document document : documents)
+            generations.put(document.getString(ID), document.getString(GENERATION));
+
+        for(Document testCase : testCaseResults.find(Filters.in(BUILD_ID, ids)).sort(Sorts.ascending(BUILD_ID, POSITION))) {
+            // The test cases of other saves of the build are skipped, they are being replaced or removed.
+            if(!Objects.equals(generations.get(testCase.getString(BUILD_ID)), testCase.getString(GENERATION)))
+                continue;
+            testCasesByBuild.computeIfAbsent(testCase.getString(BUILD_ID), key -> new ArrayList<>()).add(testCase);
+            for(String field : CONTENT_FIELDS) {
+                final String hash = testCase.getString(field);
+                if(hash != null)
+                    hashes.add(hash);
+            }
+        }
+
+        final Map<String, String> contents = new HashMap<>();
+        if(!hashes.isEmpty()) {
+            for(Document blob : blobCollection.find(Filters.in(ID, hashes)))
+                contents.put(blob.getString(ID), blob.getString(MongoBlobStore.CONTENT));
+        }
+
+        final List<PersistedBuildResult> results = new ArrayList<>(documents.size());
+        for(Document document : documents) {
+            final List<PersistedTestCaseResult> testCases = new ArrayList<>();
+            for(Document testCase : testCasesByBuild.getOrDefault(document.getString(ID), Collections.emptyList()))
+                testCases.add(readTestCaseResult(testCase, contents));
+            results.add(PersistedBuildResult.from(document.getString(ID), readMap(document.get(METADATA, Document.class)),
+                    readStatus(document), testCases));
+        }
+        return results;
+    }
+
+    private static Document writeBuildResult(PersistedBuildResult buildResult, String generation) {
+        final PersistedBuildSummary summary = PersistedBuildSummary.from(buildResult);
+        final Map<String, String> metadata = buildResult.getMetadata();
+        return new Document(ID, buildResult.getId())
+                .append(OWNER, metadata.get(OWNER))
+                .append(REPO, metadata.get(REPO))
+                .append(BRANCH, metadata.get(BRANCH))
+                .append(COMMIT, metadata.get(COMMIT))
+                .append(GENERATION, generation)
+                .append(EXECUTION_DATE, BuildResultIndex.getExecutionDate(summary))
+                .append(STATUS, buildResult.getStatus() != null ? buildResult.getStatus().name() : null)
+                .append(TOTAL, summary.getTotal())
+                .append(PASSED, summary.getPassed())
+                .append(FAILED, summary.getFailed())
+                .append(METADATA, new Document(new HashMap<>(metadata)));
+    }
+
+    private static Document writeTestCaseResult(String buildId, String generation, int position,
+                                                PersistedTestCaseResult testCaseResult, Map<String, String> contents) {
+        final PersistedTestCase testCase = testCaseResult.getTestCase();
+        return new Document(ID, buildId + "/" + generation + "/" + position)
+                .append(BUILD_ID, buildId)
+                .append(GENERATION, generation)
+                .append(POSITION, position)
+                .append(NAME, testCase.getName())
+                .append(ONTOLOGY, writeContent(testCase.getOntology(), contents))
+                .append(INSTANCES, writeContent(testCase.getInstances(), contents))
+                .append(SCHEMA, writeContent(testCase.getSchema(), contents))
+                .append(PRODUCED_SHAPE_MAP, writeContent(testCase.getProducedShapeMap(), contents))
+                .append(EXPECTED_SHAPE_MAP, writeContent(testCase.getExpectedShapeMap(), contents))
+                .append(STATUS, testCaseResult.getStatus() != null ? testCaseResult.getStatus().name() : null)
+                .append(METADATA, new Document(new HashMap<>(testCaseResult.getMetadata())));
+    }
+
+    private static String writeContent(String content, Map<String, String> contents) {
+        if(content == null)
+            return null;
+        final String hash = HashUtils.sha256(content);
+        contents.put(hash, content);
+        return hash;
+    }
+
+    private static PersistedTestCaseResult readTestCaseResult(Document document, Map<String, String> contents) {
+        final PersistedTestCase testCase = PersistedTestCase.from(document.getString(NAME),
+                readContent(document.getString(ONTOLOGY), contents),
+                readContent(document.getString(INSTANCES), contents),
+                readContent(document.getString(SCHEMA), contents),
+                readContent(document.getString(PRODUCED_SHAPE_MAP), contents),
+                readContent(document.getString(EXPECTED_SHAPE_MAP), contents));
+
+        final PersistedTestCaseResult testCaseResult = PersistedTestCaseResult.from(testCase);
+        final String status = document.getString(STATUS);
+        testCaseResult.setStatus(status != null ? PersistedTestCaseResultStatus.valueOf(status) : null);
+        testCaseResult.setMetadata(readMap(document.get(METADATA, Document.class)));
+        return testCaseResult;
+    }
+
+    private static PersistedContent readContent(String hash, Map<String, String> contents) {
+        if(hash == null)
+            return PersistedContent.from(null);
+        final String content = contents.get(hash);
+        if(content == null)
+            throw new IllegalStateException(String.format("content with hash=[%s] not found in the blob collection", hash));
+        return PersistedContent.from(content);
+    }
+
+    private static PersistedBuildResultStatus readStatus(Document document) {
+        final String status = document.getString(STATUS);
+        return status != null ? PersistedBuildResultStatus.valueOf(status) : null;
+    }
+
+    private static Map<String, String> readMap(Document document) {
+        final Map<String, String> map = new HashMap<>();
+        if(document != null) {
+            for(Map.Entry<String, Object> entry : document.entrySet()) {
+                if(entry.getValue() != null)
+                    map.put(entry.getKey(), entry.getValue().toString());
+            }
+        }
+        return map;
+    }
+}
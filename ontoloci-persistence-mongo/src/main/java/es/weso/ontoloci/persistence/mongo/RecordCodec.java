@@ -0,0 +1,71 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary encoding of the values stored in the records of the disk DAO.
+ * Strings are written as their UTF-8 length followed by their bytes, so there is no limit on their size,
+ * and null values are written with a negative length.
+ */
+final class RecordCodec {
+
+    private RecordCodec() {}
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        final int length = in.readInt();
+        if(length < 0)
+            return null;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeMap(DataOutput out, Map<String, String> map) throws IOException {
+        if(map == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(map.size());
+        for(Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    static Map<String, String> readMap(DataInput in) throws IOException {
+        final int size = in.readInt();
+        if(size < 0)
+            return null;
+        final Map<String, String> map = new HashMap<>();
+        for(int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    static <E extends Enum<E>> void writeEnum(DataOutput out, E value) throws IOException {
+        writeString(out, value == null ? null : value.name());
+    }
+
+    static <E extends Enum<E>> E readEnum(DataInput in, Class<E> type) throws IOException {
+        final String name = readString(in);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,249 @@
+package es.weso.ontoloci.persistence.mongo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append only file of records used by the disk DAO.
+ *
+ * Each record is stored as [payload length][payload crc32][header length][header][body]. The header is the
+ * small part of the record needed to rebuild the indexes when the file is opened, so the recovery only reads
+ * the headers and skips the bodies. A record that was not completely written because of a crash is detected
+ * by its length and checksum, and the file is truncated before it.
+ *
+ * Records are appended in batches and the file is forced to disk once per batch. Reads use positional reads,
+ * so they can run concurrently with the appends.
+ *
+ * The log is never rewritten in place, it is compacted by copying the live records to a new log that replaces
+ * the file with an atomic move, so a crash during a compaction leaves either the old or the new file.
+ */
+class RecordLog implements Closeable {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecordLog.class);
+
+    // Payload length and checksum.
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // Suffix of the file of a log being compacted, and number of records copied to it in each append.
+    static final String COMPACTION_SUFFIX = ".compact";
+    static final int COPY_BATCH_SIZE = 256;
+
+    private final Path path;
+    private final FileChannel channel;
+    private long end;
+
+    /**
+     * Receives the headers of the records found when the log is opened.
+     */
+    interface HeaderVisitor {
+
+        /**
+         * Visits the header of a record.
+         *
+         * @param offset of the record in the file.
+         * @param header bytes of the header of the record.
+         * @throws IOException if the header can not be decoded.
+         */
+        void visit(long offset, byte[] header) throws IOException;
+    }
+
+    /**
+     * Opens a log, creating the file if it does not exist, and visits the headers of its records in order.
+     *
+     * @param path    of the file.
+     * @param visitor of the headers of the records.
+     * @return the opened log.
+     * @throws IOException if the file can not be opened or read.
+     */
+    static RecordLog open(Path path, HeaderVisitor visitor) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final RecordLog log = new RecordLog(path, channel);
+            log.recover(visitor);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces a log with a compacted copy of it. The log is closed, the compacted file is moved over its file
+     * and opened, visiting the headers of its records to rebuild the offsets.
+     *
+     * @param log       to replace, it is closed.
+     * @param compacted path of the file of the compacted copy, already closed.
+     * @param path      of the file of the log.
+     * @param visitor   of the headers of the records of the compacted copy.
+     * @return the log opened on the compacted file.
+     * @throws IOException if the file can not be moved or opened.
+     */
+    static RecordLog replace(RecordLog log, Path compacted, Path path, HeaderVisitor visitor) throws IOException {
+        log.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path, visitor);
+    }
+
+    private RecordLog(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Reads the headers of all the records and truncates the file after the last complete record.
+     */
+    private void recover(HeaderVisitor visitor) throws IOException {
+        final long size = channel.size();
+        long offset = 0;
+        long lastOffset = -1;
+        byte[] lastHeader = null;
+        while(offset + RECORD_HEADER_SIZE + Integer.BYTES <= size) {
+            final int length = readFully(offset, Integer.BYTES).getInt();
+            if(length < Integer.BYTES || offset + RECORD_HEADER_SIZE + length > size)
+                break;
+
+            final int headerLength = readFully(offset + RECORD_HEADER_SIZE, Integer.BYTES).getInt();
+            if(headerLength < 0 || headerLength > length - Integer.BYTES)
+                break;
+
+            // The previous record is complete, as there is another one after it.
+            if(lastHeader != null)
+                visitor.visit(lastOffset, lastHeader);
+            lastOffset = offset;
+            lastHeader = readFully(offset + RECORD_HEADER_SIZE + Integer.BYTES, headerLength).array();
+            offset += RECORD_HEADER_SIZE + length;
+        }
+
+        // The last record is the only one that may be partially written, so its checksum is verified.
+        if(lastHeader != null) {
+            if(isValid(lastOffset))
+                visitor.visit(lastOffset, lastHeader);
+            else
+                offset = lastOffset;
+        }
+
+        if(offset < size) {
+            LOGGER.warn(String.format("Truncating [%s] at [%s] of [%s] bytes, the last record is incomplete", path, offset, size));
+            channel.truncate(offset);
+        }
+        this.end = offset;
+    }
+
+    private boolean isValid(long offset) throws IOException {
+        final ByteBuffer recordHeader = readFully(offset, RECORD_HEADER_SIZE);
+        final int length = recordHeader.getInt();
+        final int crc = recordHeader.getInt();
+        return crc == checksum(readFully(offset + RECORD_HEADER_SIZE, length).array());
+    }
+
+    /**
+     * Appends a batch of records at the end of the file and forces them to disk.
+     *
+     * @param headers of the records.
+     * @param bodies  of the records, in the same order as the headers.
+     * @return the offsets of the records, in the same order.
+     * @throws IOException if the records can not be written.
+     */
+    synchronized long[] append(List<byte[]> headers, List<byte[]> bodies) throws IOException {
+        int size = 0;
+        for(int i = 0; i < headers.size(); i++) {
+            size += RECORD_HEADER_SIZE + Integer.BYTES + headers.get(i).length + bodies.get(i).length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        final long[] offsets = new long[headers.size()];
+        for(int i = 0; i < headers.size(); i++) {
+            final byte[] header = headers.get(i);
+            final byte[] body = bodies.get(i);
+            final ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES + header.length + body.length);
+            payload.putInt(header.length).put(header).put(body);
+
+            offsets[i] = end + buffer.position();
+            buffer.putInt(payload.capacity()).putInt(checksum(payload.array())).put(payload.array());
+        }
+        buffer.flip();
+
+        long position = end;
+        while(buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        end = position;
+        return offsets;
+    }
+
+    /**
+     * Reads the body of a record and verifies its checksum.
+     *
+     * @param offset of the record.
+     * @return the body of the record.
+     * @throws IOException if the record can not be read or it is corrupted.
+     */
+    byte[] readBody(long offset) throws IOException {
+        final ByteBuffer recordHeader = readFully(offset, RECORD_HEADER_SIZE);
+        final int length = recordHeader.getInt();
+        final int crc = recordHeader.getInt();
+        final byte[] payload = readFully(offset + RECORD_HEADER_SIZE, length).array();
+        if(crc != checksum(payload))
+            throw new IOException(String.format("corrupted record at [%s] of [%s]", offset, path));
+
+        final int headerLength = ByteBuffer.wrap(payload).getInt();
+        final int bodyOffset = Integer.BYTES + headerLength;
+        final byte[] body = new byte[payload.length - bodyOffset];
+        System.arraycopy(payload, bodyOffset, body, 0, body.length);
+        return body;
+    }
+
+    /**
+     * Removes all the records of the file.
+     *
+     * @throws IOException if the file can not be truncated.
+     */
+    synchronized void clear() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+        end = 0;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return size in bytes.
+     */
+    synchronized long size() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer readFully(long position, int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException(String.format("unexpected end of [%s] at [%s]", path, position + buffer.position()));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int checksum(byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
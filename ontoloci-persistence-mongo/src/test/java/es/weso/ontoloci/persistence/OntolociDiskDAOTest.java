@@ -0,0 +1,156 @@
+package es.weso.ontoloci.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.weso.ontoloci.persistence.mongo.OntolociDiskDAO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OntolociDiskDAOTest {
+
+    @Test
+    public void saveAndFindTest() throws IOException {
+        final Path directory = Files.createTempDirectory("ontoloci-disk-dao");
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            final PersistedBuildResult result = buildResult("b1", "master", 1000L, "ontology");
+            dao.save(result);
+
+            // The build result can be read before and after it is flushed.
+            assertEquals("ontology", dao.findBuildResultForId("b1").get().getTestCaseResults().iterator().next().getTestCase().getOntology());
+            dao.flush();
+            PersistedBuildResult found = dao.findBuildResultForId("b1").get();
+            assertEquals("master", found.getMetadata().get("branch"));
+            assertEquals(PersistedBuildResultStatus.SUCCESS, found.getStatus());
+
+            PersistedTestCaseResult testCaseResult = found.getTestCaseResults().iterator().next();
+            assertEquals("test", testCaseResult.getTestCase().getName());
+            assertEquals("ontology", testCaseResult.getTestCase().getOntology());
+            assertEquals("instances", testCaseResult.getTestCase().getInstances());
+            assertEquals(PersistedTestCaseResultStatus.SUCCESS, testCaseResult.getStatus());
+            assertEquals("1 ms", testCaseResult.getMetadata().get("execution_time"));
+
+            dao.remove(result);
+            assertFalse(dao.findBuildResultForId("b1").isPresent());
+            assertEquals(0, dao.findAllBuildResults().size());
+        }
+    }
+
+    @Test
+    public void recoveryTest() throws IOException {
+        final Path directory = Files.createTempDirectory("ontoloci-disk-dao");
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            dao.save(buildResult("b1", "master", 1000L, "ontology"));
+            dao.save(buildResult("b2", "master", 2000L, "ontology"));
+            dao.save(buildResult("b3", "develop", 3000L, "other ontology"));
+            dao.remove(buildResult("b3", "develop", 3000L, "other ontology"));
+
+            // The same ontology is only stored once, the contents of removed builds stay until a compaction.
+            dao.flush();
+            assertEquals(6, dao.getBlobStore().size());
+        }
+
+        // The build results saved before closing the DAO are recovered, the most recent first.
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            List<PersistedBuildResult> results = dao.findAllBuildResults();
+            assertEquals(2, results.size());
+            assertEquals("b2", results.get(0).getId());
+            assertEquals("b1", results.get(1).getId());
+            assertEquals("ontology", results.get(1).getTestCaseResults().iterator().next().getTestCase().getOntology());
+
+            BuildResultPage<PersistedBuildSummary> summaries = dao.findBuildSummaries(BuildResultQuery.from(10).withRepository("weso", "ontoloci").withBranch("master"));
+            assertEquals(2, summaries.getBuildResults().size());
+            assertEquals(1, summaries.getBuildResults().get(0).getPassed());
+            assertEquals(0, dao.findBuildResultsForBranch("weso", "ontoloci", "develop").size());
+
+            dao.removeAll();
+        }
+
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            assertEquals(0, dao.findAllBuildResults().size());
+        }
+    }
+
+    @Test
+    public void incompleteRecordTest() throws IOException {
+        final Path directory = Files.createTempDirectory("ontoloci-disk-dao");
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            dao.save(buildResult("b1", "master", 1000L, "ontology"));
+        }
+
+        // A record that was being written when the process stopped is discarded.
+        final Path builds = directory.resolve("builds.log");
+        final long size = Files.size(builds);
+        Files.write(builds, new byte[] { 0, 0, 1, 0, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            assertEquals(1, dao.findAllBuildResults().size());
+            assertEquals(size, Files.size(builds));
+
+            dao.save(buildResult("b2", "master", 2000L, "ontology"));
+        }
+
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            assertEquals(2, dao.findAllBuildResults().size());
+            assertTrue(dao.findBuildResultForId("b2").isPresent());
+        }
+    }
+
+    @Test
+    public void compactionTest() throws IOException {
+        final Path directory = Files.createTempDirectory("ontoloci-disk-dao");
+        final long size;
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            dao.save(buildResult("b1", "master", 1000L, "ontology"));
+            dao.save(buildResult("b2", "master", 2000L, "ontology"));
+            dao.save(buildResult("b2", "master", 2000L, "ontology"));
+            dao.save(buildResult("b3", "develop", 3000L, "other ontology"));
+            dao.remove(buildResult("b3", "develop", 3000L, "other ontology"));
+            dao.flush();
+            size = Files.size(directory.resolve("builds.log"));
+
+            // Only the last record of each build result and the contents they reference are kept.
+            dao.compact();
+            assertEquals(5, dao.getBlobStore().size());
+            assertTrue(Files.size(directory.resolve("builds.log")) < size);
+            assertEquals("ontology", dao.findBuildResultForId("b1").get().getTestCaseResults().iterator().next().getTestCase().getOntology());
+
+            dao.save(buildResult("b4", "master", 4000L, "new ontology"));
+        }
+
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(directory)) {
+            assertEquals(3, dao.findAllBuildResults().size());
+            assertEquals(6, dao.getBlobStore().size());
+            assertEquals("new ontology", dao.findBuildResultForId("b4").get().getTestCaseResults().iterator().next().getTestCase().getOntology());
+            assertFalse(dao.findBuildResultForId("b3").isPresent());
+        }
+    }
+
+    private PersistedBuildResult buildResult(String id, String branch, long executionDate, String ontology) {
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("owner", "weso");
+        metadata.put("repo", "ontoloci");
+        metadata.put("branch", branch);
+        metadata.put("execution_date", Long.toString(executionDate));
+
+        final PersistedTestCaseResult testCaseResult = PersistedTestCaseResult.from(
+                new PersistedTestCase("test", ontology, "instances", "schema", "produced", "expected"));
+        testCaseResult.setStatus(PersistedTestCaseResultStatus.SUCCESS);
+        final Map<String, String> testMetadata = new HashMap<>();
+        testMetadata.put("execution_time", "1 ms");
+        testCaseResult.setMetadata(testMetadata);
+
+        return PersistedBuildResult.from(id, metadata, PersistedBuildResultStatus.SUCCESS,
+                new ArrayList<>(Arrays.asList(testCaseResult)));
+    }
+}
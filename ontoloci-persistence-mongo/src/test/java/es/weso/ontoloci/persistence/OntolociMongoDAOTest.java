@@ -1,15 +1,19 @@
 package es.weso.ontoloci.persistence;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import es.weso.ontoloci.persistence.mongo.OntolociInMemoryDAO;
 import org.junit.jupiter.api.Test;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class OntolociMongoDAOTest {
@@ -108,4 +112,184 @@ public class OntolociMongoDAOTest {
 
         dao.removeAll();
     }
+
+    @Test
+    public void findBuildResultsForBranchTest() {
+        // First we ensure the persistence has no elements.
+        assertEquals(0, dao.findAllBuildResults().size());
+
+        final PersistedBuildResult master1 = buildResult("weso", "ontoloci", "master", "c1", 1000L);
+        final PersistedBuildResult master2 = buildResult("weso", "ontoloci", "master", "c2", 2000L);
+        final PersistedBuildResult develop = buildResult("weso", "ontoloci", "develop", "c3", 3000L);
+        dao.save(master1);
+        dao.save(master2);
+        dao.save(develop);
+
+        // The results of each branch are returned, the most recent first.
+        List<PersistedBuildResult> masterResults = dao.findBuildResultsForBranch("weso", "ontoloci", "master");
+        assertEquals(2, masterResults.size());
+        assertEquals(master2.getId(), masterResults.get(0).getId());
+        assertEquals(master1.getId(), masterResults.get(1).getId());
+        assertEquals(3, dao.findBuildResultsForRepository("weso", "ontoloci").size());
+        assertEquals(1, dao.findBuildResultsForCommit("c3").size());
+        assertEquals(0, dao.findBuildResultsForRepository("weso", "other").size());
+
+        // Removing a result also removes it from the indexes.
+        dao.remove(master2);
+        assertEquals(1, dao.findBuildResultsForBranch("weso", "ontoloci", "master").size());
+        assertEquals(0, dao.findBuildResultsForCommit("c2").size());
+
+        dao.removeAll();
+        assertEquals(0, dao.findAllBuildResults().size());
+    }
+
+    @Test
+    public void findBuildResultsBetweenTest() {
+        // First we ensure the persistence has no elements.
+        assertEquals(0, dao.findAllBuildResults().size());
+
+        final PersistedBuildResult first = buildResult("weso", "ontoloci", "master", "c1", 1000L);
+        final PersistedBuildResult second = buildResult("weso", "ontoloci", "master", "c2", 2000L);
+        final PersistedBuildResult third = buildResult("weso", "ontoloci", "master", "c3", 3000L);
+        dao.save(second);
+        dao.save(third);
+        dao.save(first);
+
+        // All the results are returned, the most recent first.
+        List<PersistedBuildResult> all = dao.findAllBuildResults();
+        assertEquals(third.getId(), all.get(0).getId());
+        assertEquals(second.getId(), all.get(1).getId());
+        assertEquals(first.getId(), all.get(2).getId());
+
+        // Both limits of the range are included.
+        List<PersistedBuildResult> range = dao.findBuildResultsBetween(1000L, 2000L);
+        assertEquals(2, range.size());
+        assertEquals(second.getId(), range.get(0).getId());
+        assertEquals(first.getId(), range.get(1).getId());
+        assertEquals(0, dao.findBuildResultsBetween(4000L, 5000L).size());
+
+        dao.removeAll();
+        assertEquals(0, dao.findAllBuildResults().size());
+    }
+
+    @Test
+    public void findBuildResultsPageTest() {
+        // First we ensure the persistence has no elements.
+        assertEquals(0, dao.findAllBuildResults().size());
+
+        for(int i = 1; i <= 5; i++) {
+            dao.save(buildResult("weso", "ontoloci", "master", "c" + i, i * 1000L));
+        }
+        dao.save(buildResult("weso", "other", "master", "c6", 6000L));
+
+        // The pages of a repository are returned the most recent first until there are no more results.
+        BuildResultPage<PersistedBuildResult> page = dao.findBuildResults(BuildResultQuery.from(2).withRepository("weso", "ontoloci"));
+        assertEquals(2, page.getBuildResults().size());
+        assertEquals("c5", page.getBuildResults().get(0).getMetadata().get("commit"));
+        assertEquals("c4", page.getBuildResults().get(1).getMetadata().get("commit"));
+
+        page = dao.findBuildResults(BuildResultQuery.from(2).withRepository("weso", "ontoloci").withCursor(page.getNextCursor()));
+        assertEquals("c3", page.getBuildResults().get(0).getMetadata().get("commit"));
+        assertEquals("c2", page.getBuildResults().get(1).getMetadata().get("commit"));
+
+        page = dao.findBuildResults(BuildResultQuery.from(2).withRepository("weso", "ontoloci").withCursor(page.getNextCursor()));
+        assertEquals(1, page.getBuildResults().size());
+        assertEquals("c1", page.getBuildResults().get(0).getMetadata().get("commit"));
+        assertFalse(page.hasNext());
+
+        // Without filters the date index is used, and the order can be reversed.
+        page = dao.findBuildResults(BuildResultQuery.from(4).withAscendingOrder(true).withExecutionDateBetween(2000L, null));
+        assertEquals(4, page.getBuildResults().size());
+        assertEquals("c2", page.getBuildResults().get(0).getMetadata().get("commit"));
+        assertTrue(page.hasNext());
+
+        page = dao.findBuildResults(BuildResultQuery.from(4).withAscendingOrder(true).withExecutionDateBetween(2000L, null).withCursor(page.getNextCursor()));
+        assertEquals(1, page.getBuildResults().size());
+        assertEquals("c6", page.getBuildResults().get(0).getMetadata().get("commit"));
+        assertFalse(page.hasNext());
+
+        dao.removeAll();
+        assertEquals(0, dao.findAllBuildResults().size());
+    }
+
+    @Test
+    public void findBuildSummariesTest() {
+        // First we ensure the persistence has no elements.
+        assertEquals(0, dao.findAllBuildResults().size());
+
+        final PersistedTestCaseResult passed = PersistedTestCaseResult.from(new PersistedTestCase("passed", "", "", "", "", ""));
+        passed.setStatus(PersistedTestCaseResultStatus.SUCCESS);
+        final PersistedTestCaseResult failed = PersistedTestCaseResult.from(new PersistedTestCase("failed", "", "", "", "", ""));
+        failed.setStatus(PersistedTestCaseResultStatus.FAILURE);
+
+        final PersistedBuildResult result = buildResult("weso", "ontoloci", "master", "c1", 1000L);
+        result.addTestCaseResults(Arrays.asList(passed, passed, failed));
+        result.setStatus(PersistedBuildResultStatus.FAILURE);
+        dao.save(result);
+
+        // The summary has the counts of the test cases and the metadata of the build.
+        BuildResultPage<PersistedBuildSummary> page = dao.findBuildSummaries(BuildResultQuery.from(10));
+        assertEquals(1, page.getBuildResults().size());
+        PersistedBuildSummary summary = page.getBuildResults().get(0);
+        assertEquals(result.getId(), summary.getId());
+        assertEquals(PersistedBuildResultStatus.FAILURE, summary.getStatus());
+        assertEquals(3, summary.getTotal());
+        assertEquals(2, summary.getPassed());
+        assertEquals(1, summary.getFailed());
+        assertEquals("master", summary.getMetadata().get("branch"));
+        assertEquals(Long.valueOf(1000L), summary.getExecutionDate());
+
+        dao.removeAll();
+        assertEquals(0, dao.findBuildSummaries(BuildResultQuery.from(10)).getBuildResults().size());
+    }
+
+    @Test
+    public void storeContentsTest() {
+        // First we ensure the persistence has no elements.
+        assertEquals(0, dao.findAllBuildResults().size());
+        final BlobStore blobs = OntolociInMemoryDAO.instance().getBlobStore();
+
+        // Two builds of the same ontology only store its contents once.
+        final PersistedBuildResult first = buildResult("weso", "ontoloci", "master", "c1", 1000L);
+        first.addTestCaseResults(Arrays.asList(PersistedTestCaseResult.from(new PersistedTestCase("test", "ontology", "instances", "schema", "produced", "expected"))));
+        final PersistedBuildResult second = buildResult("weso", "ontoloci", "master", "c2", 2000L);
+        second.addTestCaseResults(Arrays.asList(PersistedTestCaseResult.from(new PersistedTestCase("test", "ontology", "instances", "schema", "other", "expected"))));
+        dao.save(first);
+        dao.save(second);
+        assertEquals(6, blobs.size());
+
+        // The contents are read back from the store.
+        PersistedTestCase testCase = dao.findBuildResultForId(second.getId()).get().getTestCaseResults().iterator().next().getTestCase();
+        assertEquals("ontology", testCase.getOntology());
+        assertEquals("other", testCase.getProducedShapeMap());
+
+        // The contents only referenced by a removed build are removed, but it can still be read.
+        dao.remove(first);
+        assertEquals(5, blobs.size());
+        assertEquals("produced", first.getTestCaseResults().iterator().next().getTestCase().getProducedShapeMap());
+
+        // Replacing a build only removes the contents that the new one does not reference.
+        final PersistedBuildResult replaced = buildResult("weso", "ontoloci", "master", "c2", 2000L);
+        replaced.setId(second.getId());
+        replaced.addTestCaseResults(Arrays.asList(PersistedTestCaseResult.from(new PersistedTestCase("test", "ontology", "instances", "schema", "replaced", "expected"))));
+        dao.save(replaced);
+        assertEquals(5, blobs.size());
+        assertEquals("other", testCase.getProducedShapeMap());
+        testCase = dao.findBuildResultForId(second.getId()).get().getTestCaseResults().iterator().next().getTestCase();
+        assertEquals("ontology", testCase.getOntology());
+
+        dao.removeAll();
+        assertEquals(0, blobs.size());
+        assertEquals("ontology", testCase.getOntology());
+    }
+
+    private PersistedBuildResult buildResult(String owner, String repo, String branch, String commit, long executionDate) {
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("owner", owner);
+        metadata.put("repo", repo);
+        metadata.put("branch", branch);
+        metadata.put("commit", commit);
+        metadata.put("execution_date", Long.toString(executionDate));
+        return PersistedBuildResult.from(UUID.randomUUID().toString(), metadata, new ArrayList<>());
+    }
 }
@@ -0,0 +1,134 @@
+package es.weso.ontoloci.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import es.weso.ontoloci.persistence.mongo.OntolociMongoDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OntolociMongoServerDAOTest {
+
+    // In memory Mongo server, started for each test.
+    private MongoServer server;
+    private MongoClient client;
+    private OntolociMongoDAO dao;
+
+    @BeforeEach
+    public void startServer() {
+        server = new MongoServer(new MemoryBackend());
+        final InetSocketAddress address = server.bind();
+        client = MongoClients.create(String.format("mongodb://%s:%s", address.getHostString(), address.getPort()));
+        dao = OntolociMongoDAO.from(client, "ontoloci").withCompactGrace(0);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void saveAndFindTest() {
+        final PersistedBuildResult result = buildResult("b1", "master", 1000L, "ontology");
+        dao.save(result);
+
+        PersistedBuildResult found = dao.findBuildResultForId("b1").get();
+        assertEquals("master", found.getMetadata().get("branch"));
+        assertEquals(PersistedBuildResultStatus.SUCCESS, found.getStatus());
+
+        PersistedTestCaseResult testCaseResult = found.getTestCaseResults().iterator().next();
+        assertEquals("test", testCaseResult.getTestCase().getName());
+        assertEquals("ontology", testCaseResult.getTestCase().getOntology());
+        assertEquals("instances", testCaseResult.getTestCase().getInstances());
+        assertEquals(PersistedTestCaseResultStatus.SUCCESS, testCaseResult.getStatus());
+        assertEquals("1 ms", testCaseResult.getMetadata().get("execution_time"));
+
+        // Saving the build again replaces its test cases.
+        dao.save(result);
+        assertEquals(1, dao.findBuildResultForId("b1").get().getTestCaseResults().size());
+
+        dao.remove(result);
+        assertFalse(dao.findBuildResultForId("b1").isPresent());
+        assertEquals(0, dao.findAllBuildResults().size());
+    }
+
+    @Test
+    public void queriesTest() throws InterruptedException {
+        dao.save(buildResult("b1", "master", 1000L, "ontology"));
+        dao.save(buildResult("b2", "master", 2000L, "ontology"));
+        dao.save(buildResult("b3", "develop", 3000L, "other ontology"));
+
+        // The same ontology is only stored once.
+        assertEquals(6, dao.getBlobStore().size());
+
+        List<PersistedBuildResult> results = dao.findAllBuildResults();
+        assertEquals(3, results.size());
+        assertEquals("b3", results.get(0).getId());
+        assertEquals("b1", results.get(2).getId());
+        assertEquals(2, dao.findBuildResultsForBranch("weso", "ontoloci", "master").size());
+        assertEquals(1, dao.findBuildResultsForCommit("commit-b2").size());
+        assertEquals(2, dao.findBuildResultsBetween(1500L, 3000L).size());
+
+        // The pages follow the order of the query and the cursor continues after the last result.
+        BuildResultPage<PersistedBuildSummary> page = dao.findBuildSummaries(BuildResultQuery.from(2));
+        assertEquals(2, page.getBuildResults().size());
+        assertEquals("b3", page.getBuildResults().get(0).getId());
+        assertEquals(1, page.getBuildResults().get(0).getPassed());
+        assertTrue(page.hasNext());
+
+        page = dao.findBuildSummaries(BuildResultQuery.from(2).withCursor(page.getNextCursor()));
+        assertEquals(1, page.getBuildResults().size());
+        assertEquals("b1", page.getBuildResults().get(0).getId());
+        assertFalse(page.hasNext());
+
+        BuildResultPage<PersistedBuildResult> buildPage = dao.findBuildResults(BuildResultQuery.from(10)
+                .withRepository("weso", "ontoloci").withBranch("master").withAscendingOrder(true));
+        assertEquals(2, buildPage.getBuildResults().size());
+        assertEquals("b1", buildPage.getBuildResults().get(0).getId());
+        assertEquals("ontology", buildPage.getBuildResults().get(0).getTestCaseResults().iterator().next().getTestCase().getOntology());
+
+        // The contents of a removed build are only removed by a compaction, if they were last used before it.
+        dao.remove(results.get(0));
+        assertEquals(6, dao.getBlobStore().size());
+        Thread.sleep(10);
+        dao.compact();
+        assertEquals(5, dao.getBlobStore().size());
+
+        dao.removeAll();
+        assertEquals(0, dao.findAllBuildResults().size());
+        assertEquals(0, dao.getBlobStore().size());
+    }
+
+    private PersistedBuildResult buildResult(String id, String branch, long executionDate, String ontology) {
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("owner", "weso");
+        metadata.put("repo", "ontoloci");
+        metadata.put("branch", branch);
+        metadata.put("commit", "commit-" + id);
+        metadata.put("execution_date", Long.toString(executionDate));
+
+        final PersistedTestCaseResult testCaseResult = PersistedTestCaseResult.from(
+                new PersistedTestCase("test", ontology, "instances", "schema", "produced", "expected"));
+        testCaseResult.setStatus(PersistedTestCaseResultStatus.SUCCESS);
+        final Map<String, String> testMetadata = new HashMap<>();
+        testMetadata.put("execution_time", "1 ms");
+        testCaseResult.setMetadata(testMetadata);
+
+        return PersistedBuildResult.from(id, metadata, PersistedBuildResultStatus.SUCCESS,
+                new ArrayList<>(Arrays.asList(testCaseResult)));
+    }
+}
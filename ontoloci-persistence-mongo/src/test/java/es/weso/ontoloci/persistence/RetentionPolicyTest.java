@@ -0,0 +1,71 @@
+package es.weso.ontoloci.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.weso.ontoloci.persistence.mongo.OntolociDiskDAO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class RetentionPolicyTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    public void applyTest() throws IOException {
+        final long now = System.currentTimeMillis();
+        try(OntolociDiskDAO dao = OntolociDiskDAO.open(Files.createTempDirectory("ontoloci-retention"))) {
+            dao.save(buildResult("b1", "master", now - 3000L, "ontology 1"));
+            dao.save(buildResult("b2", "master", now - 2000L, "ontology 2"));
+            dao.save(buildResult("b3", "master", now - 1000L, "ontology 3"));
+            dao.save(buildResult("b4", "develop", now - 40 * DAY, "ontology 4"));
+
+            // The oldest build of master is removed, and the contents of the old build of develop.
+            final RetentionPolicy policy = RetentionPolicy.from(dao, 2, 30 * DAY);
+            assertEquals(2, policy.apply());
+            assertFalse(dao.findBuildResultForId("b1").isPresent());
+            assertEquals(2, dao.findBuildResultsForBranch("weso", "ontoloci", "master").size());
+
+            final PersistedBuildResult withoutContents = dao.findBuildResultForId("b4").get();
+            final PersistedTestCaseResult testCaseResult = withoutContents.getTestCaseResults().iterator().next();
+            assertEquals("test", testCaseResult.getTestCase().getName());
+            assertNull(testCaseResult.getTestCase().getOntology());
+            assertEquals(PersistedTestCaseResultStatus.SUCCESS, testCaseResult.getStatus());
+            assertEquals("true", withoutContents.getMetadata().get(RetentionPolicy.CONTENTS_REMOVED));
+
+            // The summary of the build is kept.
+            final PersistedBuildSummary summary = dao.findBuildSummaries(BuildResultQuery.from(10).withBranch("develop")).getBuildResults().get(0);
+            assertEquals(1, summary.getPassed());
+            assertTrue(summary.getMetadata().containsKey(RetentionPolicy.CONTENTS_REMOVED));
+
+            // Only the contents of the remaining builds are kept after the compaction.
+            assertEquals(6, dao.getBlobStore().size());
+            assertEquals(0, policy.apply());
+        }
+    }
+
+    private PersistedBuildResult buildResult(String id, String branch, long executionDate, String ontology) {
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("owner", "weso");
+        metadata.put("repo", "ontoloci");
+        metadata.put("branch", branch);
+        metadata.put("execution_date", Long.toString(executionDate));
+
+        final PersistedTestCaseResult testCaseResult = PersistedTestCaseResult.from(
+                new PersistedTestCase("test", ontology, "instances", "schema", "produced", "expected"));
+        testCaseResult.setStatus(PersistedTestCaseResultStatus.SUCCESS);
+
+        return PersistedBuildResult.from(id, metadata, PersistedBuildResultStatus.SUCCESS,
+                new ArrayList<>(Arrays.asList(testCaseResult)));
+    }
+}
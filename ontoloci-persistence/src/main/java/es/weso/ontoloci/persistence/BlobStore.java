@@ -0,0 +1,44 @@
+package es.weso.ontoloci.persistence;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content addressed store for the contents of the test cases.
+ * Each content is stored once under the SHA-256 hash of its text, computed with HashUtils, so the same ontology or schema
+ * saved by many builds takes the space of a single copy.
+ *
+ * @author Pablo Menéndez
+ */
+public interface BlobStore {
+
+    /**
+     * Stores a content if it is not stored yet.
+     *
+     * @param content to store.
+     * @return the hash that identifies the content in the store.
+     */
+    String put(String content);
+
+    /**
+     * Gets a stored content.
+     *
+     * @param hash of the content.
+     * @return an optional that might contain the content.
+     */
+    Optional<String> get(String hash);
+
+    /**
+     * Removes all the stored contents except the ones of the given hashes.
+     *
+     * @param hashes of the contents to keep.
+     */
+    void retainAll(Set<String> hashes);
+
+    /**
+     * Gets the number of stored contents.
+     *
+     * @return number of stored contents.
+     */
+    int size();
+}
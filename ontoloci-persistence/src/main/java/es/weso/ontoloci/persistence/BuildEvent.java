@@ -0,0 +1,195 @@
+package es.weso.ontoloci.persistence;
+
+import java.util.*;
+
+/**
+ * An event of the life cycle of a build, published by the workers while the build is executed so the
+ * clients can follow its progress without polling the build results.
+ *
+ * The events only carry the metadata that identifies the build, the test case events the name and the
+ * status of the test case, and the completed event the summary of the build result.
+ *
+ * @author Pablo Menéndez
+ */
+public class BuildEvent {
+
+    private long sequence;
+    private final BuildEventType type;
+    private final String buildId;
+    private final Map<String, String> metadata;
+    private final long timestamp;
+    private final String testCaseName;
+    private final PersistedTestCaseResultStatus testCaseStatus;
+    private final PersistedBuildSummary summary;
+
+    /**
+     * Factory method that creates the event of a build added to the build queue.
+     *
+     * @param buildId  of the build.
+     * @param metadata of the build.
+     * @return a new instance of build event.
+     */
+    public static BuildEvent queued(final String buildId, final Map<String, String> metadata) {
+        return new BuildEvent(BuildEventType.QUEUED, buildId, metadata, null, null, null);
+    }
+
+    /**
+     * Factory method that creates the event of a build whose test cases are being fetched.
+     *
+     * @param buildId  of the build.
+     * @param metadata of the build.
+     * @return a new instance of build event.
+     */
+    public static BuildEvent fetching(final String buildId, final Map<String, String> metadata) {
+        return new BuildEvent(BuildEventType.FETCHING, buildId, metadata, null, null, null);
+    }
+
+    /**
+     * Factory method that creates the event of a test case of a build that has been validated.
+     *
+     * @param buildId  of the build.
+     * @param metadata of the build.
+     * @param name     of the test case.
+     * @param status   of the test case result.
+     * @return a new instance of build event.
+     */
+    public static BuildEvent testCaseFinished(final String buildId, final Map<String, String> metadata,
+                                              final String name, final PersistedTestCaseResultStatus status) {
+        return new BuildEvent(BuildEventType.TEST_CASE_FINISHED, buildId, metadata, name, status, null);
+    }
+
+    /**
+     * Factory method that creates the event of a build whose result has been persisted.
+     *
+     * @param buildResult that has been persisted.
+     * @return a new instance of build event.
+     */
+    public static BuildEvent completed(final PersistedBuildResult buildResult) {
+        final PersistedBuildSummary summary = PersistedBuildSummary.from(buildResult);
+        return new BuildEvent(BuildEventType.COMPLETED, summary.getId(), summary.getMetadata(), null, null, summary);
+    }
+
+    /**
+     * Factory method that creates the event of a build that has been stopped by an error, so it will not have
+     * a completed event.
+     *
+     * @param buildId  of the build.
+     * @param metadata of the build.
+     * @return a new instance of build event.
+     */
+    public static BuildEvent failed(final String buildId, final Map<String, String> metadata) {
+        return new BuildEvent(BuildEventType.FAILED, buildId, metadata, null, null, null);
+    }
+
+    /**
+     * Factory method that creates the event of a queued build that has been discarded without executing it.
+     *
+     * @param buildId  of the build.
+     * @param metadata of the build.
+     * @return a new instance of build event.
+     */
+    public static BuildEvent cancelled(final String buildId, final Map<String, String> metadata) {
+        return new BuildEvent(BuildEventType.CANCELLED, buildId, metadata, null, null, null);
+    }
+
+    private BuildEvent(final BuildEventType type, final String buildId, final Map<String, String> metadata,
+                       final String testCaseName, final PersistedTestCaseResultStatus testCaseStatus,
+                       final PersistedBuildSummary summary) {
+        this.type = type;
+        this.buildId = buildId;
+        this.metadata = eventMetadata(metadata);
+        this.timestamp = System.currentTimeMillis();
+        this.testCaseName = testCaseName;
+        this.testCaseStatus = testCaseStatus;
+        this.summary = summary;
+    }
+
+    private static Map<String, String> eventMetadata(final Map<String, String> metadata) {
+        final Map<String, String> eventMetadata = new HashMap<>();
+        if(metadata != null) {
+            for(String key : PersistedBuildSummary.getMetadataKeys()) {
+                final String value = metadata.get(key);
+                if(value != null)
+                    eventMetadata.put(key, value);
+            }
+        }
+        return eventMetadata;
+    }
+
+    /**
+     * Gets the position of the event in the stream of events, it is assigned when the event is published.
+     *
+     * @return the sequence number of the event.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(final long sequence) {
+        this.sequence = sequence;
+    }
+
+    public BuildEventType getType() {
+        return type;
+    }
+
+    public String getBuildId() {
+        return buildId;
+    }
+
+    /**
+     * Gets the metadata that identifies the build: repository, branch and commit.
+     *
+     * @return the metadata map.
+     */
+    public Map<String, String> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * Gets the time when the event happened.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the name of the test case of a test case finished event.
+     *
+     * @return the name of the test case, null for other events.
+     */
+    public String getTestCaseName() {
+        return testCaseName;
+    }
+
+    /**
+     * Gets the status of the test case of a test case finished event.
+     *
+     * @return the status of the test case result, null for other events.
+     */
+    public PersistedTestCaseResultStatus getTestCaseStatus() {
+        return testCaseStatus;
+    }
+
+    /**
+     * Gets the summary of the build result of a completed event.
+     *
+     * @return the summary, null for other events.
+     */
+    public PersistedBuildSummary getSummary() {
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        return "BuildEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", buildId='" + buildId + '\'' +
+                ", testCaseName='" + testCaseName + '\'' +
+                ", testCaseStatus=" + testCaseStatus +
+                '}';
+    }
+}
@@ -0,0 +1,140 @@
+package es.weso.ontoloci.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * In process bus of build events. The workers publish the events of the builds they execute and the
+ * listeners, like the event stream of the API, receive them.
+ *
+ * Publishing never blocks the worker: the events are numbered and added to a bounded queue, that is drained
+ * by a single thread that delivers them to the listeners in order. If the queue is full the event is dropped.
+ * The most recent events are kept too, so a client that reconnects can receive the events it missed.
+ *
+ * The capacity of the queue and the number of recent events kept can be configured with the system
+ * properties ontoloci.events.capacity and ontoloci.events.history.
+ *
+ * @author Pablo Menéndez
+ */
+public class BuildEventBus {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildEventBus.class);
+
+    private static final int CAPACITY = Integer.getInteger("ontoloci.events.capacity", 1000);
+    private static final int HISTORY = Integer.getInteger("ontoloci.events.history", 256);
+
+    // Singleton instance.
+    private static final BuildEventBus INSTANCE = new BuildEventBus(CAPACITY, HISTORY);
+
+    private final BlockingQueue<BuildEvent> queue;
+    private final List<BuildEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Recent events and last sequence number, guarded by this.
+    private final Deque<BuildEvent> history = new ArrayDeque<>();
+    private final int historySize;
+    private long sequence;
+
+    /**
+     * Gets the instance of the event bus.
+     *
+     * @return the instance of the event bus.
+     */
+    public static BuildEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates an event bus and starts the thread that delivers the events.
+     *
+     * @param capacity    maximum number of events waiting to be delivered.
+     * @param historySize number of recent events kept.
+     */
+    BuildEventBus(final int capacity, final int historySize) {
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        this.historySize = historySize;
+
+        final Thread thread = new Thread(this::deliver, "ontoloci-build-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Publishes an event, assigning it the following sequence number. It returns immediately, the event is
+     * delivered to the listeners by the thread of the bus.
+     *
+     * @param event to publish.
+     * @return true if the event was queued, false if the queue is full and the event was dropped.
+     */
+    public synchronized boolean publish(final BuildEvent event) {
+        event.setSequence(++sequence);
+        history.addLast(event);
+        if(history.size() > historySize)
+            history.removeFirst();
+
+        final boolean queued = queue.offer(event);
+        if(!queued)
+            LOGGER.warn(String.format("Build event queue is full, dropping %s", event));
+        return queued;
+    }
+
+    /**
+     * Subscribes a listener to the events published from now on.
+     *
+     * @param listener to subscribe.
+     */
+    public void subscribe(final BuildEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Subscribes a listener that first receives the recent events published after a sequence number, and then
+     * the events published from now on. The recent events are delivered from the calling thread, and the
+     * listener may receive again some of them from the thread of the bus, it must ignore them by their sequence.
+     *
+     * @param listener     to subscribe.
+     * @param lastSequence of the last event received by the listener.
+     */
+    public synchronized void subscribe(final BuildEventListener listener, final long lastSequence) {
+        for(BuildEvent event : history) {
+            if(event.getSequence() > lastSequence)
+                listener.onEvent(event);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribes a listener, it stops receiving the events.
+     *
+     * @param listener to unsubscribe.
+     */
+    public void unsubscribe(final BuildEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Task executed by the thread of the bus. Takes the events from the queue and delivers them to the listeners.
+     */
+    private void deliver() {
+        while(!Thread.currentThread().isInterrupted()) {
+            try {
+                final BuildEvent event = queue.take();
+                for(BuildEventListener listener : listeners) {
+                    try {
+                        listener.onEvent(event);
+                    } catch (RuntimeException e) {
+                        // A broken listener must not stop the delivery to the others.
+                        LOGGER.error(String.format("ERROR delivering %s: %s", event, e.getMessage()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package es.weso.ontoloci.persistence;
+
+/**
+ * Receives the build events published in the {@link BuildEventBus}.
+ *
+ * @author Pablo Menéndez
+ */
+public interface BuildEventListener {
+
+    /**
+     * Receives a build event. It is called from the thread of the event bus, so it must not block.
+     *
+     * @param event published.
+     */
+    void onEvent(BuildEvent event);
+}
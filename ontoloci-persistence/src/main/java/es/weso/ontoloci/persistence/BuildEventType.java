@@ -0,0 +1,76 @@
+package es.weso.ontoloci.persistence;
+
+/**
+ * Represents the steps of the life cycle of a build that are published as build events:
+ *
+ *  - QUEUED when the build is added to the build queue.
+ *  - FETCHING when a worker starts fetching the test cases of the build from the repository.
+ *  - TEST_CASE_FINISHED each time a test case of the build has been validated.
+ *  - COMPLETED when the build result has been persisted.
+ *  - FAILED when the build could not be executed or its result could not be persisted.
+ *  - CANCELLED when a queued build is discarded because a newer commit of its branch has been queued.
+ *
+ * @author Pablo Menéndez
+ */
+public enum BuildEventType {
+
+    /**
+     * Represents a build that is waiting in the build queue.
+     */
+    QUEUED("queued"),
+
+    /**
+     * Represents a build whose test cases are being fetched.
+     */
+    FETCHING("fetching"),
+
+    /**
+     * Represents a test case of a build that has been validated.
+     */
+    TEST_CASE_FINISHED("test_case_finished"),
+
+    /**
+     * Represents a build whose result has been persisted.
+     */
+    COMPLETED("completed"),
+
+    /**
+     * Represents a build that has been stopped by an error.
+     */
+    FAILED("failed"),
+
+    /**
+     * Represents a queued build superseded by a newer build of the same branch.
+     */
+    CANCELLED("cancelled");
+
+    /**
+     * Stores the string value of the enum.
+     */
+    private final String value;
+
+    /**
+     * Main constructor for enums.
+     *
+     * @param value corresponds to the string value for the enum.
+     */
+    BuildEventType(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the string value of the enum, it is the name of the event in the event stream.
+     *
+     * @return an string contining the string representation of the enumerator.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    @Override
+    public String toString() {
+        return "BuildEventType{" +
+                "value='" + value + '\'' +
+                '}';
+    }
+}
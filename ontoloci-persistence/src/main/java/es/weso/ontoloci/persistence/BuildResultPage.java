@@ -0,0 +1,58 @@
+package es.weso.ontoloci.persistence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of build results returned by {@link OntolociDAO#findBuildResults(BuildResultQuery)}, or of
+ * their summaries returned by {@link OntolociDAO#findBuildSummaries(BuildResultQuery)}.
+ *
+ * @param <T> type of the build results of the page.
+ * @author Pablo Menéndez
+ */
+public class BuildResultPage<T> {
+
+    private final List<T> buildResults;
+    private final String nextCursor;
+
+    /**
+     * Factory method that creates a new page of build results.
+     *
+     * @param buildResults of the page.
+     * @param nextCursor   to fetch the following page, null if this is the last one.
+     * @return a new instance of build result page.
+     */
+    public static <T> BuildResultPage<T> from(final List<T> buildResults, final String nextCursor) {
+        return new BuildResultPage<>(buildResults, nextCursor);
+    }
+
+    private BuildResultPage(final List<T> buildResults, final String nextCursor) {
+        this.buildResults = buildResults;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getBuildResults() {
+        return Collections.unmodifiableList(buildResults);
+    }
+
+    /**
+     * Gets the cursor of the following page.
+     *
+     * @return the cursor, null if there are no more build results.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "BuildResultPage{" +
+                "buildResults=" + buildResults.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
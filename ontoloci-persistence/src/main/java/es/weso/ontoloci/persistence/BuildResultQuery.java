@@ -0,0 +1,197 @@
+package es.weso.ontoloci.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Describes a page of build results to be fetched from the persistence layer.
+ * All the filters are optional, a null filter matches every build result.
+ *
+ * The build results are ordered by execution date, and by id when two builds share the same date, so
+ * the order is total and a page can be continued from the last build result of the previous one. The
+ * cursor is an opaque string that encodes that position, so the following pages are not affected by the
+ * build results saved in the meantime.
+ *
+ * @author Pablo Menéndez
+ */
+public class BuildResultQuery {
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private String owner;
+    private String repo;
+    private String branch;
+    private PersistedBuildResultStatus status;
+    private Long from;
+    private Long to;
+    private boolean ascending;
+    private String cursor;
+    private Long cursorExecutionDate;
+    private String cursorId;
+    private int limit;
+
+    /**
+     * Factory method that creates a new query without filters, the most recent build results first.
+     *
+     * @param limit maximum number of build results of the page.
+     * @return a new instance of build result query.
+     */
+    public static BuildResultQuery from(final int limit) {
+        return new BuildResultQuery(limit);
+    }
+
+    private BuildResultQuery(final int limit) {
+        if(limit <= 0)
+            throw new IllegalArgumentException(String.format("the limit of a page must be positive, got [%s]", limit));
+        this.limit = limit;
+    }
+
+    public BuildResultQuery withRepository(final String owner, final String repo) {
+        this.owner = owner;
+        this.repo = repo;
+        return this;
+    }
+
+    public BuildResultQuery withBranch(final String branch) {
+        this.branch = branch;
+        return this;
+    }
+
+    public BuildResultQuery withStatus(final PersistedBuildResultStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Restricts the execution date of the build results, both limits are inclusive.
+     *
+     * @param from first execution date in milliseconds, null for no limit.
+     * @param to   last execution date in milliseconds, null for no limit.
+     * @return this query.
+     */
+    public BuildResultQuery withExecutionDateBetween(final Long from, final Long to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public BuildResultQuery withAscendingOrder(final boolean ascending) {
+        this.ascending = ascending;
+        return this;
+    }
+
+    /**
+     * Continues the query after the position of a cursor returned in a previous page.
+     *
+     * @param cursor returned by {@link BuildResultPage#getNextCursor()}, null for the first page.
+     * @return this query.
+     * @throws IllegalArgumentException if the cursor is not valid.
+     */
+    public BuildResultQuery withCursor(final String cursor) {
+        if(cursor == null) {
+            this.cursorExecutionDate = null;
+            this.cursorId = null;
+        } else {
+            final String[] position = decodeCursor(cursor);
+            this.cursorExecutionDate = Long.parseLong(position[0]);
+            this.cursorId = position[1];
+        }
+        this.cursor = cursor;
+        return this;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getRepo() {
+        return repo;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public PersistedBuildResultStatus getStatus() {
+        return status;
+    }
+
+    public Long getFrom() {
+        return from;
+    }
+
+    public Long getTo() {
+        return to;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the execution date of the position of the cursor.
+     *
+     * @return execution date in milliseconds, null if the query has no cursor.
+     */
+    public Long getCursorExecutionDate() {
+        return cursorExecutionDate;
+    }
+
+    /**
+     * Gets the build result id of the position of the cursor.
+     *
+     * @return build result id, null if the query has no cursor.
+     */
+    public String getCursorId() {
+        return cursorId;
+    }
+
+    /**
+     * Creates the cursor that points to a build result.
+     *
+     * @param executionDate of the build result in milliseconds.
+     * @param id            of the build result.
+     * @return the opaque cursor.
+     */
+    public static String encodeCursor(final long executionDate, final String id) {
+        final String position = executionDate + CURSOR_SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(final String cursor) {
+        try {
+            final String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final String[] parts = position.split(CURSOR_SEPARATOR, 2);
+            if(parts.length != 2)
+                throw new IllegalArgumentException(String.format("invalid cursor [%s]", cursor));
+            Long.parseLong(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is also an IllegalArgumentException.
+            throw new IllegalArgumentException(String.format("invalid cursor [%s]", cursor), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BuildResultQuery{" +
+                "owner='" + owner + '\'' +
+                ", repo='" + repo + '\'' +
+                ", branch='" + branch + '\'' +
+                ", status=" + status +
+                ", from=" + from +
+                ", to=" + to +
+                ", ascending=" + ascending +
+                ", cursor='" + cursor + '\'' +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -13,12 +13,66 @@ import java.util.Optional;
 public interface OntolociDAO {
 
     /**
-     * Finds all the build results in the persistence layer.
+     * Finds all the build results in the persistence layer, the most recent execution first.
      *
      * @return all the existing build results in the persistence layer.
      */
     List<PersistedBuildResult> findAllBuildResults();
 
+    /**
+     * Finds the build results of a repository, the most recent execution first.
+     *
+     * @param owner of the repository.
+     * @param repo name of the repository.
+     * @return the build results of the repository.
+     */
+    List<PersistedBuildResult> findBuildResultsForRepository(String owner, String repo);
+
+    /**
+     * Finds the build results of a branch of a repository, the most recent execution first.
+     *
+     * @param owner of the repository.
+     * @param repo name of the repository.
+     * @param branch name of the branch.
+     * @return the build results of the branch.
+     */
+    List<PersistedBuildResult> findBuildResultsForBranch(String owner, String repo, String branch);
+
+    /**
+     * Finds the build results of a commit, the most recent execution first.
+     *
+     * @param commit sha of the commit.
+     * @return the build results of the commit.
+     */
+    List<PersistedBuildResult> findBuildResultsForCommit(String commit);
+
+    /**
+     * Finds the build results executed between two dates, the most recent execution first.
+     *
+     * @param from first execution date in milliseconds, inclusive.
+     * @param to last execution date in milliseconds, inclusive.
+     * @return the build results executed between both dates.
+     */
+    List<PersistedBuildResult> findBuildResultsBetween(long from, long to);
+
+    /**
+     * Finds a page of the build results that match the filters of a query, in the order of the query.
+     *
+     * @param query with the filters, the order and the position of the page.
+     * @return the page of build results and the cursor of the following one.
+     */
+    BuildResultPage<PersistedBuildResult> findBuildResults(BuildResultQuery query);
+
+    /**
+     * Finds a page of the summaries of the build results that match the filters of a query. The summaries
+     * are maintained by the persistence layer when the build results are saved, so they can be listed
+     * without reading the test cases.
+     *
+     * @param query with the filters, the order and the position of the page.
+     * @return the page of build summaries and the cursor of the following one.
+     */
+    BuildResultPage<PersistedBuildSummary> findBuildSummaries(BuildResultQuery query);
+
     /**
      * Finds a build result for each unique id. It returns an optional so if none found
      * will return empty.
@@ -53,4 +107,10 @@ public interface OntolociDAO {
      * Removes all the build results in the persistence layer.
      */
     void removeAll();
+
+    /**
+     * Reclaims the storage of the removed build results and of the test case contents that are no longer
+     * referenced. It may take long, so it is meant to run in the background.
+     */
+    void compact();
 }
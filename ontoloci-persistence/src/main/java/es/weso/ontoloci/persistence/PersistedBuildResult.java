@@ -98,6 +98,7 @@ public class PersistedBuildResult {
      */
     private PersistedBuildResult(final String id, final Collection<PersistedTestCaseResult> testCaseResults) {
         this.id = id;
+        this.metadata = new HashMap<>();
         this.testCaseResults = testCaseResults;
 
         LOGGER.debug("Creating a new build result for ");
@@ -128,8 +129,7 @@ public class PersistedBuildResult {
      * @return the metadata map.
      */
     public Map<String, String> getMetadata() {
-        LOGGER.debug("Getting the metadata of the test case result " + this.metadata.toString()
-                + " from " + this);
+        LOGGER.debug(String.format("GET reading the metadata of the persisted build result, returning [%s]", this.metadata.size()));
 
         return Collections.unmodifiableMap(this.metadata);
     }
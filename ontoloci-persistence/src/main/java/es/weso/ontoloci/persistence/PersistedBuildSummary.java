@@ -0,0 +1,172 @@
+package es.weso.ontoloci.persistence;
+
+import java.util.*;
+
+/**
+ * Lightweight view of a persisted build result for the list of builds.
+ * It keeps the status, the metadata that identifies the build and the counts of the test cases,
+ * but none of the test case contents (ontology, instances, schema and shape maps).
+ *
+ * @author Pablo Menéndez
+ */
+public class PersistedBuildSummary {
+
+    // Metadata keys of the build result that are kept in the summary.
+    private static final List<String> SUMMARY_METADATA = Arrays.asList(
+            "owner", "repo", "branch", "commit", "commitId", "commitName", "prNumber",
+            "checkTitle", "execution_time", "execution_date", "contents_removed"
+    );
+
+    private final String id;
+    private final Map<String, String> metadata;
+    private final PersistedBuildResultStatus status;
+    private final int total;
+    private final int passed;
+    private final int failed;
+
+    /**
+     * Factory method that creates the summary of a persisted build result.
+     *
+     * @param buildResult from which to create the summary.
+     * @return a new instance of persisted build summary.
+     */
+    public static PersistedBuildSummary from(final PersistedBuildResult buildResult) {
+        int passed = 0;
+        int failed = 0;
+        final Collection<PersistedTestCaseResult> testCaseResults = buildResult.getTestCaseResults();
+        for(PersistedTestCaseResult testCaseResult : testCaseResults) {
+            if(testCaseResult.getStatus() == PersistedTestCaseResultStatus.SUCCESS)
+                passed++;
+            else if(testCaseResult.getStatus() == PersistedTestCaseResultStatus.FAILURE)
+                failed++;
+        }
+
+        return new PersistedBuildSummary(buildResult.getId(), summaryMetadata(buildResult.getMetadata()), buildResult.getStatus(),
+                testCaseResults.size(), passed, failed);
+    }
+
+    /**
+     * Factory method that creates a summary from its values, used when the build result is not loaded.
+     *
+     * @param id       of the build result.
+     * @param metadata of the build result, only the keys kept in the summaries are used.
+     * @param status   of the build result.
+     * @param total    number of test cases.
+     * @param passed   number of test cases that passed.
+     * @param failed   number of test cases that failed.
+     * @return a new instance of persisted build summary.
+     */
+    public static PersistedBuildSummary from(final String id, final Map<String, String> metadata, final PersistedBuildResultStatus status,
+                                             final int total, final int passed, final int failed) {
+        return new PersistedBuildSummary(id, summaryMetadata(metadata), status, total, passed, failed);
+    }
+
+    /**
+     * Gets the metadata keys of the build results that are kept in the summaries.
+     *
+     * @return the list of metadata keys.
+     */
+    public static List<String> getMetadataKeys() {
+        return Collections.unmodifiableList(SUMMARY_METADATA);
+    }
+
+    private static Map<String, String> summaryMetadata(final Map<String, String> metadata) {
+        final Map<String, String> summaryMetadata = new HashMap<>();
+        for(String key : SUMMARY_METADATA) {
+            final String value = metadata.get(key);
+            if(value != null)
+                summaryMetadata.put(key, value);
+        }
+        return summaryMetadata;
+    }
+
+    private PersistedBuildSummary(final String id, final Map<String, String> metadata, final PersistedBuildResultStatus status,
+                                  final int total, final int passed, final int failed) {
+        this.id = id;
+        this.metadata = metadata;
+        this.status = status;
+        this.total = total;
+        this.passed = passed;
+        this.failed = failed;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the metadata of the build that identifies it: repository, branch, commit, check title,
+     * execution time and execution date, and whether its test case contents were removed.
+     *
+     * @return the metadata map.
+     */
+    public Map<String, String> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    public PersistedBuildResultStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the number of test cases of the build.
+     *
+     * @return number of test cases.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the number of test cases that passed.
+     *
+     * @return number of passed test cases.
+     */
+    public int getPassed() {
+        return passed;
+    }
+
+    /**
+     * Gets the number of test cases that failed.
+     *
+     * @return number of failed test cases.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the execution time of the build as it was measured by the worker.
+     *
+     * @return the execution time, null if the build was not executed.
+     */
+    public String getExecutionTime() {
+        return metadata.get("execution_time");
+    }
+
+    /**
+     * Gets the execution date of the build.
+     *
+     * @return execution date in milliseconds, null if the build was not executed.
+     */
+    public Long getExecutionDate() {
+        final String date = metadata.get("execution_date");
+        try {
+            return date != null ? Long.parseLong(date) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PersistedBuildSummary{" +
+                "id='" + id + '\'' +
+                ", metadata=" + metadata +
+                ", status=" + status +
+                ", total=" + total +
+                ", passed=" + passed +
+                ", failed=" + failed +
+                '}';
+    }
+}
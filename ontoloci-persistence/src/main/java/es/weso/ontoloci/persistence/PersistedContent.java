@@ -0,0 +1,90 @@
+package es.weso.ontoloci.persistence;
+
+import java.util.Objects;
+
+/**
+ * A content of a persisted test case. The content is held inline until it is moved to a blob store,
+ * then only its hash is kept and the text is read from the store each time it is requested.
+ *
+ * @author Pablo Menéndez
+ */
+public class PersistedContent {
+
+    private final String content;
+    private final String hash;
+    private final BlobStore store;
+
+    /**
+     * Factory method that creates a new inline content.
+     *
+     * @param content text of the content, may be null.
+     * @return a new instance of persisted content.
+     */
+    public static PersistedContent from(final String content) {
+        return new PersistedContent(content, null, null);
+    }
+
+    /**
+     * Factory method that creates a reference to a content of a blob store.
+     *
+     * @param hash  of the content in the store.
+     * @param store where the content is stored.
+     * @return a new instance of persisted content.
+     */
+    public static PersistedContent from(final String hash, final BlobStore store) {
+        return new PersistedContent(null, Objects.requireNonNull(hash), Objects.requireNonNull(store));
+    }
+
+    private PersistedContent(final String content, final String hash, final BlobStore store) {
+        this.content = content;
+        this.hash = hash;
+        this.store = store;
+    }
+
+    /**
+     * Gets the text of the content, reading it from the store if it is a reference.
+     *
+     * @return the text of the content.
+     * @throws IllegalStateException if the content is no longer in the store.
+     */
+    public String get() {
+        if(store == null)
+            return content;
+        return store.get(hash).orElseThrow(() ->
+                new IllegalStateException(String.format("content with hash=[%s] not found in the blob store", hash)));
+    }
+
+    /**
+     * Moves the content to a blob store.
+     *
+     * @param blobStore where the content is stored.
+     * @return a reference to the content in the store, or this content if it is already there or it is null.
+     */
+    public PersistedContent storeIn(final BlobStore blobStore) {
+        if(store == blobStore || (store == null && content == null))
+            return this;
+        return from(blobStore.put(get()), blobStore);
+    }
+
+    /**
+     * Brings the content back from the blob store.
+     *
+     * @return an inline content with the same text, or this content if it is already inline.
+     */
+    public PersistedContent load() {
+        return store == null ? this : from(get());
+    }
+
+    /**
+     * Gets the hash of the content in the store.
+     *
+     * @return the hash, null if the content is inline.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public boolean isStored() {
+        return store != null;
+    }
+}
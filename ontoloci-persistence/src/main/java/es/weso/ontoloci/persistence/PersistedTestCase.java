@@ -3,12 +3,19 @@ package es.weso.ontoloci.persistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This models a test case, which is composed of a name, the ontology that is
  * being tested, the data to test, the schema against the tests will be thrown,
  * the input shape map, which specifies the nodes that will be tested. And the
  * output expected shape map.
  *
+ * The contents are held inline when the test case is created. Once the test case is saved the
+ * persistence layer moves them to its blob store, and the test case only keeps their hashes, so
+ * the same content saved by many builds is not repeated in memory.
+ *
  * @author Pablo Menéndez
  */
 public class PersistedTestCase {
@@ -17,11 +24,11 @@ public class PersistedTestCase {
     private static final Logger LOGGER = LoggerFactory.getLogger(PersistedTestCase.class);
 
     private final String name;
-    private final String ontology;
-    private final String instances;
-    private final String schema;
-    private final String producedShapeMap;
-    private final String expectedShapeMap;
+    private volatile PersistedContent ontology;
+    private volatile PersistedContent instances;
+    private volatile PersistedContent schema;
+    private volatile PersistedContent producedShapeMap;
+    private volatile PersistedContent expectedShapeMap;
 
     /**
      * The default constructor is a basic all-args constructor. All the arguments
@@ -45,13 +52,75 @@ public class PersistedTestCase {
                              final String schema, final String producedShapeMap,
                              final String expectedShapeMap) {
         this.name = name;
-        this.ontology = ontology;
-        this.instances = instances;
-        this.schema = schema;
-        this.producedShapeMap = producedShapeMap;
-        this.expectedShapeMap = expectedShapeMap;
+        this.ontology = PersistedContent.from(ontology);
+        this.instances = PersistedContent.from(instances);
+        this.schema = PersistedContent.from(schema);
+        this.producedShapeMap = PersistedContent.from(producedShapeMap);
+        this.expectedShapeMap = PersistedContent.from(expectedShapeMap);
+
+        LOGGER.debug(String.format("Creating a PersistedTestCase from the public constructor with name=[%s]", this.name));
+    }
 
-        LOGGER.debug("Creating a PersistedTestCase from the public constructor with name=[%]", this.name);
+    /**
+     * Factory method that creates a test case from contents that may be already stored in a blob store.
+     *
+     * @param name             of the test case.
+     * @param ontology         content of the ontology file.
+     * @param instances        content of the data file.
+     * @param schema           content of the schema.
+     * @param producedShapeMap content of the produced result shape map.
+     * @param expectedShapeMap content of the expected result shape map.
+     * @return a new instance of persisted test case.
+     */
+    public static PersistedTestCase from(final String name, final PersistedContent ontology, final PersistedContent instances,
+                                         final PersistedContent schema, final PersistedContent producedShapeMap,
+                                         final PersistedContent expectedShapeMap) {
+        final PersistedTestCase testCase = new PersistedTestCase(name, null, null, null, null, null);
+        testCase.ontology = ontology;
+        testCase.instances = instances;
+        testCase.schema = schema;
+        testCase.producedShapeMap = producedShapeMap;
+        testCase.expectedShapeMap = expectedShapeMap;
+        return testCase;
+    }
+
+    /**
+     * Moves the contents of the test case to a blob store, after this the contents are read from the store.
+     *
+     * @param store where the contents are stored.
+     */
+    public synchronized void storeIn(final BlobStore store) {
+        this.ontology = this.ontology.storeIn(store);
+        this.instances = this.instances.storeIn(store);
+        this.schema = this.schema.storeIn(store);
+        this.producedShapeMap = this.producedShapeMap.storeIn(store);
+        this.expectedShapeMap = this.expectedShapeMap.storeIn(store);
+    }
+
+    /**
+     * Brings the contents of the test case back from the blob store, after this the test case no
+     * longer depends on the store.
+     */
+    public synchronized void loadContents() {
+        this.ontology = this.ontology.load();
+        this.instances = this.instances.load();
+        this.schema = this.schema.load();
+        this.producedShapeMap = this.producedShapeMap.load();
+        this.expectedShapeMap = this.expectedShapeMap.load();
+    }
+
+    /**
+     * Gets the hashes of the contents of the test case that are in a blob store.
+     *
+     * @return the hashes of the stored contents.
+     */
+    public List<String> storedHashes() {
+        final List<String> hashes = new ArrayList<>(5);
+        for(PersistedContent content : new PersistedContent[] { ontology, instances, schema, producedShapeMap, expectedShapeMap }) {
+            if(content.isStored())
+                hashes.add(content.getHash());
+        }
+        return hashes;
     }
 
     /**
@@ -69,7 +138,7 @@ public class PersistedTestCase {
      * @return ontology file path
      */
     public String getOntology() {
-        return ontology;
+        return ontology.get();
     }
 
     /**
@@ -78,7 +147,7 @@ public class PersistedTestCase {
      * @return data content
      */
     public String getInstances() {
-        return instances;
+        return instances.get();
     }
 
     /**
@@ -87,7 +156,7 @@ public class PersistedTestCase {
      * @return test schema content
      */
     public String getSchema() {
-        return schema;
+        return schema.get();
     }
 
     /**
@@ -96,7 +165,7 @@ public class PersistedTestCase {
      * @return test shape map content
      */
     public String getExpectedShapeMap() {
-        return expectedShapeMap;
+        return expectedShapeMap.get();
     }
 
     /**
@@ -105,13 +174,13 @@ public class PersistedTestCase {
      * @return the expected shape map content
      */
     public String getProducedShapeMap() {
-        return producedShapeMap;
+        return producedShapeMap.get();
     }
 
     @Override
     public String toString() {
-        return "TestCase [test_name=" + name + ", ontology=" + ontology + ", data=" + instances + ", schema="
-                + schema + ", in_shape_map=" + expectedShapeMap + ", out_shape_map="
-                + producedShapeMap + "]";
+        return "TestCase [test_name=" + name + ", ontology=" + getOntology() + ", data=" + getInstances() + ", schema="
+                + getSchema() + ", in_shape_map=" + getExpectedShapeMap() + ", out_shape_map="
+                + getProducedShapeMap() + "]";
     }
 }
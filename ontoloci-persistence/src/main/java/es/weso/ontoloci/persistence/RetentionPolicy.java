@@ -0,0 +1,174 @@
+package es.weso.ontoloci.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retention policy of the build history of a DAO. Each time it is applied it:
+ *
+ *  - removes the build results of each branch older than the most recent ones,
+ *  - removes the test case contents (ontology, instances, schema and shape maps) of the build results older
+ *    than a maximum age. The build result keeps its metadata, status and test case results, so its summary
+ *    does not change, and it is marked with the contents_removed metadata key,
+ *  - compacts the DAO to reclaim the storage, if any build result was changed.
+ *
+ * The policy can be started to be applied periodically by a background thread, off the request path.
+ *
+ * @author Pablo Menéndez
+ */
+public class RetentionPolicy implements Closeable {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetentionPolicy.class);
+
+    /**
+     * Metadata key of the build results whose test case contents were removed.
+     */
+    public static final String CONTENTS_REMOVED = "contents_removed";
+
+    // Number of summaries read in each page while the history is walked.
+    private static final int PAGE_SIZE = 500;
+
+    private final OntolociDAO dao;
+    private final int buildsPerBranch;
+    private final long contentsMaxAge;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Factory method that creates a retention policy for a DAO.
+     *
+     * @param dao             whose build results are retained.
+     * @param buildsPerBranch number of most recent build results kept for each branch, 0 or less to keep all.
+     * @param contentsMaxAge  maximum age in milliseconds of the test case contents, 0 or less to keep all.
+     * @return a new instance of retention policy.
+     */
+    public static RetentionPolicy from(final OntolociDAO dao, final int buildsPerBranch, final long contentsMaxAge) {
+        return new RetentionPolicy(dao, buildsPerBranch, contentsMaxAge);
+    }
+
+    private RetentionPolicy(final OntolociDAO dao, final int buildsPerBranch, final long contentsMaxAge) {
+        this.dao = Objects.requireNonNull(dao);
+        this.buildsPerBranch = buildsPerBranch;
+        this.contentsMaxAge = contentsMaxAge;
+    }
+
+    /**
+     * Starts applying the policy periodically in a background thread.
+     *
+     * @param interval between two applications of the policy.
+     * @param unit     of the interval.
+     */
+    public synchronized void start(final long interval, final TimeUnit unit) {
+        if(executor != null)
+            throw new IllegalStateException("the retention policy is already started");
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ontoloci-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::applyQuietly, interval, interval, unit);
+        LOGGER.info(String.format("Started the retention policy, keeping [%s] builds per branch and contents of [%s] ms, every [%s] %s",
+                buildsPerBranch, contentsMaxAge, interval, unit));
+    }
+
+    /**
+     * Applies the policy to the build results of the DAO.
+     *
+     * @return number of build results removed or whose contents were removed.
+     */
+    public int apply() {
+        final long now = System.currentTimeMillis();
+        final List<PersistedBuildSummary> expired = new ArrayList<>();
+        final List<String> withOldContents = new ArrayList<>();
+
+        // The summaries are walked from the most recent, so the first ones of each branch are kept.
+        final Map<String, Integer> buildsByBranch = new HashMap<>();
+        String cursor = null;
+        do {
+            final BuildResultPage<PersistedBuildSummary> page = dao.findBuildSummaries(BuildResultQuery.from(PAGE_SIZE).withCursor(cursor));
+            for(PersistedBuildSummary summary : page.getBuildResults()) {
+                final int position = buildsByBranch.merge(branchOf(summary), 1, Integer::sum);
+                if(buildsPerBranch > 0 && position > buildsPerBranch)
+                    expired.add(summary);
+                else if(hasOldContents(summary, now))
+                    withOldContents.add(summary.getId());
+            }
+            cursor = page.getNextCursor();
+        } while(cursor != null);
+
+        for(PersistedBuildSummary summary : expired) {
+            // The DAOs remove the build results by id, so the test cases are not loaded just to remove them.
+            dao.remove(PersistedBuildResult.from(summary.getId(), summary.getMetadata(), summary.getStatus(), new ArrayList<>()));
+        }
+        for(String id : withOldContents) {
+            dao.findBuildResultForId(id).ifPresent(buildResult -> dao.update(withoutContents(buildResult)));
+        }
+
+        final int changed = expired.size() + withOldContents.size();
+        if(changed > 0)
+            dao.compact();
+        LOGGER.debug(String.format("Applied the retention policy, removed [%s] build results and the contents of [%s]",
+                expired.size(), withOldContents.size()));
+        return changed;
+    }
+
+    private void applyQuietly() {
+        try {
+            apply();
+        } catch (RuntimeException e) {
+            LOGGER.error("Error applying the retention policy", e);
+        }
+    }
+
+    /**
+     * Stops applying the policy periodically.
+     */
+    @Override
+    public synchronized void close() {
+        if(executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private boolean hasOldContents(final PersistedBuildSummary summary, final long now) {
+        final Long executionDate = summary.getExecutionDate();
+        return contentsMaxAge > 0
+                && executionDate != null
+                && executionDate < now - contentsMaxAge
+                && !summary.getMetadata().containsKey(CONTENTS_REMOVED);
+    }
+
+    private static String branchOf(final PersistedBuildSummary summary) {
+        final Map<String, String> metadata = summary.getMetadata();
+        return metadata.get("owner") + "/" + metadata.get("repo") + "/" + metadata.get("branch");
+    }
+
+    /**
+     * Copies a build result without the contents of its test cases.
+     *
+     * @param buildResult to copy.
+     * @return the build result with the same id, metadata, status and test case results, but no contents.
+     */
+    private static PersistedBuildResult withoutContents(final PersistedBuildResult buildResult) {
+        final List<PersistedTestCaseResult> testCaseResults = new ArrayList<>();
+        for(PersistedTestCaseResult testCaseResult : buildResult.getTestCaseResults()) {
+            final String name = testCaseResult.getTestCase() != null ? testCaseResult.getTestCase().getName() : null;
+            final PersistedTestCaseResult copy = PersistedTestCaseResult.from(new PersistedTestCase(name, null, null, null, null, null));
+            copy.setStatus(testCaseResult.getStatus());
+            copy.setMetadata(new HashMap<>(testCaseResult.getMetadata()));
+            testCaseResults.add(copy);
+        }
+
+        final Map<String, String> metadata = new HashMap<>(buildResult.getMetadata());
+        metadata.put(CONTENTS_REMOVED, "true");
+        return PersistedBuildResult.from(buildResult.getId(), metadata, buildResult.getStatus(), testCaseResults);
+    }
+}
@@ -0,0 +1,37 @@
+package es.weso.ontoloci.persistence.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This class provides the hash used to address the contents of the test cases, shared by the blob stores,
+ * the caches of the validation and the disk cache of the repository files.
+ *
+ * @author Pablo Menéndez
+ */
+public class HashUtils {
+
+    private HashUtils() {
+    }
+
+    /**
+     * Computes the SHA-256 hash of a text as an hexadecimal string.
+     *
+     * @param content to hash.
+     * @return hash of the content.
+     */
+    public static String sha256(final String content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for(byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
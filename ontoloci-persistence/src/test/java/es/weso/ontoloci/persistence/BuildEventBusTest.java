@@ -0,0 +1,71 @@
+package es.weso.ontoloci.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildEventBusTest {
+
+    @Test
+    public void replayAfterLastSequenceTest() throws InterruptedException {
+        final BuildEventBus bus = new BuildEventBus(10, 3);
+        for(int i = 1; i <= 5; i++)
+            assertTrue(bus.publish(BuildEvent.queued("b" + i, null)));
+
+        // Only the events after the last sequence that are still in the history are replayed, in order.
+        assertEquals(Arrays.asList("b4@4", "b5@5"), replay(bus, 3));
+        assertEquals(Arrays.asList("b3@3", "b4@4", "b5@5"), replay(bus, 0));
+
+        // The events published after the subscription are delivered by the thread of the bus.
+        final CountDownLatch delivered = new CountDownLatch(1);
+        bus.subscribe(event -> {
+            if(event.getSequence() == 6)
+                delivered.countDown();
+        });
+        bus.publish(BuildEvent.fetching("b6", null));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fullQueueDropTest() throws InterruptedException {
+        final BuildEventBus bus = new BuildEventBus(1, 10);
+        final CountDownLatch taken = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        bus.subscribe(event -> {
+            taken.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // The first event blocks the thread of the bus, the second fills the queue and the third is dropped.
+        assertTrue(bus.publish(BuildEvent.queued("b1", null)));
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        assertTrue(bus.publish(BuildEvent.queued("b2", null)));
+        assertFalse(bus.publish(BuildEvent.queued("b3", null)));
+        release.countDown();
+
+        // The dropped event keeps its sequence and can still be replayed from the history.
+        assertEquals(Arrays.asList("b1@1", "b2@2", "b3@3"), replay(bus, 0));
+    }
+
+    /**
+     * Subscribes to a bus and gets the events replayed from the calling thread, ignoring the ones that the
+     * thread of the bus may deliver too.
+     */
+    private static List<String> replay(BuildEventBus bus, long lastSequence) {
+        final Thread caller = Thread.currentThread();
+        final List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe(event -> {
+            if(Thread.currentThread() == caller)
+                replayed.add(event.getBuildId() + "@" + event.getSequence());
+        }, lastSequence);
+        return replayed;
+    }
+}
@@ -1,33 +1,100 @@
 package es.weso.ontoloci.scheduler;
 
+import es.weso.ontoloci.persistence.BuildEvent;
+import es.weso.ontoloci.persistence.BuildEventBus;
 import es.weso.ontoloci.worker.WorkerExecutor;
-import es.weso.ontoloci.worker.WorkerSequential;
+import es.weso.ontoloci.worker.WorkerParallel;
 import es.weso.ontoloci.worker.build.Build;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * The scheduler keeps a bounded queue of pending builds that is drained by a pool of worker threads.
+ * Each worker thread owns its own WorkerExecutor, so the builds of different repositories are executed
+ * in parallel and the callers that schedule a build never wait for it to finish.
+ *
+ * The builds of a branch are coalesced: when a worker takes a build from the queue and a newer build of the
+ * same branch has been scheduled, the build is cancelled, as only the result of the newest commit matters.
+ *
+ * The listeners added with {@link #addFinishedListener(Consumer)} are notified when a build leaves the scheduler,
+ * because it has been executed, has failed or has been cancelled.
+ *
+ * The size of the pool and the capacity of the queue can be configured with the system properties
+ * ontoloci.scheduler.workers and ontoloci.scheduler.capacity.
+ *
+ * @author Pablo Menéndez
+ */
 public class Scheduler {
 
     // LOGGER CREATION
     private static final Logger LOGGER = LoggerFactory.getLogger(Scheduler.class);
 
+    private static final String WORKERS_PROPERTY = "ontoloci.scheduler.workers";
+    private static final String CAPACITY_PROPERTY = "ontoloci.scheduler.capacity";
+    private static final int DEFAULT_CAPACITY = 100;
+
     // Singleton instance.
-    private static final Scheduler INSTANCE = new Scheduler();
+    private static final Scheduler INSTANCE = new Scheduler(
+            Integer.getInteger(WORKERS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY)
+    );
+
+    private final BlockingQueue<Build> buildQueue;
+    private final List<Thread> workerThreads;
+    private final List<Consumer<Build>> finishedListeners = new CopyOnWriteArrayList<>();
 
-    private final LinkedList<Build> buildStack;
-    private final WorkerExecutor workerExecutor;
+    // Id of the last build scheduled for each branch that has builds in the queue.
+    private final Map<String, String> latestBuilds = new ConcurrentHashMap<>();
 
     /**
-     * Private singleton constructor.
+     * Executes the builds taken from the queue by a worker thread.
      */
-    private Scheduler() {
-        LOGGER.debug("Creating the scheduler instance");
-        this.buildStack = new LinkedList<>();
+    interface BuildExecutor {
+        void executeBuild(Build build);
+    }
 
+    /**
+     * Private singleton constructor. Creates the build queue and starts the worker threads.
+     *
+     * @param workers   number of threads consuming the build queue.
+     * @param capacity  maximum number of pending builds.
+     */
+    private Scheduler(final int workers, final int capacity) {
         // This line uses dependency injection to set the specific type of worker to use.
-        this.workerExecutor = WorkerExecutor.from(new WorkerSequential());
+        // The parallel workers share the common pool, so the cores are not oversubscribed.
+        this(workers, capacity, () -> WorkerExecutor.from(new WorkerParallel())::executeBuild);
+    }
+
+    /**
+     * Creates the build queue and starts the worker threads, each one with its own build executor.
+     *
+     * @param workers   number of threads consuming the build queue.
+     * @param capacity  maximum number of pending builds.
+     * @param executors creates the build executor of each worker thread.
+     */
+    Scheduler(final int workers, final int capacity, final Supplier<BuildExecutor> executors) {
+        LOGGER.debug(String.format("Creating the scheduler instance with [%s] workers and capacity=[%s]", workers, capacity));
+        this.buildQueue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.workerThreads = new ArrayList<>();
+
+        for(int i = 0; i < Math.max(1, workers); i++) {
+            final BuildExecutor buildExecutor = executors.get();
+            final Thread thread = new Thread(() -> cron(buildExecutor), "ontoloci-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            this.workerThreads.add(thread);
+        }
     }
 
     /**
@@ -40,28 +107,191 @@ public class Scheduler {
     }
 
     /**
-     * Schedule a build. This adds the build to the last of the build stack.
+     * Schedule a build. This adds the build to the tail of the build queue and returns immediately,
+     * the build will be executed by the first worker thread that becomes idle. A queued build event is
+     * published for the builds that are accepted. The queued builds of the same branch are superseded by it.
      *
-     * ¡¡¡ As it is implemented at the moment you cannot insert a build till the previous has finished!!!
+     * @param build to add to the build queue.
+     * @return true if the build was queued, false if the queue is full.
+     */
+    public boolean scheduleBuild(Build build) {
+        LOGGER.debug("New build scheduled " + build);
+        final String previous = supersede(build);
+        final boolean queued = this.buildQueue.offer(build);
+        if(!queued) {
+            LOGGER.error(String.format("Build queue is full, rejecting build for [%s]", build.getMetadata()));
+            restore(build, previous);
+        } else
+            queued(build);
+        return queued;
+    }
+
+    /**
+     * Schedule a build, waiting for a free slot in the build queue if it is full. This is how the callers
+     * that can wait are slowed down to the pace of the workers, instead of having their builds rejected.
      *
-     * @param build to add to the build stack.
+     * @param build   to add to the build queue.
+     * @param timeout maximum time to wait for a free slot.
+     * @param unit    of the timeout.
+     * @return true if the build was queued, false if the queue is still full after the timeout.
+     * @throws InterruptedException if the thread is interrupted while waiting.
      */
-    public void scheduleBuild(Build build) {
+    public boolean scheduleBuild(Build build, long timeout, TimeUnit unit) throws InterruptedException {
         LOGGER.debug("New build scheduled " + build);
-        this.buildStack.addLast(build);
-        this.cron();
+        final String previous = supersede(build);
+        boolean queued = false;
+        try {
+            queued = this.buildQueue.offer(build, timeout, unit);
+        } finally {
+            if(queued)
+                queued(build);
+            else
+                restore(build, previous);
+        }
+        return queued;
+    }
+
+    /**
+     * Registers a build as the latest of its branch. It is done before the build is added to the queue, so an
+     * idle worker that takes it right away already sees it as the latest and does not cancel it.
+     *
+     * @param build to be added to the queue.
+     * @return the id of the previous latest build of the branch, null if there is none.
+     */
+    private String supersede(Build build) {
+        final String branchKey = getBranchKey(build);
+        return branchKey == null ? null : this.latestBuilds.put(branchKey, build.getId());
+    }
+
+    /**
+     * Restores the previous latest build of the branch of a build that could not be added to the queue, unless
+     * a newer build of the branch has been registered in the meantime.
+     *
+     * @param build    that was not added to the queue.
+     * @param previous id of the latest build of the branch before it, null if there was none.
+     */
+    private void restore(Build build, String previous) {
+        final String branchKey = getBranchKey(build);
+        if(branchKey == null)
+            return;
+        if(previous == null)
+            this.latestBuilds.remove(branchKey, build.getId());
+        else
+            this.latestBuilds.replace(branchKey, build.getId(), previous);
+    }
+
+    /**
+     * Publishes the queued event of a build that has been added to the queue.
+     *
+     * @param build added to the queue.
+     */
+    private void queued(Build build) {
+        BuildEventBus.getInstance().publish(BuildEvent.queued(build.getId(), build.getMetadata()));
     }
 
     /**
-     * This cron task shoud be asynchronos but we need to be carefull with the accessed data structure.
+     * Checks if a build taken from the queue has been superseded by a newer build of its branch.
+     *
+     * @param build taken from the queue.
+     * @return true if there is a newer build of the branch in the queue.
+     */
+    private boolean isSuperseded(Build build) {
+        final String branchKey = getBranchKey(build);
+        if(branchKey == null)
+            return false;
+        final String latest = this.latestBuilds.get(branchKey);
+        if(latest != null && !latest.equals(build.getId()))
+            return true;
+        // This is the latest build of the branch, no build of the branch is left in the queue.
+        this.latestBuilds.remove(branchKey, build.getId());
+        return false;
+    }
+
+    /**
+     * Gets the key of the branch of a build.
+     *
+     * @param build to get the key of.
+     * @return the key, null if the build has no repository or branch metadata.
+     */
+    private static String getBranchKey(Build build) {
+        final Map<String, String> metadata = build.getMetadata();
+        if(metadata.get("owner") == null || metadata.get("repo") == null || metadata.get("branch") == null)
+            return null;
+        return metadata.get("owner") + "/" + metadata.get("repo") + "/" + metadata.get("branch");
+    }
+
+    /**
+     * Adds a listener that receives the builds that leave the scheduler, after they are executed, even if the
+     * execution fails, or when they are cancelled. It is called from the worker threads, so it must not block.
+     *
+     * @param listener of the finished builds.
+     */
+    public void addFinishedListener(Consumer<Build> listener) {
+        this.finishedListeners.add(listener);
+    }
+
+    /**
+     * Notifies the listeners that a build has left the scheduler.
+     *
+     * @param build that has finished or has been cancelled.
+     */
+    private void finished(Build build) {
+        for(Consumer<Build> listener : this.finishedListeners) {
+            try {
+                listener.accept(build);
+            } catch (RuntimeException e) {
+                // A broken listener must not stop the notification of the others.
+                LOGGER.error(String.format("ERROR notifying the end of %s: %s", build, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of builds waiting to be executed.
+     *
+     * @return pending builds.
+     */
+    public int getPendingBuilds() {
+        return this.buildQueue.size();
+    }
+
+    /**
+     * Gets the number of threads consuming the build queue.
+     *
+     * @return number of workers.
+     */
+    public int getWorkers() {
+        return this.workerThreads.size();
+    }
+
+    /**
+     * Cron task executed by each worker thread. Takes the builds from the queue and executes them one
+     * after another with the build executor owned by the thread.
+     *
+     * @param buildExecutor that executes the builds of this thread.
      */
-    private void cron() {
-        LOGGER.debug("Scheduler cron task executed");
-        while(!this.buildStack.isEmpty()) {
-            LOGGER.debug("Scheduler consuming " + this.buildStack.getFirst());
-            this.workerExecutor.executeBuild(this.buildStack.getFirst());
-            if(!this.buildStack.isEmpty())
-                this.buildStack.removeFirst();
+    private void cron(BuildExecutor buildExecutor) {
+        LOGGER.debug("Scheduler cron task started on " + Thread.currentThread().getName());
+        while(!Thread.currentThread().isInterrupted()) {
+            try {
+                final Build build = this.buildQueue.take();
+                try {
+                    if(isSuperseded(build)) {
+                        LOGGER.debug("Scheduler cancelling superseded " + build);
+                        BuildEventBus.getInstance().publish(BuildEvent.cancelled(build.getId(), build.getMetadata()));
+                        continue;
+                    }
+                    LOGGER.debug("Scheduler consuming " + build);
+                    buildExecutor.executeBuild(build);
+                } finally {
+                    finished(build);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // A broken build must not kill the worker thread, the executor has published its failed event.
+                LOGGER.error(String.format("ERROR while executing a build at %s: %s", Thread.currentThread().getName(), e.getMessage()));
+            }
         }
     }
 }
@@ -0,0 +1,62 @@
+package es.weso.ontoloci.scheduler;
+
+import es.weso.ontoloci.worker.build.Build;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchedulerTest {
+
+    private static final int WORKERS = 4;
+    private static final int BUILDS = 10;
+
+    @Test
+    public void newestBuildRunsTest() throws InterruptedException {
+        final Set<String> executed = ConcurrentHashMap.newKeySet();
+        final Semaphore finished = new Semaphore(0);
+        final Scheduler scheduler = new Scheduler(WORKERS, 100, () -> build -> executed.add(build.getId()));
+        scheduler.addFinishedListener(build -> finished.release());
+
+        for(int round = 0; round < 200; round++) {
+            // The idle workers take the builds of the branch as soon as they are scheduled.
+            Build newest = null;
+            for(int i = 0; i < BUILDS; i++) {
+                newest = build("master");
+                assertTrue(scheduler.scheduleBuild(newest));
+            }
+            assertTrue(finished.tryAcquire(BUILDS, 5, TimeUnit.SECONDS));
+
+            // The older builds may be cancelled, the newest one is never superseded.
+            assertTrue(executed.contains(newest.getId()), "newest build cancelled in round " + round);
+        }
+    }
+
+    @Test
+    public void branchesTest() throws InterruptedException {
+        final Set<String> executed = ConcurrentHashMap.newKeySet();
+        final Semaphore finished = new Semaphore(0);
+        final Scheduler scheduler = new Scheduler(WORKERS, 100, () -> build -> executed.add(build.getId()));
+        scheduler.addFinishedListener(build -> finished.release());
+
+        // A build does not supersede the builds of other branches.
+        final Build master = build("master");
+        final Build develop = build("develop");
+        assertTrue(scheduler.scheduleBuild(master, 1, TimeUnit.SECONDS));
+        assertTrue(scheduler.scheduleBuild(develop, 1, TimeUnit.SECONDS));
+        assertTrue(finished.tryAcquire(2, 5, TimeUnit.SECONDS));
+        assertEquals(new HashSet<>(Arrays.asList(master.getId(), develop.getId())), executed);
+    }
+
+    private static Build build(String branch) {
+        final Build build = Build.from();
+        build.getMetadata().put("owner", "weso");
+        build.getMetadata().put("repo", "ontoloci");
+        build.getMetadata().put("branch", branch);
+        return build;
+    }
+}
@@ -42,7 +42,7 @@ public class ListenerTest {
                                 .header("X-GitHub-Event","push")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(content)
-                ).andDo(print()).andExpect(status().isOk());
+                ).andDo(print()).andExpect(status().isAccepted());
         }
 
         @Test
@@ -55,6 +55,6 @@ public class ListenerTest {
                                 .header("X-GitHub-Event","pull_request")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(content)
-                ).andDo(print()).andExpect(status().isOk());
+                ).andDo(print()).andExpect(status().isAccepted());
         }
 }
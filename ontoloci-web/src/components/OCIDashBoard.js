@@ -3,7 +3,8 @@ import axios from 'axios';
 import OCIBuild from './OCIBuild';
 import {sortBuilds} from '../utils/buildUtils';
 import {
-  BUILD_ENDPOINT,
+  BUILD_SUMMARY_ENDPOINT,
+  NEXT_CURSOR_HEADER,
   REQUEST_METHOD,
   REQUES_HEADER} from '../utils/requestUtils';
 
@@ -11,16 +12,20 @@ import {
 function OCIDashBoard() {
 
   const [builds,setBuilds] = useState([]);
+  // Cursor of the following page of builds, null when the last page has been loaded.
+  const [nextCursor,setNextCursor] = useState(null);
 
-  const getBuilds = function(){
+  const getBuilds = function(cursor){
     axios({
       method: REQUEST_METHOD,
-      url:    BUILD_ENDPOINT,
+      url:    BUILD_SUMMARY_ENDPOINT,
+      params: cursor ? { cursor: cursor } : {},
       config: { 
           headers: REQUES_HEADER
       }
     }).then(function(response){
-        setBuilds(sortBuilds(response.data));
+        setBuilds(previousBuilds => sortBuilds((cursor ? previousBuilds : []).concat(response.data)));
+        setNextCursor(response.headers[NEXT_CURSOR_HEADER] || null);
     }).catch(function (response) {
         console.log(response);
     });
@@ -40,6 +45,11 @@ function OCIDashBoard() {
             return <OCIBuild key={build.id} build={build}/>
         })}
       </div>
+      {nextCursor &&
+        <div className="dashboard-load-more">
+          <button className="btn btn-outline-secondary" onClick={() => getBuilds(nextCursor)}>Load more</button>
+        </div>
+      }
     </div>
   );
 }
@@ -1,3 +1,6 @@
 export const BUILD_ENDPOINT = 'http://localhost:8090/api/v1/buildResults';
+export const BUILD_SUMMARY_ENDPOINT = 'http://localhost:8090/api/v1/buildSummaries';
+// Header of the cursor of the following page of builds, lowercase as axios exposes the headers.
+export const NEXT_CURSOR_HEADER = 'x-next-cursor';
 export const REQUEST_METHOD = 'GET';
 export const REQUES_HEADER = {'Access-Control-Allow-Origin': '*' };
\ No newline at end of file
@@ -1,9 +1,12 @@
 package es.weso.ontoloci.worker;
 
 import es.weso.ontoloci.hub.build.HubBuild;
+import es.weso.ontoloci.hub.repository.RepositoryProvider;
+import es.weso.ontoloci.persistence.BuildEvent;
+import es.weso.ontoloci.persistence.BuildEventBus;
 import es.weso.ontoloci.persistence.OntolociDAO;
 import es.weso.ontoloci.persistence.PersistedBuildResult;
-import es.weso.ontoloci.persistence.mongo.OntolociInMemoryDAO;
+import es.weso.ontoloci.persistence.mongo.OntolociDAOFactory;
 import es.weso.ontoloci.worker.build.Build;
 import es.weso.ontoloci.worker.build.BuildResult;
 import es.weso.ontoloci.worker.build.BuildResultStatus;
@@ -22,7 +25,8 @@ public class WorkerExecutor implements Worker {
     // LOGGER CREATION
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildResult.class);
     private final Worker worker;
-    private final OntolociDAO persistence = OntolociInMemoryDAO.instance();
+    private final RepositoryProvider repositoryProvider;
+    private final OntolociDAO persistence = OntolociDAOFactory.getDAO();
 
     /**
      * Factory method that creates a WorkerExecutor instance from a Worker instance.
@@ -31,15 +35,29 @@ public class WorkerExecutor implements Worker {
      */
     public static WorkerExecutor from(Worker worker) {
         LOGGER.debug("Static factory creating a new worker executor for " + worker);
-        return new WorkerExecutor(worker);
+        return new WorkerExecutor(worker, null);
+    }
+
+    /**
+     * Factory method that creates a WorkerExecutor instance that gets the test cases of the builds
+     * from the given repository provider instead of the default one of the hub.
+     * @param worker from which to create the new WorkerExecutor.
+     * @param repositoryProvider of the test cases and the check runs.
+     * @return the new WorkerExecutor instance.
+     */
+    public static WorkerExecutor from(Worker worker, RepositoryProvider repositoryProvider) {
+        LOGGER.debug("Static factory creating a new worker executor for " + worker + " with a custom repository provider");
+        return new WorkerExecutor(worker, repositoryProvider);
     }
     
     /**
      * Main constructor for the worker executor class. This is intended for dependency injection.
      * @param worker to execute the builds.
+     * @param repositoryProvider of the test cases, null for the default one of the hub.
      */
-    private WorkerExecutor(final Worker worker) {
+    private WorkerExecutor(final Worker worker, final RepositoryProvider repositoryProvider) {
         this.worker = worker;
+        this.repositoryProvider = repositoryProvider;
     }
 
     /**
@@ -49,6 +67,8 @@ public class WorkerExecutor implements Worker {
      * perform the validation of the build.
      * Then, the check run will be updated with the validation results.
      * Finally, the build results will be stored in the persist layer.
+     * A build event is published when the tests are fetched and when the build result is stored, or a failed
+     * event if any of the steps throws, so the clients following the build always receive its end.
      *
      * @param build to allocate in the worker.
      * @return build result
@@ -56,22 +76,37 @@ public class WorkerExecutor implements Worker {
     @Override
     public BuildResult executeBuild(Build build) {
         LOGGER.debug("Executing build: " + build);
-        // 1. Create a Hub instance
-        OntolociHubImplementation ontolocyHub = new OntolociHubImplementation();
-        // 2. Transform the current build to a HubBuild
-        HubBuild hubBuild = build.toHubBuild();
-        // 3. Add the tests to the build
-        hubBuild = ontolocyHub.addTestsToBuild(hubBuild);
-        // 4. Transform the HubBuild to a worker build
-        build = Build.from(hubBuild);
-        // 5. Execute worker in case everything went right
-        BuildResult buildResult = executeWorker(build);
-        // 6. Update the check run
-        updateCheckRun(ontolocyHub,buildResult);
-        // 7. Persist the build result
-        persist(buildResult);
-        // 8. Finally return the build result
-        return buildResult;
+        final String buildId = build.getId();
+        final Map<String, String> metadata = build.getMetadata();
+        BuildEventBus.getInstance().publish(BuildEvent.fetching(buildId, metadata));
+        boolean completed = false;
+        try {
+            // 1. Create a Hub instance
+            OntolociHubImplementation ontolocyHub = repositoryProvider == null ?
+                    new OntolociHubImplementation() : new OntolociHubImplementation(repositoryProvider);
+            // 2. Transform the current build to a HubBuild
+            HubBuild hubBuild = build.toHubBuild();
+            // 3. Add the tests to the build
+            hubBuild = ontolocyHub.addTestsToBuild(hubBuild);
+            // 4. Transform the HubBuild to a worker build
+            build = Build.from(hubBuild);
+            // The build keeps the id it was queued with, so all its events and its result share it.
+            build.setId(buildId);
+            // 5. Execute worker in case everything went right
+            BuildResult buildResult = executeWorker(build);
+            // 6. Update the check run
+            updateCheckRun(ontolocyHub,buildResult);
+            // 7. Persist the build result
+            BuildEventBus.getInstance().publish(BuildEvent.completed(persist(buildResult)));
+            completed = true;
+            // 8. Finally return the build result
+            return buildResult;
+        } finally {
+            if(!completed) {
+                LOGGER.error("ERROR executing build: " + buildId);
+                BuildEventBus.getInstance().publish(BuildEvent.failed(buildId, metadata));
+            }
+        }
     }
 
 
@@ -103,11 +138,13 @@ public class WorkerExecutor implements Worker {
     /**
      * Stores build results in the persistence layer
      * @param buildResult to be stored
+     * @return the persisted build result
      */
-    private void persist(BuildResult buildResult) {
+    private PersistedBuildResult persist(BuildResult buildResult) {
         LOGGER.debug("INTERNAL validation finished, storing results in persistence layer");
         PersistedBuildResult b =BuildResult.toPersistedBuildResult(buildResult);
         persistence.save(b);
+        return b;
     }
 
     /**
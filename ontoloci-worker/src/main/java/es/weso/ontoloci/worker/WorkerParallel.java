@@ -0,0 +1,89 @@
+package es.weso.ontoloci.worker;
+
+import es.weso.ontoloci.worker.test.TestCase;
+import es.weso.ontoloci.worker.test.TestCaseResult;
+import es.weso.ontoloci.worker.validation.PrefixResolver;
+import es.weso.ontoloci.worker.validation.Validate;
+import es.weso.rdf.PrefixMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * The parallel worker. It validates the test cases of a build the same way the sequential worker does,
+ * but each test case is submitted to an executor pool, so the tests of a build run on all the available cores.
+ * The test case results are returned in the same order as the test cases of the manifest.
+ *
+ * @author Pablo Menéndez
+ */
+public class WorkerParallel extends WorkerSequential {
+
+    // LOGGER CREATION
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerParallel.class);
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates a parallel worker that runs the test cases on the common fork-join pool.
+     */
+    public WorkerParallel() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a parallel worker that runs the test cases on the given executor.
+     * This is intended for dependency injection.
+     *
+     * @param executor where the test cases are validated.
+     */
+    public WorkerParallel(final ExecutorService executor) {
+        LOGGER.debug("Creating a new parallel worker for " + executor);
+        this.executor = executor;
+    }
+
+    /**
+     * Validates all the tests from a collection in parallel.
+     * Waits until every test has finished and returns the results in the order of the test cases.
+     *
+     * @param testCases to be validated
+     * @param resolvers prefix resolvers shared by all the tests of the build
+     * @param validate  validator shared by all the tests of the build
+     * @param finished  receives each test case result as soon as it is validated, from the thread that validated it
+     * @return test case results in the same order as the test cases
+     */
+    @Override
+    protected Collection<TestCaseResult> validateTests(Collection<TestCase> testCases, Map<PrefixMap, PrefixResolver> resolvers,
+                                                       Validate validate, Consumer<TestCaseResult> finished) {
+        final List<Callable<TestCaseResult>> tasks = new ArrayList<>();
+        for(TestCase testCase : testCases) {
+            tasks.add(() -> {
+                final TestCaseResult testCaseResult = validateTestCase(testCase, resolvers, validate);
+                finished.accept(testCaseResult);
+                return testCaseResult;
+            });
+        }
+
+        final Collection<TestCaseResult> testCaseResults = new ArrayList<>();
+        try {
+            // invokeAll returns the futures in the same order as the tasks.
+            for(Future<TestCaseResult> future : executor.invokeAll(tasks)) {
+                testCaseResults.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating the test cases", e);
+        } catch (ExecutionException e) {
+            LOGGER.error(String.format("ERROR while validating a test case at WorkerParallel: %s", e.getCause().getMessage()));
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        return testCaseResults;
+    }
+}
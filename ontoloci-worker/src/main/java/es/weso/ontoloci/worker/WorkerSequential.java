@@ -1,30 +1,27 @@
 package es.weso.ontoloci.worker;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import es.weso.ontoloci.persistence.BuildEvent;
+import es.weso.ontoloci.persistence.BuildEventBus;
 import es.weso.ontoloci.worker.build.Build;
 import es.weso.ontoloci.worker.build.BuildResult;
 import es.weso.ontoloci.worker.build.BuildResultStatus;
 import es.weso.ontoloci.worker.test.TestCase;
 import es.weso.ontoloci.worker.test.TestCaseResult;
 import es.weso.ontoloci.worker.test.TestCaseResultStatus;
+import es.weso.ontoloci.worker.validation.PrefixResolver;
 import es.weso.ontoloci.worker.validation.PrefixedNode;
 import es.weso.ontoloci.worker.validation.ResultValidation;
+import es.weso.ontoloci.worker.validation.ShapeMapConverter;
 import es.weso.ontoloci.worker.validation.ShapeMapResultValidation;
 import es.weso.ontoloci.worker.validation.Validate;
-import es.weso.rdf.Prefix;
 import es.weso.rdf.PrefixMap;
-import es.weso.rdf.nodes.IRI;
 import es.weso.shapeMaps.ShapeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import scala.Tuple3;
-import scala.util.Either;
 
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * The sequential worker
@@ -35,13 +32,9 @@ public class WorkerSequential implements Worker {
     // LOGGER CREATION
     private static final Logger LOGGER = LoggerFactory.getLogger(WorkerSequential.class);
 
-    private long initBuildTime;
-    private long stopBuildTime;
-    private long initTestTime;
-    private long stopTestTime;
-
     /**
      * Validates all the tests from a build and count the time it takes.
+     * Publishes a build event each time a test case finishes.
      * Fills the build with metadata.
      * Finally sets the build status result.
      *
@@ -51,15 +44,16 @@ public class WorkerSequential implements Worker {
     @Override
     public BuildResult executeBuild(Build build) {
         // 1. Init counting execution time of the build
-        startBuildCrono();
+        final long initBuildTime = System.nanoTime();
         // 2. Validate tests
-        final Collection<TestCaseResult> testCaseResults = validateTests(build.getTestCases());
+        final Collection<TestCaseResult> testCaseResults = validateTests(build.getTestCases(),new ConcurrentHashMap<>(),new Validate(),
+                testCaseResult -> publishTestCaseFinished(build,testCaseResult));
         // 3. Stop counting execution time of the build.
-        stopBuildCrono();
+        final long stopBuildTime = System.nanoTime();
         // 4. Resolve build result status
         BuildResultStatus buildResultStatus = resolveBuildStatus(testCaseResults);
         // 5. Get the metadata
-        final Map<String, String> metadata = fillBuildMetadata(build,buildResultStatus);
+        final Map<String, String> metadata = fillBuildMetadata(build,buildResultStatus,getExecTimeFormated(initBuildTime,stopBuildTime));
         // 6. Create the build result
         BuildResult buildResult = BuildResult.from(build.getId(),metadata,testCaseResults);
         // 7. Set the build result status
@@ -70,37 +64,66 @@ public class WorkerSequential implements Worker {
 
 
     /**
-     * Validates all the tests from a collection an count the time each test takes.
-     * Fills each test with metadata.
-     * Finally sets each test status result.
+     * Validates all the tests from a collection one after another.
      *
      * @param testCases to be validated
-     * @return test case results
+     * @param resolvers prefix resolvers shared by all the tests of the build
+     * @param validate  validator shared by all the tests of the build
+     * @param finished  receives each test case result as soon as it is validated
+     * @return test case results in the same order as the test cases
      */
-    private Collection<TestCaseResult> validateTests(Collection<TestCase> testCases){
+    protected Collection<TestCaseResult> validateTests(Collection<TestCase> testCases,Map<PrefixMap, PrefixResolver> resolvers,
+                                                       Validate validate,Consumer<TestCaseResult> finished){
         final Collection<TestCaseResult> testCaseResults = new ArrayList<>();
-        TestCaseResult currentTestCase = null;
         for(TestCase testCase : testCases) {
-            // 1. Create the result object.
-            currentTestCase = TestCaseResult.from(testCase);
-            // 2. Set the status to executing
-            currentTestCase.setStatus(TestCaseResultStatus.EXECUTING);
-            // 3. Init counting execution time.
-            startTestCrono();
-            // 4. Validate the test case
-            ResultValidation resultValidation = validateTest(testCase);
-            // 5. Compare results
-            compareResults(resultValidation,currentTestCase);
-            // 6. Stop counting execution time.
-            stopTestCrono();
-            // 7. Add the metadata
-            fillTestMetadata(currentTestCase);
-            // And finally add it to the collection of results.
-            testCaseResults.add(currentTestCase);
+            final TestCaseResult testCaseResult = validateTestCase(testCase,resolvers,validate);
+            finished.accept(testCaseResult);
+            testCaseResults.add(testCaseResult);
         }
         return testCaseResults;
     }
 
+    /**
+     * Publishes the event of a test case of a build that has been validated.
+     *
+     * @param build          build of the test case
+     * @param testCaseResult result of the test case
+     */
+    private void publishTestCaseFinished(Build build,TestCaseResult testCaseResult){
+        BuildEventBus.getInstance().publish(BuildEvent.testCaseFinished(build.getId(),build.getMetadata(),
+                testCaseResult.getTestCase().getName(),
+                TestCaseResultStatus.toPersistedTestCaseResultStatus(testCaseResult.getStatus())));
+    }
+
+    /**
+     * Validates a single test case and counts the time it takes.
+     * Fills the test with metadata and sets the test status result.
+     * The execution time is kept in local state, so this method can be called from several threads at once.
+     *
+     * @param testCase  to be validated
+     * @param resolvers prefix resolvers shared by all the tests of the build
+     * @param validate  validator shared by all the tests of the build
+     * @return test case result
+     */
+    protected TestCaseResult validateTestCase(TestCase testCase,Map<PrefixMap, PrefixResolver> resolvers,Validate validate){
+        // 1. Create the result object.
+        final TestCaseResult currentTestCase = TestCaseResult.from(testCase);
+        // 2. Set the status to executing
+        currentTestCase.setStatus(TestCaseResultStatus.EXECUTING);
+        // 3. Init counting execution time.
+        final long initTestTime = System.nanoTime();
+        // 4. Validate the test case
+        ResultValidation resultValidation = validateTest(testCase,validate);
+        // 5. Compare results
+        compareResults(resultValidation,currentTestCase,resolvers);
+        // 6. Stop counting execution time.
+        final long stopTestTime = System.nanoTime();
+        // 7. Add the metadata
+        fillTestMetadata(currentTestCase,getExecTimeFormated(initTestTime,stopTestTime));
+        // And finally return the result.
+        return currentTestCase;
+    }
+
 
     /**
      * Checks each test result from a collection and determines if the build has passed without errors or not.
@@ -130,19 +153,19 @@ public class WorkerSequential implements Worker {
      *
      * @param resultValidation  result of the validation
      * @param testCaseResult    test case result
+     * @param resolvers         prefix resolvers shared by all the tests of the build
      */
-    private void compareResults(ResultValidation resultValidation,TestCaseResult testCaseResult){
-        List<ShapeMapResultValidation> expected = getExpectedResult(resultValidation);
-        List<ShapeMapResultValidation> produced = getProducedResult(resultValidation);
-        TestCaseResultStatus status = TestCaseResultStatus.SUCCESS;
+    protected void compareResults(ResultValidation resultValidation,TestCaseResult testCaseResult,Map<PrefixMap, PrefixResolver> resolvers){
+        final PrefixResolver nodeResolver = getPrefixResolver(resolvers,resultValidation.getResultShapeMap().nodesPrefixMap());
+        final PrefixResolver shapeResolver = getPrefixResolver(resolvers,resultValidation.getExpectedShapeMap().shapesPrefixMap());
+        // The shape maps are converted only once per test.
+        final List<ShapeMapResultValidation> expectedResults = getResultFromValidation(resultValidation.getExpectedShapeMap());
+        final List<ShapeMapResultValidation> producedResults = getResultFromValidation(resultValidation.getResultShapeMap());
+        List<ShapeMapResultValidation> expected = getExpectedResult(expectedResults,nodeResolver,shapeResolver);
+        List<ShapeMapResultValidation> produced = new ArrayList<>();
+        // The clean produced list and the status are computed in a single pass.
+        TestCaseResultStatus status = getProducedResult(expected,producedResults,produced,nodeResolver,shapeResolver);
 
-        for(ShapeMapResultValidation e: expected){
-            for(ShapeMapResultValidation p: produced){
-                if(checkNodes(e,p))
-                    if(!checkStatus(e,p))
-                        status = TestCaseResultStatus.FAILURE;
-            }
-        }
         testCaseResult.setStatus(status);
         testCaseResult.addMetadata("produced",toJson(produced));
         testCaseResult.addMetadata("expected",toJson(expected));
@@ -153,19 +176,6 @@ public class WorkerSequential implements Worker {
 
 
 
-    /**
-     * Checks if the passed nodes of a ShapeMap result are the same
-     *
-     * @param e the first shapeMap result
-     * @param p the first shapeMap result
-     * @return  if the nodes are the same
-     */
-    private boolean checkNodes(ShapeMapResultValidation e,ShapeMapResultValidation p){
-        String expectedNode = e.getNode();
-        String producedNode = p.getNode();
-        return  expectedNode.equals(producedNode);
-    }
-
     /**
      * Checks if the status of the passed ShapeMap result are the same
      *
@@ -184,11 +194,11 @@ public class WorkerSequential implements Worker {
      * Performs the validation of a specific test case.
      *
      * @param testCase to be validated
+     * @param validate validator shared by all the tests of the build
      * @return the result of the validation
      */
-    private ResultValidation validateTest(TestCase testCase){
-        Validate v = new Validate();
-        ResultValidation resultValidation = v.validateStrResultValidation(
+    private ResultValidation validateTest(TestCase testCase,Validate validate){
+        ResultValidation resultValidation = validate.validateStrResultValidation(
                 testCase.getOntology(),
                 testCase.getInstances(),
                 testCase.getSchema(),
@@ -201,15 +211,16 @@ public class WorkerSequential implements Worker {
      * Gets the expected result from a ResultValidation object as a list of shapeMaps result validation.
      * Sets the prefixes for each ShapeMapResultValidation.
      *
-     * @param resultValidation result of validation
+     * @param expected         expected shape map results of the validation
+     * @param nodeResolver     resolver for the prefixes of the nodes
+     * @param shapeResolver    resolver for the prefixes of the shapes
      * @return expected result
      */
-    private List<ShapeMapResultValidation> getExpectedResult(ResultValidation resultValidation){
-        final List<ShapeMapResultValidation> expected =  getResultFromValidation(resultValidation.getExpectedShapeMap());
+    private List<ShapeMapResultValidation> getExpectedResult(List<ShapeMapResultValidation> expected,PrefixResolver nodeResolver,PrefixResolver shapeResolver){
         // Now add the prefixes
         for(ShapeMapResultValidation e: expected){
-            PrefixedNode nodePrefix = getPrefix(resultValidation.getResultShapeMap().nodesPrefixMap(),e.getNode());
-            PrefixedNode shapePrefix = getPrefix(resultValidation.getExpectedShapeMap().shapesPrefixMap(),e.getShape());
+            PrefixedNode nodePrefix = nodeResolver.resolve(e.getNode());
+            PrefixedNode shapePrefix = shapeResolver.resolve(e.getShape());
             e.setNodePrefix(nodePrefix);
             e.setShapePrefix(shapePrefix);
         }
@@ -221,55 +232,90 @@ public class WorkerSequential implements Worker {
     /**
      * Gets the produced result from a ResultValidation object as a list of shapeMaps result validation.
      * The shex validator usually infers more things that we need, so we are only keeping shape map results
-     * that are in the expected result too.
-     * It also sets the prefixes for each ShapeMapResultValidation.
+     * whose node is in the expected result too.
+     * It also sets the prefixes for each ShapeMapResultValidation and compares its status with the expected one.
+     *
+     * The produced results are indexed by node once, so each expected result is matched in constant time
+     * instead of scanning the whole produced list.
      *
-     * @param resultValidation result of validation
-     * @return produced result
+     * @param expected         expected shape map results of the validation
+     * @param produced         produced shape map results of the validation
+     * @param cleanProduced    list where the produced result is added, in the order of the expected results
+     * @param nodeResolver     resolver for the prefixes of the nodes
+     * @param shapeResolver    resolver for the prefixes of the shapes
+     * @return FAILURE if any produced status differs from the expected status of the same node, SUCCESS otherwise
      */
-    private List<ShapeMapResultValidation> getProducedResult(ResultValidation resultValidation){
-        final List<ShapeMapResultValidation> expected = getResultFromValidation(resultValidation.getExpectedShapeMap());
-        final List<ShapeMapResultValidation> produced = getResultFromValidation(resultValidation.getResultShapeMap());
-        final List<ShapeMapResultValidation> cleanProduced = new ArrayList<>();
+    private TestCaseResultStatus getProducedResult(List<ShapeMapResultValidation> expected,List<ShapeMapResultValidation> produced,
+                                                   List<ShapeMapResultValidation> cleanProduced,
+                                                   PrefixResolver nodeResolver,PrefixResolver shapeResolver){
+        final Map<String, List<ShapeMapResultValidation>> producedByNode = indexByNode(produced);
+        // Prefixed copies are only computed once for each node, even if several expected results share it.
+        final Map<String, List<ShapeMapResultValidation>> prefixedByNode = new HashMap<>();
+        TestCaseResultStatus status = TestCaseResultStatus.SUCCESS;
 
         for(ShapeMapResultValidation e: expected){
-            for(ShapeMapResultValidation p: produced){
-                if(e.getNode().equals(p.getNode())){
-                    String node = p.getNode();
-                    String shape = p.getShape();
-                    String status = p.getStatus();
-                    String info = p.getAppInfo();
-                    String reason = p.getReason();
-                    PrefixedNode nodePrefix = getPrefix(resultValidation.getResultShapeMap().nodesPrefixMap(),node);
-                    PrefixedNode shapePrefix = getPrefix(resultValidation.getExpectedShapeMap().shapesPrefixMap(),shape);
-
-                    cleanProduced.add(new ShapeMapResultValidation(node,shape,status,info,reason,nodePrefix,shapePrefix));
-                }
+            final List<ShapeMapResultValidation> matches = producedByNode.get(e.getNode());
+            if(matches == null)
+                continue;
+
+            final List<ShapeMapResultValidation> prefixedMatches = prefixedByNode.computeIfAbsent(
+                    e.getNode(), node -> withPrefixes(matches,nodeResolver,shapeResolver));
+            for(ShapeMapResultValidation p: prefixedMatches){
+                if(!checkStatus(e,p))
+                    status = TestCaseResultStatus.FAILURE;
+                cleanProduced.add(p);
             }
         }
-        return cleanProduced;
+        return status;
     }
 
-    /***
-     * Given an iri as a string, looks for the appropriate prefix in a PrefixMap
+    /**
+     * Indexes a list of shape map results by node, keeping the original order inside each node.
      *
-     * @param prefixMap where to look for
-     * @param iriStr    iri as a string
-     * @return  prefix as a PrefixNode obj
+     * @param results shape map results
+     * @return results grouped by node
      */
-    private PrefixedNode getPrefix(PrefixMap prefixMap, String iriStr) {
-        PrefixedNode prefix = new PrefixedNode();
-
-        try {
-            String subIri = iriStr.substring(1, iriStr.length() - 1 );
-            IRI iri = new IRI(new URI(subIri));
-            Either<String, Tuple3<Prefix, IRI, String>> prefixLocalName = prefixMap.getPrefixLocalName(iri);
-            Tuple3<Prefix, IRI, String> tuple =  prefixLocalName.toOption().get();
-            prefix = new PrefixedNode(tuple._1().str(),tuple._2().str(),tuple._3());
-        } catch (URISyntaxException e) {
-            e.printStackTrace();
+    private Map<String, List<ShapeMapResultValidation>> indexByNode(List<ShapeMapResultValidation> results){
+        final Map<String, List<ShapeMapResultValidation>> index = new HashMap<>();
+        for(ShapeMapResultValidation r: results){
+            index.computeIfAbsent(r.getNode(), node -> new ArrayList<>(1)).add(r);
         }
-         return prefix;
+        return index;
+    }
+
+    /**
+     * Creates a copy of each produced shape map result with the prefixes of its node and shape.
+     *
+     * @param produced         produced shape map results
+     * @param nodeResolver     resolver for the prefixes of the nodes
+     * @param shapeResolver    resolver for the prefixes of the shapes
+     * @return prefixed copies of the produced results
+     */
+    private List<ShapeMapResultValidation> withPrefixes(List<ShapeMapResultValidation> produced,PrefixResolver nodeResolver,PrefixResolver shapeResolver){
+        final List<ShapeMapResultValidation> prefixed = new ArrayList<>(produced.size());
+        for(ShapeMapResultValidation p: produced){
+            String node = p.getNode();
+            String shape = p.getShape();
+            String status = p.getStatus();
+            String info = p.getAppInfo();
+            String reason = p.getReason();
+            PrefixedNode nodePrefix = nodeResolver.resolve(node);
+            PrefixedNode shapePrefix = shapeResolver.resolve(shape);
+
+            prefixed.add(new ShapeMapResultValidation(node,shape,status,info,reason,nodePrefix,shapePrefix));
+        }
+        return prefixed;
+    }
+
+    /***
+     * Gets the prefix resolver of a PrefixMap, creating it the first time the PrefixMap is seen in the build.
+     *
+     * @param resolvers prefix resolvers shared by all the tests of the build
+     * @param prefixMap where the prefixes are defined
+     * @return  prefix resolver for the PrefixMap
+     */
+    private PrefixResolver getPrefixResolver(Map<PrefixMap, PrefixResolver> resolvers, PrefixMap prefixMap) {
+        return resolvers.computeIfAbsent(prefixMap, PrefixResolver::new);
     }
 
     /**
@@ -278,23 +324,18 @@ public class WorkerSequential implements Worker {
      * @param shapeMap shapeMap
      * @return list of ShapeMapResultValidation objects
      */
-    private List<ShapeMapResultValidation> getResultFromValidation(ShapeMap shapeMap){
-        ObjectMapper jsonMapper  = new ObjectMapper(new JsonFactory());
-        try {
-            return Arrays.asList(jsonMapper.readValue(shapeMap.toJson().spaces2(), ShapeMapResultValidation[].class));
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        }
-        return null;
+    protected List<ShapeMapResultValidation> getResultFromValidation(ShapeMap shapeMap){
+        return ShapeMapConverter.toResultValidations(shapeMap);
     }
 
     /**
      * Replaces the current test metadata with a new map of metadata that contains the test execution time.
-     * @param testCase test case
+     * @param testCase      test case
+     * @param executionTime execution time of the test
      */
-    private void fillTestMetadata(TestCaseResult testCase){
+    private void fillTestMetadata(TestCaseResult testCase,String executionTime){
         final Map<String, String> metadata = new HashMap<>(testCase.getMetadata());
-        metadata.put("execution_time", getTestTime());
+        metadata.put("execution_time", executionTime);
         testCase.setMetadata(metadata);
     }
 
@@ -308,9 +349,10 @@ public class WorkerSequential implements Worker {
      *
      * @param build             build
      * @param buildStatus       status of the build
+     * @param executionTime     execution time of the build
      * @return  build metadata
      */
-    private Map<String, String> fillBuildMetadata(Build build,BuildResultStatus buildStatus){
+    private Map<String, String> fillBuildMetadata(Build build,BuildResultStatus buildStatus,String executionTime){
         final Map<String, String> buildMetadata = new HashMap<>(build.getMetadata());
 
         String checkTitle = "Build Passing";
@@ -318,7 +360,7 @@ public class WorkerSequential implements Worker {
           checkTitle = "Build Failing";
 
         buildMetadata.put("checkTitle",checkTitle);
-        buildMetadata.put("execution_time",getBuildTime());
+        buildMetadata.put("execution_time",executionTime);
         buildMetadata.put("execution_date", String.valueOf(System.currentTimeMillis()));
         return buildMetadata;
     }
@@ -330,62 +372,15 @@ public class WorkerSequential implements Worker {
      * @return results as a json
      */
     private String toJson(List<ShapeMapResultValidation> results) {
-        String json="[";
+        final StringBuilder json = new StringBuilder("[");
         for(ShapeMapResultValidation s:results){
-            json+=s.toJson()+",";
+            json.append(s.toJson()).append(',');
         }
-        json=json.substring(0,json.length()-1)+"]";
-        return json.replace("\n", "").replace("\r", "");
-    }
-
-
-    /******  CRONO *******/
-
-
-    /**
-     * Initializes  build crono
-     */
-    private void startBuildCrono(){
-        initBuildTime = System.nanoTime();
-    }
-
-    /**
-     * Stops build crono
-     */
-    private void stopBuildCrono(){
-        stopBuildTime = System.nanoTime();
+        json.setLength(json.length()-1);
+        json.append(']');
+        return json.toString().replace("\n", "").replace("\r", "");
     }
 
-    /**
-     * Initializes test crono
-     */
-    private void startTestCrono(){
-        initTestTime = System.nanoTime();
-    }
-
-    /**
-     * Stops test crono
-     */
-    private void stopTestCrono(){
-        stopTestTime = System.nanoTime();
-    }
-
-
-    /**
-     * Gets the build execution time in seconds.
-     * @return execution time
-     */
-    private String getBuildTime(){
-        return getExecTimeFormated(initBuildTime,stopBuildTime);
-    }
-
-    /**
-     * Gets the test execution time in seconds.
-     * @return execution time
-     */
-    private String getTestTime(){
-        return getExecTimeFormated(initTestTime,stopTestTime);
-    }
 
     /**
      * Calculate the elapsed time between two times in seconds.
@@ -0,0 +1,125 @@
+package es.weso.ontoloci.worker.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, thread safe cache of values computed from the content of a file.
+ * The entries are keyed by a SHA-256 hash of the content, so two files with the same text
+ * share the same entry no matter where they come from. When the cache is full the least
+ * recently used entry is evicted.
+ *
+ * Each value is computed only once: the threads that ask for a key while its value is being computed wait
+ * for that computation instead of starting their own.
+ *
+ * @param <V> type of the cached values.
+ * @author Pablo Menéndez
+ */
+public class ContentCache<V> {
+
+    private final Map<String, CompletableFuture<V>> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new cache that holds at most maxEntries values.
+     *
+     * @param maxEntries maximum number of values in the cache.
+     */
+    public ContentCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, CompletableFuture<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the value cached for a content hash, computing it with the loader if it is not cached yet.
+     * Only the first thread that misses a key runs the loader, the others wait for its value. If the
+     * loader fails the entry is removed, so the next lookup computes it again, and the waiting threads
+     * get the same exception.
+     *
+     * @param key    content hash obtained from {@link es.weso.ontoloci.persistence.utils.HashUtils#sha256(String)}.
+     * @param loader computes the value when it is not cached.
+     * @return the cached or computed value.
+     */
+    public V get(String key, Supplier<V> loader) {
+        final CompletableFuture<V> future;
+        final boolean load;
+        synchronized (this) {
+            final CompletableFuture<V> cached = entries.get(key);
+            load = cached == null;
+            if(load) {
+                misses++;
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+            } else {
+                hits++;
+                future = cached;
+            }
+        }
+
+        if(load) {
+            try {
+                future.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    entries.remove(key, future);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of cached values.
+     *
+     * @return number of cached values.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a cached value.
+     *
+     * @return number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that did not find a cached value.
+     *
+     * @return number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes all the cached values and resets the counters of hits and misses.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -0,0 +1,99 @@
+package es.weso.ontoloci.worker.validation;
+
+import es.weso.rdf.Prefix;
+import es.weso.rdf.PrefixMap;
+import es.weso.rdf.nodes.IRI;
+import scala.collection.JavaConverters;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the prefix of the nodes and shapes of a shape map.
+ * The namespaces of the prefix map are stored in a trie, so the namespace of an iri is found walking
+ * its characters once, and every resolved iri is cached because result maps repeat the same nodes and
+ * shapes many times. A resolver is thread safe, so it can be shared by all the tests of a build.
+ *
+ * @author Pablo Menéndez
+ */
+public class PrefixResolver {
+
+    private final TrieNode namespaces = new TrieNode();
+    private final Map<String, PrefixedNode> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a resolver for the namespaces of a prefix map.
+     *
+     * @param prefixMap where the prefixes are defined
+     */
+    public PrefixResolver(PrefixMap prefixMap) {
+        for(Map.Entry<Prefix, IRI> entry : JavaConverters.mapAsJavaMap(prefixMap.pm()).entrySet()) {
+            addNamespace(entry.getKey().str(), entry.getValue().str());
+        }
+    }
+
+    /***
+     * Given an iri as a string surrounded by angle brackets, looks for the prefix whose namespace
+     * is the longest start of the iri.
+     *
+     * @param iriStr    iri as a string
+     * @return  prefix as a PrefixNode obj, empty if no namespace matches the iri
+     */
+    public PrefixedNode resolve(String iriStr) {
+        return resolved.computeIfAbsent(iriStr, this::lookup);
+    }
+
+    /**
+     * Looks for the prefix of an iri in the namespaces trie.
+     *
+     * @param iriStr    iri as a string surrounded by angle brackets
+     * @return  prefix as a PrefixNode obj, empty if no namespace matches the iri
+     */
+    private PrefixedNode lookup(String iriStr) {
+        if(iriStr.length() < 2)
+            return new PrefixedNode();
+
+        final String iri = iriStr.substring(1, iriStr.length() - 1);
+        TrieNode current = namespaces;
+        TrieNode longest = current.prefix != null ? current : null;
+        int longestLength = 0;
+
+        for(int i = 0; i < iri.length() && current != null; i++) {
+            current = current.children.get(iri.charAt(i));
+            if(current != null && current.prefix != null) {
+                longest = current;
+                longestLength = i + 1;
+            }
+        }
+
+        if(longest == null)
+            return new PrefixedNode();
+        return new PrefixedNode(longest.prefix, longest.namespace, iri.substring(longestLength));
+    }
+
+    /**
+     * Adds a namespace to the trie.
+     *
+     * @param prefix    alias of the namespace
+     * @param namespace iri of the namespace
+     */
+    private void addNamespace(String prefix, String namespace) {
+        TrieNode current = namespaces;
+        for(int i = 0; i < namespace.length(); i++) {
+            current = current.children.computeIfAbsent(namespace.charAt(i), c -> new TrieNode());
+        }
+        current.prefix = prefix;
+        current.namespace = namespace;
+    }
+
+    /**
+     * Node of the namespaces trie. It holds the prefix when a namespace ends in this node.
+     */
+    private static final class TrieNode {
+
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private String prefix;
+        private String namespace;
+    }
+}
@@ -0,0 +1,85 @@
+package es.weso.ontoloci.worker.validation;
+
+import es.weso.shapeMaps.ShapeMap;
+import io.circe.Json;
+import io.circe.JsonObject;
+import scala.Option;
+import scala.collection.JavaConverters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts the associations of a shape map into ShapeMapResultValidation objects.
+ * The conversion walks the json tree of the shape map directly, so the values are the same
+ * as in its json representation but no intermediate text is printed or parsed.
+ *
+ * @author Pablo Menéndez
+ */
+public class ShapeMapConverter {
+
+    private static final String NODE = "node";
+    private static final String SHAPE = "shape";
+    private static final String STATUS = "status";
+    private static final String APP_INFO = "appInfo";
+    private static final String REASON = "reason";
+
+    private ShapeMapConverter() {}
+
+    /**
+     * Maps a shape map into a list of ShapeMapResultValidation objects, one for each association.
+     * The prefixes of the nodes and shapes are not set.
+     *
+     * @param shapeMap shapeMap
+     * @return list of ShapeMapResultValidation objects in the order of the associations
+     */
+    public static List<ShapeMapResultValidation> toResultValidations(ShapeMap shapeMap) {
+        final Option<scala.collection.immutable.Vector<Json>> associations = shapeMap.toJson().asArray();
+        if(associations.isEmpty())
+            return Collections.emptyList();
+
+        final List<Json> jsonAssociations = JavaConverters.seqAsJavaList(associations.get());
+        final List<ShapeMapResultValidation> results = new ArrayList<>(jsonAssociations.size());
+        for(Json association : jsonAssociations) {
+            final Option<JsonObject> fields = association.asObject();
+            if(fields.isDefined())
+                results.add(toResultValidation(fields.get()));
+        }
+        return results;
+    }
+
+    /**
+     * Maps a single association of a shape map into a ShapeMapResultValidation object.
+     *
+     * @param association json object of the association
+     * @return the ShapeMapResultValidation object
+     */
+    private static ShapeMapResultValidation toResultValidation(JsonObject association) {
+        return new ShapeMapResultValidation(
+                getField(association, NODE),
+                getField(association, SHAPE),
+                getField(association, STATUS),
+                getField(association, APP_INFO),
+                getField(association, REASON),
+                null,
+                null
+        );
+    }
+
+    /**
+     * Gets the value of a field of an association as a string.
+     *
+     * @param association json object of the association
+     * @param name        of the field
+     * @return the string value, the compact json for non string values, or null if the field is missing
+     */
+    private static String getField(JsonObject association, String name) {
+        final Option<Json> value = association.apply(name);
+        if(value.isEmpty() || value.get().isNull())
+            return null;
+
+        final Option<String> str = value.get().asString();
+        return str.isDefined() ? str.get() : value.get().noSpaces();
+    }
+}
@@ -1,6 +1,8 @@
 package es.weso.ontoloci.worker.validation;
 
 import cats.effect.IO;
+import es.weso.ontoloci.persistence.utils.HashUtils;
+import es.weso.ontoloci.worker.utils.ContentCache;
 import es.weso.rdf.RDFReader;
 import es.weso.rdf.jena.RDFAsJenaModel;
 import es.weso.rdf.nodes.IRI;
@@ -10,6 +12,10 @@ import es.weso.shex.ResolvedSchema;
 import es.weso.shex.Schema;
 import es.weso.shex.validator.Validator;
 import es.weso.utils.eitherios.EitherIOUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import scala.Option;
 
 import java.io.IOException;
@@ -17,10 +23,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
  * Redefines shexsjava library (https://github.com/weso/shexsjava)
+ *
+ * An instance remembers the content hash of each ontology and schema text it validates, so the workers use a
+ * single instance for all the test cases of a build and each text is only hashed once per build.
  * 
  * @author Jose Emilio Labra Gayo
  *
@@ -29,6 +40,36 @@ public class Validate {
 
 	Logger log = Logger.getLogger(Validate.class.getName());
 
+	// Parsed and resolved schemas shared by all the test cases and builds, keyed by the hash of the schema text.
+	private static final ContentCache<CachedSchema> SCHEMA_CACHE =
+			new ContentCache<>(Integer.getInteger("ontoloci.cache.schemas", 32));
+
+	// Parsed ontologies shared by all the test cases and builds, keyed by the hash of the ontology text.
+	// The cached models are only read, the instance data of each test is layered over them.
+	private static final ContentCache<RDFAsJenaModel> ONTOLOGY_CACHE =
+			new ContentCache<>(Integer.getInteger("ontoloci.cache.ontologies", 4));
+
+	/**
+	 * Gets the cache of the parsed schemas, for the tests.
+	 *
+	 * @return the schema cache.
+	 */
+	static ContentCache<?> getSchemaCache() {
+		return SCHEMA_CACHE;
+	}
+
+	/**
+	 * Gets the cache of the parsed ontologies, for the tests.
+	 *
+	 * @return the ontology cache.
+	 */
+	static ContentCache<?> getOntologyCache() {
+		return ONTOLOGY_CACHE;
+	}
+
+	// Content hash of each ontology and schema text validated by this instance.
+	private final Map<String, String> contentKeys = new ConcurrentHashMap<>();
+
 	// none object is required to pass no base
 	Option<IRI> none = Option.empty();
 	Option<RDFReader> noneRDF = Option.empty();
@@ -47,19 +88,17 @@ public class Validate {
 	 * @return Validation result as a ResultShapeMap
 	 */
 	public IO<ResultShapeMap> validateStr(String dataStr, String ontologyStr, String schemaStr, String shapeMapStr) {
-		return readRDFStr(dataStr, "TURTLE").flatMap(rdfData -> readRDFStr(ontologyStr, "TURTLE")
-				.flatMap(ontologyData -> rdfData.merge(ontologyData).flatMap(merged -> Schema
-						.fromString(schemaStr, "SHEXC", none, noneRDF)
-						.flatMap(schema -> EitherIOUtils
+		return readRDFStr(dataStr, "TURTLE").flatMap(rdfData -> getOntology(ontologyStr)
+				.flatMap(ontologyData -> layer(rdfData, ontologyData).flatMap(merged -> getSchema(schemaStr)
+						.flatMap(cachedSchema -> EitherIOUtils
 								.eitherStr2IO(ShapeMap.fromString(shapeMapStr, "Compact", none, merged.getPrefixMap(),
-										schema.prefixMap()))
+										cachedSchema.schema.prefixMap()))
 								.flatMap(shapeMap -> ShapeMap
-										.fixShapeMap(shapeMap, merged, merged.getPrefixMap(), schema.prefixMap())
-										.flatMap(fixedShapeMap -> ResolvedSchema.resolve(schema, none)
-												.flatMap(resolvedSchema -> Validator
-														.validate(resolvedSchema, fixedShapeMap, merged)
-														.flatMap(result -> result.toResultShapeMap().flatMap(
-																resultShapeMap -> IO.pure(resultShapeMap))))))))));
+										.fixShapeMap(shapeMap, merged, merged.getPrefixMap(), cachedSchema.schema.prefixMap())
+										.flatMap(fixedShapeMap -> Validator
+												.validate(cachedSchema.resolvedSchema, fixedShapeMap, merged)
+												.flatMap(result -> result.toResultShapeMap().flatMap(
+														resultShapeMap -> IO.pure(resultShapeMap)))))))));
 	}
 
 
@@ -78,31 +117,112 @@ public class Validate {
 	 * @return Validation result as a ResultValidation
 	 */
 	public IO<ResultValidation> validateStrResultValidation(String ontologyStr, String dataStr, String schemaStr, String shapeMapStr,String expectedShapeMapStr) {
-		return readRDFStr(dataStr, "TURTLE").flatMap(rdfData -> readRDFStr(ontologyStr, "TURTLE")
-				.flatMap(ontologyData -> rdfData.merge(ontologyData).flatMap(merged -> Schema
-						.fromString(schemaStr, "SHEXC", none, noneRDF)
-						.flatMap(schema -> EitherIOUtils
+		return readRDFStr(dataStr, "TURTLE").flatMap(rdfData -> getOntology(ontologyStr)
+				.flatMap(ontologyData -> layer(rdfData, ontologyData).flatMap(merged -> getSchema(schemaStr)
+						.flatMap(cachedSchema -> EitherIOUtils
 								.eitherStr2IO(ShapeMap.fromString(shapeMapStr, "Compact", none, merged.getPrefixMap(),
-										schema.prefixMap()))
+										cachedSchema.schema.prefixMap()))
 								.flatMap(shapeMap -> ShapeMap
-										.fixShapeMap(shapeMap, merged, merged.getPrefixMap(), schema.prefixMap())
-										.flatMap(fixedShapeMap -> ResolvedSchema.resolve(schema, none).flatMap(
-												resolvedSchema ->
-														EitherIOUtils.eitherStr2IO(
-																ShapeMap.fromString(expectedShapeMapStr, "Compact", none, merged.getPrefixMap(), schema.prefixMap()))
+										.fixShapeMap(shapeMap, merged, merged.getPrefixMap(), cachedSchema.schema.prefixMap())
+										.flatMap(fixedShapeMap ->
+												EitherIOUtils.eitherStr2IO(
+														ShapeMap.fromString(expectedShapeMapStr, "Compact", none, merged.getPrefixMap(), cachedSchema.schema.prefixMap()))
 												.flatMap( expectedShapeMap
-														-> Validator.validate(resolvedSchema, fixedShapeMap, merged)
+														-> Validator.validate(cachedSchema.resolvedSchema, fixedShapeMap, merged)
 														.flatMap(result -> result.toResultShapeMap().flatMap(
 																resultShapeMap -> IO.pure(
 																		new ResultValidation(resultShapeMap,expectedShapeMap)
-																)))))))))));
+																))))))))));
 	}
 
 
 
+	/**
+	 * Gets the parsed and resolved schema for a schema text. The schema is only parsed and resolved
+	 * the first time its text is seen, after that the cached schema is reused. The test cases that
+	 * ask for it while it is being parsed wait for that parse.
+	 *
+	 * @param schemaStr 	Schema in ShEx syntax
+	 *
+	 * @return the parsed and resolved schema
+	 */
+	private IO<CachedSchema> getSchema(String schemaStr) {
+		try {
+			return IO.pure(SCHEMA_CACHE.get(getContentKey(schemaStr), () -> Schema.fromString(schemaStr, "SHEXC", none, noneRDF)
+					.flatMap(schema -> ResolvedSchema.resolve(schema, none)
+							.flatMap(resolvedSchema -> IO.pure(new CachedSchema(schema, resolvedSchema))))
+					.unsafeRunSync()));
+		} catch (RuntimeException e) {
+			return IO.raiseError(e);
+		}
+	}
+
+	/**
+	 * Gets the parsed model for an ontology text. The ontology is only parsed the first time
+	 * its text is seen, after that the cached model is reused. The test cases that ask for it
+	 * while it is being parsed wait for that parse.
+	 *
+	 * @param ontologyStr 	Ontology in Turtle syntax
+	 *
+	 * @return the parsed ontology
+	 */
+	private IO<RDFAsJenaModel> getOntology(String ontologyStr) {
+		try {
+			return IO.pure(ONTOLOGY_CACHE.get(getContentKey(ontologyStr),
+					() -> readRDFStr(ontologyStr, "TURTLE").unsafeRunSync()));
+		} catch (RuntimeException e) {
+			return IO.raiseError(e);
+		}
+	}
+
+	/**
+	 * Gets the content hash of a text, computing it only the first time this instance sees the text.
+	 *
+	 * @param content 	ontology or schema text
+	 *
+	 * @return the content hash
+	 */
+	private String getContentKey(String content) {
+		return contentKeys.computeIfAbsent(content, HashUtils::sha256);
+	}
+
+	/**
+	 * Layers the instance data over the ontology without copying the ontology triples.
+	 * The resulting model is a dynamic union of both graphs where the instance data is the base graph,
+	 * so the shared ontology model is never modified.
+	 *
+	 * @param rdfData 		instance data of the test case
+	 * @param ontologyData 	shared ontology
+	 *
+	 * @return the union of both models
+	 */
+	private IO<RDFAsJenaModel> layer(RDFAsJenaModel rdfData, RDFAsJenaModel ontologyData) {
+		final Graph dataGraph = rdfData.model().getGraph();
+		final MultiUnion union = new MultiUnion(new Graph[]{ dataGraph, ontologyData.model().getGraph() });
+		union.setBaseGraph(dataGraph);
+		final Model layered = ModelFactory.createModelForGraph(union);
+		return IO.pure(new RDFAsJenaModel(layered, rdfData.base(), rdfData.sourceIRI(),
+				rdfData.nodeLocations(), rdfData.tripleLocations()));
+	}
+
 	private IO<RDFAsJenaModel> readRDFStr(String str, String format) {
 		return RDFAsJenaModel.fromChars(str, format, none).handleErrorWith(
 				e -> IO.raiseError(new RuntimeException("Cannot parse RDF from str: " + str + ":" + e.getMessage())));
 	}
 
-}
\ No newline at end of file
+	/**
+	 * A parsed schema together with its resolved form. Both are immutable, so they can be shared
+	 * between validations running at the same time.
+	 */
+	private static final class CachedSchema {
+
+		private final Schema schema;
+		private final ResolvedSchema resolvedSchema;
+
+		private CachedSchema(Schema schema, ResolvedSchema resolvedSchema) {
+			this.schema = schema;
+			this.resolvedSchema = resolvedSchema;
+		}
+	}
+
+}
@@ -94,6 +94,30 @@ public class WorkerTest {
 
     }
 
+    @Test
+    public void workerParallelTest(){
+
+        OntolociHubImplementation ontolociHubImplementation = new OntolociHubImplementation();
+        HubBuild hubBuild = defaultBuild.toHubBuild();
+        hubBuild = ontolociHubImplementation.addTestsToBuild(hubBuild);
+        defaultBuild = Build.from(hubBuild);
+
+        WorkerParallel workerParallel = new WorkerParallel();
+        BuildResult buildResult = workerParallel.executeBuild(defaultBuild);
+
+        assertNotNull(buildResult);
+        assertEquals(buildResult.getStatus(), BuildResultStatus.SUCCESS);
+        assertEquals(defaultBuild.getTestCases().size(), buildResult.getTestCaseResults().size());
+
+        // The results must keep the order of the manifest.
+        Iterator<TestCase> testCases = defaultBuild.getTestCases().iterator();
+        for(TestCaseResult testCaseResult:buildResult.getTestCaseResults()){
+            assertEquals(testCases.next().getName(), testCaseResult.getTestCase().getName());
+            assertNotNull(testCaseResult.getMetadata().get("execution_time"));
+        }
+
+    }
+
     @Test
     public void metadataTest() {
         WorkerSequential workerSequential = new WorkerSequential();
@@ -0,0 +1,82 @@
+package es.weso.ontoloci.worker.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentCacheTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void concurrentMissTest() throws Exception {
+        final ContentCache<String> cache = new ContentCache<>(4);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<String>> values = new ArrayList<>();
+            for(int i = 0; i < THREADS; i++) {
+                values.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("key", () -> {
+                        loads.incrementAndGet();
+                        sleep(200);
+                        return "value";
+                    });
+                }));
+            }
+            start.countDown();
+
+            // All the threads miss the cold cache at once, only one of them computes the value.
+            for(Future<String> value : values)
+                assertEquals("value", value.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getMisses());
+            assertEquals(THREADS - 1, cache.getHits());
+            assertEquals(1, cache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedLoadTest() {
+        final ContentCache<String> cache = new ContentCache<>(4);
+
+        // A failed value is not cached, the next lookup computes it again.
+        assertThrows(IllegalArgumentException.class, () -> cache.get("key", () -> {
+            throw new IllegalArgumentException("unparseable");
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("value", cache.get("key", () -> "value"));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void evictionTest() {
+        final ContentCache<String> cache = new ContentCache<>(2);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "a");
+        cache.get("c", () -> "c");
+
+        // The least recently used entry is evicted.
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get("a", () -> "a2"));
+        assertEquals("b2", cache.get("b", () -> "b2"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package es.weso.ontoloci.worker.validation;
+
+import cats.effect.IO;
+import es.weso.rdf.RDFReader;
+import es.weso.rdf.jena.RDFAsJenaModel;
+import es.weso.rdf.nodes.IRI;
+import es.weso.shapeMaps.ResultShapeMap;
+import es.weso.shapeMaps.ShapeMap;
+import es.weso.shex.ResolvedSchema;
+import es.weso.shex.Schema;
+import es.weso.shex.validator.Validator;
+import es.weso.utils.eitherios.EitherIOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import scala.Option;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidateTest {
+
+    private final static String PREFIXES =
+            "@prefix ex: <http://example.org/> .\n" +
+            "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n";
+
+    // The labels of the classes are only in the ontology, so the validation needs both graphs.
+    private final static String ONTOLOGY = PREFIXES +
+            "ex:Person rdfs:label \"Person\" .\n" +
+            "ex:Robot a ex:Class .\n";
+
+    private final static String DATA = PREFIXES +
+            "ex:alice a ex:Person ; ex:name \"Alice\" .\n" +
+            "ex:bob a ex:Person ; ex:name 42 .\n";
+
+    private final static String SCHEMA =
+            "PREFIX ex: <http://example.org/>\n" +
+            "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>\n" +
+            "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n" +
+            "ex:PersonShape { ex:name xsd:string }\n" +
+            "ex:ClassShape { rdfs:label xsd:string }\n";
+
+    private final static String SHAPE_MAP =
+            "ex:alice@ex:PersonShape,ex:bob@ex:PersonShape,ex:Person@ex:ClassShape,ex:Robot@ex:ClassShape";
+
+    private final Option<IRI> none = Option.empty();
+    private final Option<RDFReader> noneRDF = Option.empty();
+
+    @BeforeEach
+    public void clearCaches() {
+        Validate.getSchemaCache().clear();
+        Validate.getOntologyCache().clear();
+    }
+
+    @Test
+    public void schemaAndOntologyCacheTest() {
+        Validate validate = new Validate();
+
+        validate.validateStr(DATA, ONTOLOGY, SCHEMA, SHAPE_MAP).unsafeRunSync();
+        assertEquals(0, Validate.getSchemaCache().getHits());
+        assertEquals(1, Validate.getSchemaCache().getMisses());
+        assertEquals(0, Validate.getOntologyCache().getHits());
+        assertEquals(1, Validate.getOntologyCache().getMisses());
+
+        // The same texts are taken from the caches.
+        validate.validateStr(DATA, ONTOLOGY, SCHEMA, SHAPE_MAP).unsafeRunSync();
+        assertEquals(1, Validate.getSchemaCache().getHits());
+        assertEquals(1, Validate.getOntologyCache().getHits());
+        assertEquals(1, Validate.getSchemaCache().size());
+        assertEquals(1, Validate.getOntologyCache().size());
+
+        // A different schema is a miss.
+        validate.validateStr(DATA, ONTOLOGY, SCHEMA + "ex:OtherShape { ex:name . }\n", SHAPE_MAP).unsafeRunSync();
+        assertEquals(2, Validate.getSchemaCache().getMisses());
+        assertEquals(2, Validate.getSchemaCache().size());
+    }
+
+    @Test
+    public void concurrentMissTest() throws Exception {
+        final int testCases = 8;
+        final Validate validate = new Validate();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(testCases);
+        try {
+            // The test cases of a build start at once on a cold cache, as the parallel worker runs them.
+            final List<Future<ResultShapeMap>> results = new ArrayList<>();
+            for(int i = 0; i < testCases; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return validate.validateStr(DATA, ONTOLOGY, SCHEMA, SHAPE_MAP).unsafeRunSync();
+                }));
+            }
+            start.countDown();
+            for(Future<ResultShapeMap> result : results)
+                assertEquals(4, toResults(result.get(30, TimeUnit.SECONDS)).size());
+
+            // The schema and the ontology are parsed once, the other test cases wait for them.
+            assertEquals(1, Validate.getSchemaCache().getMisses());
+            assertEquals(testCases - 1, Validate.getSchemaCache().getHits());
+            assertEquals(1, Validate.getOntologyCache().getMisses());
+            assertEquals(testCases - 1, Validate.getOntologyCache().getHits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void layeredEqualsMergedTest() {
+        ResultShapeMap layered = new Validate().validateStr(DATA, ONTOLOGY, SCHEMA, SHAPE_MAP).unsafeRunSync();
+        ResultShapeMap merged = validateMerged(DATA, ONTOLOGY, SCHEMA, SHAPE_MAP).unsafeRunSync();
+
+        Set<String> layeredResults = toResults(layered);
+        assertEquals(toResults(merged), layeredResults);
+        assertEquals(4, layeredResults.size());
+    }
+
+    /**
+     * Validation over a copy of the data merged with the ontology, as it was done before the ontologies were
+     * layered under the data.
+     */
+    private IO<ResultShapeMap> validateMerged(String dataStr, String ontologyStr, String schemaStr, String shapeMapStr) {
+        return RDFAsJenaModel.fromChars(dataStr, "TURTLE", none).flatMap(rdfData -> RDFAsJenaModel.fromChars(ontologyStr, "TURTLE", none)
+                .flatMap(ontologyData -> rdfData.merge(ontologyData).flatMap(merged -> Schema
+                        .fromString(schemaStr, "SHEXC", none, noneRDF)
+                        .flatMap(schema -> EitherIOUtils
+                                .eitherStr2IO(ShapeMap.fromString(shapeMapStr, "Compact", none, merged.getPrefixMap(),
+                                        schema.prefixMap()))
+                                .flatMap(shapeMap -> ShapeMap
+                                        .fixShapeMap(shapeMap, merged, merged.getPrefixMap(), schema.prefixMap())
+                                        .flatMap(fixedShapeMap -> ResolvedSchema.resolve(schema, none)
+                                                .flatMap(resolvedSchema -> Validator
+                                                        .validate(resolvedSchema, fixedShapeMap, merged)
+                                                        .flatMap(result -> result.toResultShapeMap()))))))));
+    }
+
+    private Set<String> toResults(ShapeMap shapeMap) {
+        Set<String> results = new TreeSet<>();
+        for(ShapeMapResultValidation result : ShapeMapConverter.toResultValidations(shapeMap))
+            results.add(result.getNode() + "@" + result.getShape() + "=" + result.getStatus());
+        return results;
+    }
+}